@@ -0,0 +1,102 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed schema binary layout: a restaurant count followed, for each restaurant, by its fields
+ * in declaration order. Strings are length prefixed modified UTF-8 behind a presence flag,
+ * coordinates are raw doubles and attributes a counted list of strings.
+ * Adding a field to {@link Restaurant} requires a new codec id.
+ */
+public class BinaryRestaurantListCodec implements RestaurantListCodec {
+
+  @Override
+  public String name() {
+    return "binary";
+  }
+
+  @Override
+  public byte id() {
+    return 2;
+  }
+
+  @Override
+  public byte[] encode(List<Restaurant> restaurants) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + restaurants.size() * 128);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(restaurants.size());
+    for (Restaurant restaurant : restaurants) {
+      writeString(out, restaurant.getRestaurantId());
+      writeString(out, restaurant.getName());
+      writeString(out, restaurant.getCity());
+      writeString(out, restaurant.getImageUrl());
+      out.writeDouble(restaurant.getLatitude());
+      out.writeDouble(restaurant.getLongitude());
+      writeString(out, restaurant.getOpensAt());
+      writeString(out, restaurant.getClosesAt());
+      List<String> attributes = restaurant.getAttributes();
+      out.writeInt(attributes == null ? -1 : attributes.size());
+      if (attributes != null) {
+        for (String attribute : attributes) {
+          writeString(out, attribute);
+        }
+      }
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public List<Restaurant> decode(byte[] bytes, int offset, int length) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+    int count = in.readInt();
+    List<Restaurant> restaurants = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Restaurant restaurant = new Restaurant();
+      restaurant.setRestaurantId(readString(in));
+      restaurant.setName(readString(in));
+      restaurant.setCity(readString(in));
+      restaurant.setImageUrl(readString(in));
+      restaurant.setLatitude(in.readDouble());
+      restaurant.setLongitude(in.readDouble());
+      restaurant.setOpensAt(readString(in));
+      restaurant.setClosesAt(readString(in));
+      int attributeCount = in.readInt();
+      if (attributeCount < 0) {
+        restaurant.setAttributes(null);
+      } else {
+        List<String> attributes = new ArrayList<>(attributeCount);
+        for (int a = 0; a < attributeCount; a++) {
+          attributes.add(readString(in));
+        }
+        restaurant.setAttributes(attributes);
+      }
+      restaurants.add(restaurant);
+    }
+    return restaurants;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
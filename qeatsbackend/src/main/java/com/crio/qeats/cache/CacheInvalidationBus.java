@@ -0,0 +1,124 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Broadcasts cache invalidations to every app instance over a Redis pub/sub channel.
+ * Each instance runs a daemon subscriber that hands received keys to the registered listeners,
+ * including the keys it published itself. The subscriber reconnects after Redis failures and,
+ * since invalidations may have been missed meanwhile, delivers {@link #ALL} on every
+ * (re)subscription.
+ */
+@Component
+@Log4j2
+public class CacheInvalidationBus {
+
+  public static final String CHANNEL = "qeats:cache:invalidations";
+  public static final String ALL = "*";
+
+  private static final long MAX_BACKOFF_IN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+  private volatile boolean running;
+  private volatile JedisPubSub subscription;
+  private Thread subscriber;
+
+  public void addListener(Consumer<String> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Asks every instance, this one included, to drop the given key, or everything for
+   * {@link #ALL}. Failures are logged; local entries still expire through their TTL.
+   */
+  public void publish(String key) {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.publish(CHANNEL, key);
+    } catch (JedisException e) {
+      log.warn("Failed to publish invalidation of {}", key, e);
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    subscriber = new Thread(this::subscribeUntilStopped, "cache-invalidation-subscriber");
+    subscriber.setDaemon(true);
+    subscriber.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    JedisPubSub current = subscription;
+    if (current != null && current.isSubscribed()) {
+      current.unsubscribe();
+    }
+    subscriber.interrupt();
+  }
+
+  private void subscribeUntilStopped() {
+    long backoffInMillis = 100;
+    while (running) {
+      try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+        subscription = new JedisPubSub() {
+          @Override
+          public void onSubscribe(String channel, int subscribedChannels) {
+            notifyListeners(ALL);
+          }
+
+          @Override
+          public void onMessage(String channel, String message) {
+            notifyListeners(message);
+          }
+        };
+        backoffInMillis = 100;
+        jedis.subscribe(subscription, CHANNEL);
+      } catch (JedisException e) {
+        if (!running) {
+          return;
+        }
+        log.warn("Invalidation subscriber lost Redis, retrying in {}ms", backoffInMillis, e);
+        try {
+          Thread.sleep(backoffInMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        backoffInMillis = Math.min(backoffInMillis * 2, MAX_BACKOFF_IN_MILLIS);
+      }
+    }
+  }
+
+  private void notifyListeners(String key) {
+    for (Consumer<String> listener : listeners) {
+      try {
+        listener.accept(key);
+      } catch (RuntimeException e) {
+        log.error("Invalidation listener failed for {}", key, e);
+      }
+    }
+  }
+}
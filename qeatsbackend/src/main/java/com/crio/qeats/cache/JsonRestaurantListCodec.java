@@ -0,0 +1,54 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * UTF-8 JSON, the format the cache originally stored. Readable with redis-cli, but the largest
+ * and slowest to parse.
+ */
+public class JsonRestaurantListCodec implements RestaurantListCodec {
+
+  private static final TypeReference<List<Restaurant>> RESTAURANT_LIST =
+      new TypeReference<List<Restaurant>>() {};
+
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  public JsonRestaurantListCodec() {
+    ObjectMapper objectMapper = new ObjectMapper();
+    this.reader = objectMapper.readerFor(RESTAURANT_LIST);
+    this.writer = objectMapper.writerFor(RESTAURANT_LIST);
+  }
+
+  @Override
+  public String name() {
+    return "json";
+  }
+
+  @Override
+  public byte id() {
+    return 1;
+  }
+
+  @Override
+  public byte[] encode(List<Restaurant> restaurants) throws IOException {
+    return writer.writeValueAsBytes(restaurants);
+  }
+
+  @Override
+  public List<Restaurant> decode(byte[] bytes, int offset, int length) throws IOException {
+    return reader.readValue(bytes, offset, length);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * LZ4 block compression around another codec. The uncompressed length is stored in front of
+ * the block so decompression needs a single allocation.
+ */
+public class Lz4RestaurantListCodec implements RestaurantListCodec {
+
+  static final byte COMPRESSED_FLAG = 0x40;
+
+  private static final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+  private static final LZ4FastDecompressor decompressor =
+      LZ4Factory.fastestInstance().fastDecompressor();
+
+  private final RestaurantListCodec delegate;
+
+  public Lz4RestaurantListCodec(RestaurantListCodec delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String name() {
+    return delegate.name() + "+lz4";
+  }
+
+  @Override
+  public byte id() {
+    return (byte) (delegate.id() | COMPRESSED_FLAG);
+  }
+
+  @Override
+  public byte[] encode(List<Restaurant> restaurants) throws IOException {
+    byte[] uncompressed = delegate.encode(restaurants);
+    byte[] compressed = new byte[4 + compressor.maxCompressedLength(uncompressed.length)];
+    ByteBuffer.wrap(compressed).putInt(uncompressed.length);
+    int compressedLength = compressor.compress(uncompressed, 0, uncompressed.length,
+        compressed, 4);
+    byte[] result = new byte[4 + compressedLength];
+    System.arraycopy(compressed, 0, result, 0, result.length);
+    return result;
+  }
+
+  @Override
+  public List<Restaurant> decode(byte[] bytes, int offset, int length) throws IOException {
+    int uncompressedLength = ByteBuffer.wrap(bytes, offset, length).getInt();
+    byte[] uncompressed = new byte[uncompressedLength];
+    try {
+      decompressor.decompress(bytes, offset + 4, uncompressed, 0, uncompressedLength);
+    } catch (LZ4Exception e) {
+      throw new IOException("Corrupt LZ4 block", e);
+    }
+    return delegate.decode(uncompressed, 0, uncompressedLength);
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.exceptions.ServiceOverloadedException;
+import com.crio.qeats.utils.Bulkhead;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Thin access layer over the {@link RedisConfiguration} pool for cache reads and writes.
+ * Connections are always returned to the pool, and Redis failures are logged and treated as
+ * cache misses so that requests fall back to the database instead of failing. So are calls
+ * turned away by the Redis bulkhead when Redis is saturated, which are expected under load and
+ * only logged at debug level.
+ * The batch operations cost a single round trip whatever the number of keys.
+ */
+@Component
+@Log4j2
+public class RedisCacheStore {
+
+  private static final String RELEASE_LEASE_SCRIPT =
+      "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) "
+          + "else return 0 end";
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Autowired
+  @Qualifier("redisBulkhead")
+  private Bulkhead redisBulkhead;
+
+  /**
+   * Returns the cached value, or null when it is missing or Redis is unavailable.
+   */
+  public String get(String key) {
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      return jedis.get(key);
+    } catch (JedisException e) {
+      log.warn("Redis read of {} failed, treating it as a miss", key, e);
+      return null;
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the read of {}, treating it as a miss", key);
+      return null;
+    }
+  }
+
+  /**
+   * Reads several binary values with a single MGET. Missing keys are absent from the result,
+   * which is empty when Redis is unavailable.
+   */
+  public Map<String, byte[]> getAllBytes(List<String> keys) {
+    Map<String, byte[]> values = new HashMap<>();
+    if (keys.isEmpty()) {
+      return values;
+    }
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      List<byte[]> found = jedis.mget(toBytes(keys));
+      for (int i = 0; i < keys.size(); i++) {
+        if (found.get(i) != null) {
+          values.put(keys.get(i), found.get(i));
+        }
+      }
+    } catch (JedisException e) {
+      log.warn("Redis read of {} keys failed, treating them as misses", keys.size(), e);
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the read of {} keys, treating them as misses",
+          keys.size());
+    }
+    return values;
+  }
+
+  /**
+   * Reads several binary values together with their remaining time to live, in one pipelined
+   * round trip. Missing keys are absent from the result, which is empty when Redis is
+   * unavailable.
+   */
+  public Map<String, ExpiringValue> getAllBytesWithTtl(List<String> keys) {
+    Map<String, ExpiringValue> values = new HashMap<>();
+    if (keys.isEmpty()) {
+      return values;
+    }
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      List<Response<byte[]>> found = new ArrayList<>();
+      List<Response<Long>> ttls = new ArrayList<>();
+      for (String key : keys) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        found.add(pipeline.get(keyBytes));
+        ttls.add(pipeline.pttl(keyBytes));
+      }
+      pipeline.sync();
+      for (int i = 0; i < keys.size(); i++) {
+        if (found.get(i).get() != null) {
+          values.put(keys.get(i), new ExpiringValue(found.get(i).get(), ttls.get(i).get()));
+        }
+      }
+    } catch (JedisException e) {
+      log.warn("Redis read of {} keys failed, treating them as misses", keys.size(), e);
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the read of {} keys, treating them as misses",
+          keys.size());
+    }
+    return values;
+  }
+
+  /**
+   * Writes several binary values, each with the given expiry, in one pipelined round trip.
+   */
+  public void putAllBytes(Map<String, byte[]> values, int expiryInSeconds) {
+    if (values.isEmpty()) {
+      return;
+    }
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      for (Map.Entry<String, byte[]> value : values.entrySet()) {
+        pipeline.setex(value.getKey().getBytes(StandardCharsets.UTF_8), expiryInSeconds,
+            value.getValue());
+      }
+      pipeline.sync();
+    } catch (JedisException e) {
+      log.warn("Redis write of {} keys failed", values.size(), e);
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the write of {} keys", values.size());
+    }
+  }
+
+  /**
+   * Stores the value with the given expiry; failures are logged and ignored.
+   */
+  public void put(String key, String value, int expiryInSeconds) {
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.setex(key, expiryInSeconds, value);
+    } catch (JedisException e) {
+      log.warn("Redis write of {} failed", key, e);
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the write of {}", key);
+    }
+  }
+
+  /**
+   * Atomically increments the counter, returning its new value, or null when Redis is
+   * unavailable.
+   */
+  public Long increment(String key) {
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      return jedis.incr(key);
+    } catch (JedisException e) {
+      log.warn("Redis increment of {} failed", key, e);
+      return null;
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the increment of {}", key);
+      return null;
+    }
+  }
+
+  /**
+   * Takes a lease for {@code leaseInSeconds} on each key no other holder has, in one pipelined
+   * round trip, and returns the keys leased. When Redis is unavailable every key is returned,
+   * since there is then no one to coordinate with. When the Redis bulkhead sheds the call none
+   * is, so that callers back off instead of all loading at once while Redis is saturated.
+   */
+  public Set<String> tryLeases(Collection<String> keys, String token, int leaseInSeconds) {
+    Set<String> leased = new LinkedHashSet<>();
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      Map<String, Response<String>> responses = new LinkedHashMap<>();
+      for (String key : keys) {
+        responses.put(key, pipeline.set(key, token, "NX", "EX", leaseInSeconds));
+      }
+      pipeline.sync();
+      responses.forEach((key, response) -> {
+        if ("OK".equals(response.get())) {
+          leased.add(key);
+        }
+      });
+    } catch (JedisException e) {
+      log.warn("Redis lease of {} keys failed, proceeding without it", keys.size(), e);
+      leased.addAll(keys);
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the lease of {} keys, leasing none", keys.size());
+      return Collections.emptySet();
+    }
+    return leased;
+  }
+
+  /**
+   * Releases leases, except those that expired and were taken over by another holder meanwhile.
+   */
+  public void releaseLeases(Collection<String> keys, String token) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      for (String key : keys) {
+        pipeline.eval(RELEASE_LEASE_SCRIPT, Collections.singletonList(key),
+            Collections.singletonList(token));
+      }
+      pipeline.sync();
+    } catch (JedisException e) {
+      log.warn("Redis release of {} leases failed, they will expire", keys.size(), e);
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the release of {} leases, they will expire", keys.size());
+    }
+  }
+
+  /**
+   * Deletes the given keys; failures are logged and ignored.
+   */
+  public void delete(String... keys) {
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.del(keys);
+    } catch (JedisException e) {
+      log.warn("Redis delete of {} failed", String.join(",", keys), e);
+    } catch (ServiceOverloadedException e) {
+      log.debug("Redis bulkhead shed the delete of {}", String.join(",", keys));
+    }
+  }
+
+  /**
+   * A cached value and the milliseconds it has left, negative if it does not expire.
+   */
+  @Data
+  @AllArgsConstructor
+  public static class ExpiringValue {
+
+    private byte[] value;
+    private long ttlInMillis;
+  }
+
+  private static byte[][] toBytes(List<String> keys) {
+    byte[][] bytes = new byte[keys.size()][];
+    for (int i = 0; i < keys.size(); i++) {
+      bytes[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.models.RestaurantEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached cells when restaurants are written through Spring Data.
+ * A saved restaurant evicts the cells containing its new location; cells around a previous
+ * location keep it until they expire. A delete only carries the id, so it clears the L1 of
+ * every instance and leaves the Redis entries to expire.
+ */
+@Component
+public class RestaurantCacheEvictionListener extends AbstractMongoEventListener<RestaurantEntity> {
+
+  @Autowired
+  private RestaurantCellCache restaurantCellCache;
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<RestaurantEntity> event) {
+    RestaurantEntity restaurantEntity = event.getSource();
+    if (restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null) {
+      restaurantCellCache.evictLocation(restaurantEntity.getLatitude(),
+          restaurantEntity.getLongitude());
+    }
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<RestaurantEntity> event) {
+    restaurantCellCache.evictAllLocal();
+  }
+}
@@ -0,0 +1,380 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches nearby candidates per geohash cell.
+ * A cell holds every restaurant located in it, whatever its opening hours, so an entry can be
+ * reused for any request time and any radius. The cell precision is derived from the radius so
+ * that the cell containing the request plus its eight neighbours always cover the full circle;
+ * callers apply the exact distance and open-now filters on the assembled candidates.
+ *
+ * <p>Cells are kept in two tiers: an in-process L1 (W-TinyLFU admission) in front of the shared
+ * Redis L2. The L1 is bounded by the number of restaurants it holds, so a few dense cells cannot
+ * take more heap than many sparse ones, and a cell promoted from Redis expires with what is left
+ * of its Redis TTL, so it is never older than the Redis entry would be. L1 hits cost neither a
+ * round trip nor JSON parsing, so the returned lists and restaurants are shared between requests
+ * and must be treated as read-only. Evictions are broadcast over the
+ * {@link CacheInvalidationBus} so every instance drops its L1 copy.
+ */
+@Component
+@Log4j2
+public class RestaurantCellCache {
+
+  public static final String CELL_KEY_PREFIX = "restaurants:cell:";
+  public static final String LEASE_KEY_PREFIX = "restaurants:cell-lease:";
+
+  private static final long LEASE_POLL_INTERVAL_IN_MILLIS = 50;
+
+  private static final double KM_PER_DEGREE = 111.32;
+
+  @Autowired
+  private RedisCacheStore redisCacheStore;
+
+  @Autowired
+  private RestaurantListSerializer restaurantListSerializer;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private CacheInvalidationBus cacheInvalidationBus;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Value("${qeats.cache.l1.maximum-restaurants:200000}")
+  private long localMaximumWeight;
+
+  @Value("${qeats.cache.lease-seconds:10}")
+  private int leaseInSeconds;
+
+  @Value("${qeats.cache.lease-wait-millis:2000}")
+  private long leaseWaitInMillis;
+
+  private final String leaseToken = UUID.randomUUID().toString();
+
+  private final SingleFlight<String, List<Restaurant>> cellLoads = new SingleFlight<>();
+
+  // Replaced in tests to move time forward.
+  private Ticker ticker = Ticker.systemTicker();
+
+  private Cache<String, LocalCell> localCells;
+
+  private Counter localHits;
+  private Counter remoteHits;
+  private Counter misses;
+
+  @PostConstruct
+  public void init() {
+    localCells = Caffeine.newBuilder()
+        .maximumWeight(localMaximumWeight)
+        .weigher((String cell, LocalCell localCell) -> 1 + localCell.getRestaurants().size())
+        .expireAfter(new Expiry<String, LocalCell>() {
+          @Override
+          public long expireAfterCreate(String cell, LocalCell localCell, long currentTime) {
+            return localCell.getTtlInNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(String cell, LocalCell localCell, long currentTime,
+              long currentDuration) {
+            return localCell.getTtlInNanos();
+          }
+
+          @Override
+          public long expireAfterRead(String cell, LocalCell localCell, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .ticker(ticker)
+        .recordStats()
+        .build();
+    cacheInvalidationBus.addListener(this::evictLocal);
+    redisConfiguration.addFlushListener(localCells::invalidateAll);
+
+    CaffeineCacheMetrics.monitor(meterRegistry, localCells, "restaurantCells");
+    localHits = meterRegistry.counter("qeats.cache.cell.lookups", "result", "l1-hit");
+    remoteHits = meterRegistry.counter("qeats.cache.cell.lookups", "result", "l2-hit");
+    misses = meterRegistry.counter("qeats.cache.cell.lookups", "result", "miss");
+    Gauge.builder("qeats.cache.cell.hit.ratio", this, RestaurantCellCache::getHitRatio)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Finest geohash precision whose cells are at least {@code radiusInKms} tall and wide around
+   * the given latitude, capped at {@link GlobalConstants#DEFAULT_GEOHASH_PRECISION}.
+   */
+  public static int precisionFor(double latitude, double radiusInKms) {
+    double latitudeDelta = radiusInKms / KM_PER_DEGREE;
+    double widestCos = Math.cos(Math.toRadians(
+        Math.min(90.0, Math.abs(latitude) + latitudeDelta)));
+
+    for (int precision = GlobalConstants.DEFAULT_GEOHASH_PRECISION; precision > 1; precision--) {
+      int bits = 5 * precision;
+      double cellHeightInKms = 180.0 / (1L << (bits / 2)) * KM_PER_DEGREE;
+      double cellWidthInKms = 360.0 / (1L << ((bits + 1) / 2)) * KM_PER_DEGREE * widestCos;
+      if (cellHeightInKms >= radiusInKms && cellWidthInKms >= radiusInKms) {
+        return precision;
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * The cell containing the location followed by its neighbours, all at {@code precision}.
+   */
+  public static List<String> coveringCells(double latitude, double longitude, int precision) {
+    GeoHash center = GeoHash.withCharacterPrecision(latitude, longitude, precision);
+    Set<String> cells = new LinkedHashSet<>();
+    cells.add(center.toBase32());
+    for (GeoHash neighbour : center.getAdjacent()) {
+      cells.add(neighbour.toBase32());
+    }
+    return new ArrayList<>(cells);
+  }
+
+  public static String cellOf(double latitude, double longitude, int precision) {
+    return GeoHash.withCharacterPrecision(latitude, longitude, precision).toBase32();
+  }
+
+  /**
+   * Reads the cached candidates of the given cells. Cells that are not cached are absent from
+   * the returned map.
+   */
+  public Map<String, List<Restaurant>> getCells(List<String> cells) {
+    Map<String, List<Restaurant>> cached = new LinkedHashMap<>();
+    List<String> remoteCells = new ArrayList<>();
+    for (String cell : cells) {
+      LocalCell localCell = localCells.getIfPresent(cell);
+      if (localCell != null) {
+        localHits.increment();
+        cached.put(cell, localCell.getRestaurants());
+      } else {
+        remoteCells.add(cell);
+      }
+    }
+
+    if (!remoteCells.isEmpty()) {
+      Map<String, List<Restaurant>> remote = readRemote(remoteCells);
+      remoteHits.increment(remote.size());
+      misses.increment(remoteCells.size() - remote.size());
+      cached.putAll(remote);
+    }
+    return cached;
+  }
+
+  /**
+   * Reads the given cells, loading the missing ones with {@code loader} and caching them.
+   * Each missing cell is loaded at most once at a time: within this instance concurrent callers
+   * share one load, and across instances a Redis lease lets one node load while the others wait
+   * for the result to show up in Redis, up to {@code qeats.cache.lease-wait-millis}.
+   * @param loader returns the candidates of every cell it is given, including empty cells
+   */
+  public Map<String, List<Restaurant>> getOrLoadCells(List<String> cells,
+      Function<Set<String>, Map<String, List<Restaurant>>> loader) {
+    Map<String, List<Restaurant>> restaurantsByCell = getCells(cells);
+    if (restaurantsByCell.size() < cells.size()) {
+      List<String> missingCells = new ArrayList<>();
+      for (String cell : cells) {
+        if (!restaurantsByCell.containsKey(cell)) {
+          missingCells.add(cell);
+        }
+      }
+      restaurantsByCell.putAll(
+          cellLoads.executeAll(missingCells, owned -> loadWithLease(owned, loader)));
+    }
+    return restaurantsByCell;
+  }
+
+  /**
+   * Caches the candidates of each cell, including empty cells.
+   */
+  public void putCells(Map<String, List<Restaurant>> restaurantsByCell) {
+    Map<String, byte[]> values = new HashMap<>();
+    for (Map.Entry<String, List<Restaurant>> cell : restaurantsByCell.entrySet()) {
+      localCells.put(cell.getKey(), new LocalCell(Collections.unmodifiableList(cell.getValue()),
+          TimeUnit.SECONDS.toNanos(GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS)));
+      try {
+        values.put(CELL_KEY_PREFIX + cell.getKey(),
+            restaurantListSerializer.serialize(cell.getValue()));
+      } catch (IOException e) {
+        log.error("Failed to encode cell {}", cell.getKey(), e);
+      }
+    }
+    redisCacheStore.putAllBytes(values, GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS);
+  }
+
+  /**
+   * Drops the cells containing the given location, at every precision, from Redis and from the
+   * L1 of every instance.
+   */
+  public void evictLocation(double latitude, double longitude) {
+    List<String> cells = new ArrayList<>();
+    for (int precision = 1; precision <= GlobalConstants.DEFAULT_GEOHASH_PRECISION; precision++) {
+      cells.add(cellOf(latitude, longitude, precision));
+    }
+    redisCacheStore.delete(cells.stream().map(cell -> CELL_KEY_PREFIX + cell)
+        .toArray(String[]::new));
+    cells.forEach(cacheInvalidationBus::publish);
+  }
+
+  /**
+   * Drops every L1 entry on every instance. Redis entries are left to expire.
+   */
+  public void evictAllLocal() {
+    cacheInvalidationBus.publish(CacheInvalidationBus.ALL);
+  }
+
+  public double getHitRatio() {
+    double hits = localHits.count() + remoteHits.count();
+    double lookups = hits + misses.count();
+    return lookups == 0 ? 0.0 : hits / lookups;
+  }
+
+  private Map<String, List<Restaurant>> loadWithLease(Set<String> cells,
+      Function<Set<String>, Map<String, List<Restaurant>>> loader) {
+    Set<String> leaseKeys = redisCacheStore.tryLeases(
+        cells.stream().map(cell -> LEASE_KEY_PREFIX + cell).collect(Collectors.toList()),
+        leaseToken, leaseInSeconds);
+    Set<String> leased = new LinkedHashSet<>();
+    Set<String> contended = new LinkedHashSet<>();
+    for (String cell : cells) {
+      if (leaseKeys.contains(LEASE_KEY_PREFIX + cell)) {
+        leased.add(cell);
+      } else {
+        contended.add(cell);
+      }
+    }
+
+    Map<String, List<Restaurant>> loaded = new HashMap<>();
+    try {
+      if (!leased.isEmpty()) {
+        loaded.putAll(load(leased, loader));
+      }
+    } finally {
+      redisCacheStore.releaseLeases(leaseKeys, leaseToken);
+    }
+
+    if (!contended.isEmpty()) {
+      loaded.putAll(awaitRemoteLoads(contended));
+      contended.removeAll(loaded.keySet());
+      if (!contended.isEmpty()) {
+        log.warn("Gave up waiting for other nodes to load cells {}", contended);
+        loaded.putAll(load(contended, loader));
+      }
+    }
+    return loaded;
+  }
+
+  private Map<String, List<Restaurant>> load(Set<String> cells,
+      Function<Set<String>, Map<String, List<Restaurant>>> loader) {
+    Map<String, List<Restaurant>> loaded = loader.apply(cells);
+    putCells(loaded);
+    return loaded;
+  }
+
+  // Polls Redis for cells another node holds the lease for.
+  private Map<String, List<Restaurant>> awaitRemoteLoads(Set<String> cells) {
+    Map<String, List<Restaurant>> found = new HashMap<>();
+    Set<String> pending = new LinkedHashSet<>(cells);
+    long deadline = System.currentTimeMillis() + leaseWaitInMillis;
+    while (!pending.isEmpty() && System.currentTimeMillis() < deadline) {
+      try {
+        Thread.sleep(LEASE_POLL_INTERVAL_IN_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      Map<String, List<Restaurant>> remote = readRemote(new ArrayList<>(pending));
+      found.putAll(remote);
+      pending.removeAll(remote.keySet());
+    }
+    return found;
+  }
+
+  // Reads the cells from Redis in one round trip and promotes them into L1 for the rest of their
+  // Redis TTL.
+  private Map<String, List<Restaurant>> readRemote(List<String> cells) {
+    Map<String, RedisCacheStore.ExpiringValue> values = redisCacheStore.getAllBytesWithTtl(
+        cells.stream().map(cell -> CELL_KEY_PREFIX + cell).collect(Collectors.toList()));
+    Map<String, List<Restaurant>> found = new LinkedHashMap<>();
+    for (String cell : cells) {
+      RedisCacheStore.ExpiringValue value = values.get(CELL_KEY_PREFIX + cell);
+      List<Restaurant> restaurants = value == null ? null : decode(cell, value.getValue());
+      if (restaurants != null) {
+        restaurants = Collections.unmodifiableList(restaurants);
+        long ttlInMillis = value.getTtlInMillis() < 0
+            ? TimeUnit.SECONDS.toMillis(GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS)
+            : value.getTtlInMillis();
+        localCells.put(cell,
+            new LocalCell(restaurants, TimeUnit.MILLISECONDS.toNanos(ttlInMillis)));
+        found.put(cell, restaurants);
+      }
+    }
+    return found;
+  }
+
+  private void evictLocal(String cell) {
+    if (CacheInvalidationBus.ALL.equals(cell)) {
+      localCells.invalidateAll();
+    } else {
+      localCells.invalidate(cell);
+    }
+  }
+
+  @Data
+  @AllArgsConstructor
+  private static class LocalCell {
+
+    private List<Restaurant> restaurants;
+    private long ttlInNanos;
+  }
+
+  private List<Restaurant> decode(String cell, byte[] value) {
+    try {
+      return restaurantListSerializer.deserialize(value);
+    } catch (IOException e) {
+      log.warn("Discarding undecodable cache entry for cell {}", cell, e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encodes cached restaurant lists. Implementations are stateless and thread safe.
+ */
+public interface RestaurantListCodec {
+
+  /**
+   * Name used in {@code qeats.cache.codec} and as the metrics tag.
+   */
+  String name();
+
+  /**
+   * Format id written in the header byte of every cached value, so that entries written with
+   * another codec can still be read. Must be unique and below 64; bit 6 marks compression.
+   */
+  byte id();
+
+  byte[] encode(List<Restaurant> restaurants) throws IOException;
+
+  List<Restaurant> decode(byte[] bytes, int offset, int length) throws IOException;
+}
@@ -0,0 +1,106 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns restaurant lists into cache values and back.
+ * Values are written with the codec selected by {@code qeats.cache.codec}, optionally LZ4
+ * compressed ({@code qeats.cache.compression=lz4}), behind a one byte header naming the format.
+ * Decoding follows the header, so entries written before a codec change stay readable.
+ * Encoded sizes and encode/decode times are recorded per codec.
+ */
+@Component
+public class RestaurantListSerializer {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${qeats.cache.codec:binary}")
+  private String codecName;
+
+  @Value("${qeats.cache.compression:none}")
+  private String compression;
+
+  private final Map<Byte, RestaurantListCodec> codecsById = new HashMap<>();
+  private final Map<Byte, Timer> decodeTimers = new HashMap<>();
+
+  private RestaurantListCodec codec;
+  private Timer encodeTimer;
+  private DistributionSummary encodedBytes;
+
+  @PostConstruct
+  public void init() {
+    for (RestaurantListCodec base : Arrays.asList(
+        new JsonRestaurantListCodec(), new BinaryRestaurantListCodec())) {
+      for (RestaurantListCodec available : Arrays.asList(
+          base, new Lz4RestaurantListCodec(base))) {
+        codecsById.put(available.id(), available);
+        decodeTimers.put(available.id(), Timer.builder("qeats.cache.codec.decode")
+            .tag("codec", available.name())
+            .register(meterRegistry));
+        if (available.name().equals(selectedName())) {
+          codec = available;
+        }
+      }
+    }
+    if (codec == null) {
+      throw new IllegalArgumentException("Unknown cache codec " + selectedName());
+    }
+
+    encodeTimer = Timer.builder("qeats.cache.codec.encode")
+        .tag("codec", codec.name())
+        .register(meterRegistry);
+    encodedBytes = DistributionSummary.builder("qeats.cache.codec.bytes")
+        .tag("codec", codec.name())
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  public byte[] serialize(List<Restaurant> restaurants) throws IOException {
+    long startTimeInNanos = System.nanoTime();
+    byte[] body = codec.encode(restaurants);
+    byte[] value = new byte[body.length + 1];
+    value[0] = codec.id();
+    System.arraycopy(body, 0, value, 1, body.length);
+    encodeTimer.record(System.nanoTime() - startTimeInNanos, TimeUnit.NANOSECONDS);
+    encodedBytes.record(value.length);
+    return value;
+  }
+
+  public List<Restaurant> deserialize(byte[] value) throws IOException {
+    if (value.length == 0) {
+      throw new IOException("Empty cache value");
+    }
+    RestaurantListCodec decoder = codecsById.get(value[0]);
+    if (decoder == null) {
+      throw new IOException("Unknown cache value format " + value[0]);
+    }
+    long startTimeInNanos = System.nanoTime();
+    List<Restaurant> restaurants = decoder.decode(value, 1, value.length - 1);
+    decodeTimers.get(value[0]).record(System.nanoTime() - startTimeInNanos, TimeUnit.NANOSECONDS);
+    return restaurants;
+  }
+
+  private String selectedName() {
+    return "lz4".equals(compression) ? codecName + "+lz4" : codecName;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates cached searches when a restaurant, menu or item is written through Spring Data.
+ * Any of them can change which restaurants a query matches, so every search is invalidated.
+ */
+@Component
+public class SearchCacheInvalidationListener extends AbstractMongoEventListener<Object> {
+
+  @Autowired
+  private SearchResultCache searchResultCache;
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<Object> event) {
+    if (affectsSearch(event.getSource().getClass())) {
+      searchResultCache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<Object> event) {
+    // Deletes by query may not know the entity type, in which case we cannot rule them out.
+    if (event.getType() == null || affectsSearch(event.getType())) {
+      searchResultCache.invalidateAll();
+    }
+  }
+
+  private static boolean affectsSearch(Class<?> type) {
+    return RestaurantEntity.class.isAssignableFrom(type) || MenuEntity.class.isAssignableFrom(type)
+        || ItemEntity.class.isAssignableFrom(type);
+  }
+}
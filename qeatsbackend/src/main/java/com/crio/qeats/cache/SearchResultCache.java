@@ -0,0 +1,206 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.OpeningHours;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches search results in Redis by normalized query, coarse geohash cell and serving radius.
+ * So that an entry serves every caller in its cell, whatever their exact location and time, it
+ * holds a superset: the restaurants matching the query within the serving radius plus half the
+ * cell diagonal of the cell center, whatever their opening hours. Each caller then keeps the
+ * candidates within the radius of its own location and open at its own time.
+ *
+ * <p>Empty results are cached too, for a shorter time. Keys embed a version that
+ * {@link #invalidateAll()} bumps in Redis and announces over the {@link CacheInvalidationBus},
+ * so a restaurant, menu or item change orphans every entry on every instance at once; orphaned
+ * entries expire on their own.
+ */
+@Component
+@Log4j2
+public class SearchResultCache {
+
+  public static final String KEY_PREFIX = "search:";
+  public static final String VERSION_KEY = "search:version";
+
+  @Autowired
+  private RedisCacheStore redisCacheStore;
+
+  @Autowired
+  private RestaurantListSerializer restaurantListSerializer;
+
+  @Autowired
+  private CacheInvalidationBus cacheInvalidationBus;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${qeats.search-cache.cell-precision:6}")
+  private int cellPrecision;
+
+  @Value("${qeats.search-cache.ttl-seconds:300}")
+  private int ttlInSeconds;
+
+  @Value("${qeats.search-cache.negative-ttl-seconds:60}")
+  private int negativeTtlInSeconds;
+
+  private final SingleFlight<String, List<Restaurant>> searches = new SingleFlight<>();
+
+  private volatile long version;
+
+  private Counter hits;
+  private Counter misses;
+
+  /**
+   * A search over all sources for the given (normalized) query, returning the restaurants within
+   * the radius of the location whatever their opening hours.
+   */
+  @FunctionalInterface
+  public interface Searcher {
+
+    List<Restaurant> search(String query, double latitude, double longitude, double radiusInKms);
+  }
+
+  @PostConstruct
+  public void init() {
+    cacheInvalidationBus.addListener(key -> {
+      if (CacheInvalidationBus.ALL.equals(key) || VERSION_KEY.equals(key)) {
+        refreshVersion();
+      }
+    });
+    refreshVersion();
+    hits = meterRegistry.counter("qeats.cache.search.lookups", "result", "hit");
+    misses = meterRegistry.counter("qeats.cache.search.lookups", "result", "miss");
+  }
+
+  /**
+   * Returns the restaurants matching the search within {@code radiusInKms} of the location and
+   * open at {@code currentTime}, running {@code searcher} for the candidates of the cell on a
+   * miss. Concurrent misses for the same entry on this instance share one search.
+   */
+  public List<Restaurant> getOrSearch(String variant, String query, double latitude,
+      double longitude, double radiusInKms, LocalTime currentTime, Searcher searcher) {
+    String normalizedQuery = normalizeQuery(query);
+    GeoHash cell = GeoHash.withCharacterPrecision(latitude, longitude, cellPrecision);
+    String key = KEY_PREFIX + version + ":" + variant + ":" + cell.toBase32() + ":"
+        + radiusInKms + ":" + normalizedQuery;
+
+    byte[] value = redisCacheStore.getAllBytes(Collections.singletonList(key)).get(key);
+    List<Restaurant> candidates = value == null ? null : decode(key, value);
+    if (candidates != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      candidates = searches.execute(key, () -> {
+        WGS84Point center = cell.getBoundingBoxCenterPoint();
+        List<Restaurant> restaurants = searcher.search(normalizedQuery, center.getLatitude(),
+            center.getLongitude(), radiusInKms + halfDiagonalInKms(cell));
+        put(key, restaurants);
+        return restaurants;
+      });
+    }
+    return closeByAndOpen(candidates, latitude, longitude, radiusInKms, currentTime);
+  }
+
+  /**
+   * Orphans every cached search on every instance.
+   */
+  public void invalidateAll() {
+    if (redisCacheStore.increment(VERSION_KEY) != null) {
+      cacheInvalidationBus.publish(VERSION_KEY);
+    }
+  }
+
+  /**
+   * Lower cases the query and collapses runs of whitespace, so that trivially different
+   * spellings of a search share an entry.
+   */
+  static String normalizeQuery(String query) {
+    return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Distance from the center of the cell to its farthest corner, so that a circle around any
+   * point of the cell lies within a circle this much wider around the center.
+   */
+  static double halfDiagonalInKms(GeoHash cell) {
+    WGS84Point center = cell.getBoundingBoxCenterPoint();
+    BoundingBox box = cell.getBoundingBox();
+    double halfDiagonalInKms = 0;
+    for (double cornerLatitude : new double[]{box.getMinLat(), box.getMaxLat()}) {
+      for (double cornerLongitude : new double[]{box.getMinLon(), box.getMaxLon()}) {
+        halfDiagonalInKms = Math.max(halfDiagonalInKms, GeoUtils.findDistanceInKm(
+            center.getLatitude(), center.getLongitude(), cornerLatitude, cornerLongitude));
+      }
+    }
+    return halfDiagonalInKms;
+  }
+
+  /**
+   * The candidates strictly within the radius of the location and open at the given time, as
+   * the repository searches would have returned them for this caller.
+   */
+  static List<Restaurant> closeByAndOpen(List<Restaurant> candidates, double latitude,
+      double longitude, double radiusInKms, LocalTime currentTime) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (Restaurant restaurant : candidates) {
+      if (OpeningHours.isOpenAt(currentTime, restaurant.getOpensAt(), restaurant.getClosesAt())
+          && GeoUtils.findDistanceInKm(latitude, longitude, restaurant.getLatitude(),
+              restaurant.getLongitude()) < radiusInKms) {
+        restaurants.add(restaurant);
+      }
+    }
+    return restaurants;
+  }
+
+  private void put(String key, List<Restaurant> restaurants) {
+    int expiryInSeconds = restaurants.isEmpty()
+        ? Math.min(ttlInSeconds, negativeTtlInSeconds) : ttlInSeconds;
+    try {
+      redisCacheStore.putAllBytes(
+          Collections.singletonMap(key, restaurantListSerializer.serialize(restaurants)),
+          expiryInSeconds);
+    } catch (IOException e) {
+      log.error("Failed to encode search result {}", key, e);
+    }
+  }
+
+  private void refreshVersion() {
+    // A missing version means Redis was flushed or is unreachable; either way, keep ours.
+    String current = redisCacheStore.get(VERSION_KEY);
+    if (current != null) {
+      version = Long.parseLong(current);
+    }
+  }
+
+  private List<Restaurant> decode(String key, byte[] value) {
+    try {
+      return restaurantListSerializer.deserialize(value);
+    } catch (IOException e) {
+      log.error("Dropping undecodable search result {}", key, e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key within this JVM: the first caller for a key runs
+ * the loader, and callers arriving while it runs wait for and share its result (or failure).
+ * Nothing is retained once a load completes, so it is not a cache by itself.
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  public V execute(K key, Supplier<V> loader) {
+    return executeAll(Collections.singleton(key),
+        keys -> Collections.singletonMap(key, loader.get())).get(key);
+  }
+
+  /**
+   * Loads several keys at once. The loader is called with only the keys no other caller is
+   * already loading, and must return a value for each of them; the remaining keys are awaited.
+   */
+  public Map<K, V> executeAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+    Map<K, CompletableFuture<V>> awaited = new HashMap<>();
+    Map<K, CompletableFuture<V>> owned = new HashMap<>();
+    for (K key : keys) {
+      CompletableFuture<V> created = new CompletableFuture<>();
+      CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+      if (existing == null) {
+        owned.put(key, created);
+      } else {
+        awaited.put(key, existing);
+      }
+    }
+
+    Map<K, V> values = new HashMap<>();
+    if (!owned.isEmpty()) {
+      try {
+        Map<K, V> loaded = loader.apply(new LinkedHashSet<>(owned.keySet()));
+        for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+          V value = loaded.get(entry.getKey());
+          entry.getValue().complete(value);
+          values.put(entry.getKey(), value);
+        }
+      } catch (RuntimeException | Error e) {
+        owned.values().forEach(future -> future.completeExceptionally(e));
+        throw e;
+      } finally {
+        owned.forEach(inFlight::remove);
+      }
+    }
+
+    for (Map.Entry<K, CompletableFuture<V>> entry : awaited.entrySet()) {
+      values.put(entry.getKey(), join(entry.getValue()));
+    }
+    return values;
+  }
+
+  int inFlightCount() {
+    return inFlight.size();
+  }
+
+  private static <V> V join(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.crio.qeats.utils.Bulkhead;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One {@link Bulkhead} per backing store used while serving requests: Redis, the Mongo
+ * restaurants collection and the Mongo items and menus collections. A slow collection scan then
+ * holds at most its own bulkhead's threads, and requests served by the other stores go on.
+ * Each is sized by {@code qeats.bulkhead.<name>.max-concurrent}, {@code .max-waiting} and
+ * {@code .max-wait-millis}, and reports its occupancy as the {@code qeats.bulkhead.active},
+ * {@code qeats.bulkhead.waiting} and {@code qeats.bulkhead.rejected} meters, tagged by name.
+ */
+@Configuration
+public class BulkheadConfiguration {
+
+  public static final String REDIS = "redis";
+  public static final String MONGO_RESTAURANTS = "mongo-restaurants";
+  public static final String MONGO_ITEMS = "mongo-items";
+
+  @Value("${qeats.bulkhead.retry-after-seconds:1}")
+  private int retryAfterSeconds;
+
+  @Bean
+  public Bulkhead redisBulkhead(MeterRegistry meterRegistry,
+      @Value("${qeats.bulkhead.redis.max-concurrent:64}") int maxConcurrent,
+      @Value("${qeats.bulkhead.redis.max-waiting:64}") int maxWaiting,
+      @Value("${qeats.bulkhead.redis.max-wait-millis:20}") long maxWaitInMillis) {
+    return register(meterRegistry,
+        new Bulkhead(REDIS, maxConcurrent, maxWaiting, maxWaitInMillis, retryAfterSeconds));
+  }
+
+  @Bean
+  public Bulkhead restaurantsBulkhead(MeterRegistry meterRegistry,
+      @Value("${qeats.bulkhead.mongo-restaurants.max-concurrent:32}") int maxConcurrent,
+      @Value("${qeats.bulkhead.mongo-restaurants.max-waiting:32}") int maxWaiting,
+      @Value("${qeats.bulkhead.mongo-restaurants.max-wait-millis:200}") long maxWaitInMillis) {
+    return register(meterRegistry, new Bulkhead(MONGO_RESTAURANTS, maxConcurrent, maxWaiting,
+        maxWaitInMillis, retryAfterSeconds));
+  }
+
+  @Bean
+  public Bulkhead itemsBulkhead(MeterRegistry meterRegistry,
+      @Value("${qeats.bulkhead.mongo-items.max-concurrent:32}") int maxConcurrent,
+      @Value("${qeats.bulkhead.mongo-items.max-waiting:32}") int maxWaiting,
+      @Value("${qeats.bulkhead.mongo-items.max-wait-millis:200}") long maxWaitInMillis) {
+    return register(meterRegistry,
+        new Bulkhead(MONGO_ITEMS, maxConcurrent, maxWaiting, maxWaitInMillis, retryAfterSeconds));
+  }
+
+  private static Bulkhead register(MeterRegistry meterRegistry, Bulkhead bulkhead) {
+    Gauge.builder("qeats.bulkhead.active", bulkhead, Bulkhead::getActive)
+        .tag("name", bulkhead.getName())
+        .register(meterRegistry);
+    Gauge.builder("qeats.bulkhead.waiting", bulkhead, Bulkhead::getWaiting)
+        .tag("name", bulkhead.getName())
+        .register(meterRegistry);
+    FunctionCounter.builder("qeats.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+        .tag("name", bulkhead.getName())
+        .register(meterRegistry);
+    return bulkhead;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.crio.qeats.controller.ConcurrencyLimitFilter;
+import com.crio.qeats.controller.RestaurantController;
+import com.crio.qeats.utils.AdaptiveConcurrencyLimit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts an {@link AdaptiveConcurrencyLimit} in front of {@code /qeats/v1/restaurants}. Traffic
+ * swings about tenfold between the peak hours and the rest of the day, so a fixed limit is
+ * either too low at peak or too high to protect the node off-peak; this one follows latency
+ * instead. It starts at {@code qeats.concurrency-limit.initial-limit}, stays between
+ * {@code .min-limit} and {@code .max-limit}, and is reported as the
+ * {@code qeats.concurrency-limit.limit}, {@code .in-flight} and {@code .rejected} meters.
+ */
+@Configuration
+@Log4j2
+public class ConcurrencyLimitConfiguration {
+
+  @Bean
+  public AdaptiveConcurrencyLimit restaurantsConcurrencyLimit(MeterRegistry meterRegistry,
+      @Value("${qeats.concurrency-limit.initial-limit:20}") int initialLimit,
+      @Value("${qeats.concurrency-limit.min-limit:8}") int minLimit,
+      @Value("${qeats.concurrency-limit.max-limit:200}") int maxLimit,
+      @Value("${qeats.concurrency-limit.window-size:20}") int windowSize) {
+    AdaptiveConcurrencyLimit concurrencyLimit =
+        new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, windowSize);
+    Gauge.builder("qeats.concurrency-limit.limit", concurrencyLimit,
+        AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+    Gauge.builder("qeats.concurrency-limit.in-flight", concurrencyLimit,
+        AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+    FunctionCounter.builder("qeats.concurrency-limit.rejected", concurrencyLimit,
+        AdaptiveConcurrencyLimit::getRejected).register(meterRegistry);
+    return concurrencyLimit;
+  }
+
+  /**
+   * The limiting filter, on unless {@code qeats.concurrency-limit.enabled} is set to false.
+   */
+  @Bean
+  public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+      AdaptiveConcurrencyLimit restaurantsConcurrencyLimit, ObjectMapper objectMapper,
+      @Value("${qeats.concurrency-limit.enabled:true}") boolean enabled,
+      @Value("${qeats.concurrency-limit.retry-after-seconds:1}") int retryAfterSeconds) {
+    FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+        new ConcurrencyLimitFilter(restaurantsConcurrencyLimit, objectMapper, retryAfterSeconds));
+    registration.addUrlPatterns(RestaurantController.RESTAURANT_API_ENDPOINT
+        + RestaurantController.RESTAURANTS_API);
+    registration.setEnabled(enabled);
+    log.info("Adaptive concurrency limit on {}: {}", registration.getUrlPatterns(),
+        enabled ? "enabled" : "disabled");
+    return registration;
+  }
+}
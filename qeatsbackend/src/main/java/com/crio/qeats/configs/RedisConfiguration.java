@@ -2,6 +2,8 @@
 package com.crio.qeats.configs;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -28,6 +30,8 @@ public class RedisConfiguration {
 
   private int redisPort;
   private JedisPool jedisPool;
+  private final List<Runnable> flushListeners = new CopyOnWriteArrayList<>();
+
   public JedisPool getJedisPool() {
     if (jedisPool == null) {
       initCache();
@@ -76,12 +80,24 @@ public class RedisConfiguration {
     }
 
   }
+
+  /**
+   * Registers a callback run by {@link #destroyCache()}, so that in-process caches layered over
+   * Redis are flushed together with it.
+   */
+  public void addFlushListener(Runnable listener) {
+    flushListeners.add(listener);
+  }
+
   public void destroyCache() {
     if (jedisPool != null) {
-      jedisPool.getResource().flushAll();
+      try (Jedis jedis = jedisPool.getResource()) {
+        jedis.flushAll();
+      }
       jedisPool.destroy();
       jedisPool = null;
     }
-}
+    flushListeners.forEach(Runnable::run);
+  }
 }
 
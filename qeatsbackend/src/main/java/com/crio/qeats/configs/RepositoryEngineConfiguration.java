@@ -0,0 +1,51 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Picks the {@link RestaurantRepositoryService} implementation used by the services.
+ * Set {@code qeats.repository.engine} per deployment; defaults to the Mongo implementation.
+ */
+@Configuration
+@Log4j2
+public class RepositoryEngineConfiguration {
+
+  private static final Map<String, String> ENGINE_BEAN_NAMES =
+      ImmutableMap.<String, String>builder()
+          .put("mongo", "restaurantRepositoryServiceImpl")
+          .put("spatial-index", "restaurantRepositoryServiceSpatialIndexImpl")
+          .put("mongo-geo", "restaurantRepositoryServiceMongoGeoImpl")
+          .put("redis-geo", "restaurantRepositoryServiceRedisGeoImpl")
+          .build();
+
+  /**
+   * The primary repository service, resolved from the configured engine name.
+   */
+  @Bean
+  @Primary
+  public RestaurantRepositoryService restaurantRepositoryService(
+      ApplicationContext applicationContext,
+      @Value("${qeats.repository.engine:mongo}") String engine) {
+    String beanName = ENGINE_BEAN_NAMES.get(engine);
+    if (beanName == null) {
+      throw new IllegalArgumentException("Unknown qeats.repository.engine '" + engine
+          + "', expected one of " + ENGINE_BEAN_NAMES.keySet());
+    }
+    log.info("Using restaurant repository engine {} ({})", engine, beanName);
+    return applicationContext.getBean(beanName, RestaurantRepositoryService.class);
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The executor running the sources of a parallel search. Its threads and queue are bounded, so
+ * a burst of searches is turned away with a {@link java.util.concurrent.RejectedExecutionException}
+ * instead of piling up work that would finish past its deadline anyway.
+ */
+@Configuration
+@Log4j2
+public class SearchExecutorConfiguration {
+
+  /**
+   * The search executor, sized by {@code qeats.search.executor.threads} and
+   * {@code qeats.search.executor.queue-capacity}, or starting a virtual thread per source in the
+   * virtual thread mode, see {@link ThreadModeConfiguration}.
+   */
+  @Bean(destroyMethod = "shutdownNow")
+  public ExecutorService searchExecutor(
+      @Value("${qeats.threads.mode:platform}") String threadMode,
+      @Value("${qeats.search.executor.threads:16}") int threads,
+      @Value("${qeats.search.executor.queue-capacity:256}") int queueCapacity) {
+    if (ThreadModeConfiguration.isVirtual(threadMode)) {
+      log.info("Search executor on virtual threads");
+      return ThreadModeConfiguration.newVirtualThreadPerTaskExecutor("search-");
+    }
+    log.info("Search executor with {} threads and a queue of {}", threads, queueCapacity);
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new ThreadFactoryBuilder().setNameFormat("search-%d").setDaemon(true).build(),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import lombok.extern.log4j.Log4j2;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Picks the threads serving requests and running search sources, per {@code qeats.threads.mode}:
+ *   - platform (default): Tomcat's worker pool and the bounded search executor.
+ *   - virtual: a new virtual thread per request and per search source. This needs a Java 21 or
+ *     later runtime; the build still targets Java 8, so virtual threads are created through
+ *     reflection and startup fails on an older runtime.
+ * With virtual threads, concurrency is no longer capped by a thread count but by Tomcat's
+ * maximum connections and by the Mongo and Jedis connection pools.
+ *
+ * <p>Up to Java 23, a virtual thread blocking inside, or waiting to enter, a synchronized block
+ * pins its carrier thread. The catalogs and the Redis geo loader hold a ReentrantLock instead
+ * across their Mongo and Redis reads for that reason; the monitors left in this code guard
+ * in-memory updates only. Jedis blocks in plain socket reads and its pool waits on locks, which
+ * do not pin. The Mongo driver predates virtual threads: check it under load with
+ * {@code -Djdk.tracePinnedThreads=full} before relying on this mode.
+ */
+@Configuration
+@Log4j2
+public class ThreadModeConfiguration {
+
+  public static final String PLATFORM = "platform";
+  public static final String VIRTUAL = "virtual";
+
+  /**
+   * Runs Tomcat requests on virtual threads in virtual mode, leaves Tomcat as is otherwise.
+   */
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> requestThreadsCustomizer(
+      @Value("${qeats.threads.mode:platform}") String mode) {
+    if (!isVirtual(mode)) {
+      return factory -> { };
+    }
+    ExecutorService executor = newVirtualThreadPerTaskExecutor("http-");
+    log.info("Serving requests on virtual threads");
+    return factory -> factory.addConnectorCustomizers(connector -> {
+      ProtocolHandler protocolHandler = connector.getProtocolHandler();
+      if (protocolHandler instanceof AbstractProtocol) {
+        ((AbstractProtocol<?>) protocolHandler).setExecutor(executor);
+      }
+    });
+  }
+
+  /**
+   * Whether the thread mode asks for virtual threads.
+   * @throws IllegalArgumentException if the mode is neither platform nor virtual
+   */
+  static boolean isVirtual(String mode) {
+    if (!PLATFORM.equals(mode) && !VIRTUAL.equals(mode)) {
+      throw new IllegalArgumentException("Unknown qeats.threads.mode '" + mode
+          + "', expected " + PLATFORM + " or " + VIRTUAL);
+    }
+    return VIRTUAL.equals(mode);
+  }
+
+  /**
+   * An executor starting a virtual thread per task, named with the prefix and a counter.
+   * @throws IllegalStateException if the runtime has no virtual threads
+   */
+  static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, namePrefix, 0L);
+      ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory")
+          .invoke(builder);
+      Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor",
+          ThreadFactory.class);
+      return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+        | InvocationTargetException e) {
+      throw new IllegalStateException("qeats.threads.mode=virtual needs Java 21 or later, running "
+          + System.getProperty("java.version"), e);
+    }
+  }
+}
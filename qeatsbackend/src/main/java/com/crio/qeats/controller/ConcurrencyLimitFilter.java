@@ -0,0 +1,75 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import com.crio.qeats.models.ErrorResponseEntity;
+import com.crio.qeats.utils.AdaptiveConcurrencyLimit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Optional;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Admits requests while fewer than the {@link AdaptiveConcurrencyLimit} are in flight, and
+ * answers the others with a 503 and a Retry-After header before any work is done for them.
+ * Served requests feed their latency back to the limit; a 503 from further down, a bulkhead
+ * shedding load, makes it back off; other errors are left out.
+ */
+@Log4j2
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private final AdaptiveConcurrencyLimit concurrencyLimit;
+  private final ObjectMapper objectMapper;
+  private final int retryAfterSeconds;
+
+  public ConcurrencyLimitFilter(AdaptiveConcurrencyLimit concurrencyLimit,
+      ObjectMapper objectMapper, int retryAfterSeconds) {
+    this.concurrencyLimit = concurrencyLimit;
+    this.objectMapper = objectMapper;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    Optional<AdaptiveConcurrencyLimit.Listener> listener = concurrencyLimit.tryAcquire();
+    if (!listener.isPresent()) {
+      log.debug("Shedding {}: {} requests in flight", request.getRequestURI(),
+          concurrencyLimit.getInFlight());
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      objectMapper.writeValue(response.getOutputStream(),
+          new ErrorResponseEntity("Service overloaded, retry later"));
+      return;
+    }
+
+    boolean completed = false;
+    try {
+      filterChain.doFilter(request, response);
+      completed = true;
+    } finally {
+      if (!completed) {
+        listener.get().onIgnore();
+      } else if (response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+        listener.get().onDropped();
+      } else if (response.getStatus() >= HttpStatus.BAD_REQUEST.value()) {
+        listener.get().onIgnore();
+      } else {
+        listener.get().onSuccess();
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import com.crio.qeats.exceptions.InvalidPageRequestException;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.services.ReactiveRestaurantService;
+import java.time.LocalTime;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * The restaurants API on the reactive stack. Requests and responses are those of
+ * {@link RestaurantController}; the request thread is released as soon as the Mongo queries are
+ * started, and the response is written when they complete or the search deadline passes.
+ */
+@RestController
+@Log4j2
+@RequestMapping(ReactiveRestaurantController.RESTAURANT_API_ENDPOINT)
+public class ReactiveRestaurantController {
+
+  public static final String RESTAURANT_API_ENDPOINT = "/qeats/v2";
+  public static final String RESTAURANTS_API = "/restaurants";
+
+  @Autowired
+  private ReactiveRestaurantService reactiveRestaurantService;
+
+  // curl "http://localhost:8081/qeats/v2/restaurants?latitude=28.49&longitude=77.53&searchFor=dosa"
+  @GetMapping(RESTAURANTS_API)
+  public Mono<ResponseEntity<GetRestaurantsResponse>> getRestaurants(
+      GetRestaurantsRequest getRestaurantsRequest) {
+    log.debug("getRestaurants called with {}", getRestaurantsRequest);
+    Double latitude = getRestaurantsRequest.getLatitude();
+    Double longitude = getRestaurantsRequest.getLongitude();
+    if (latitude == null || longitude == null || latitude < -90 || latitude > 90
+        || longitude < -180 || longitude > 180) {
+      return Mono.just(ResponseEntity.badRequest().body(null));
+    }
+
+    Mono<GetRestaurantsResponse> response = getRestaurantsRequest.getSearchFor() == null
+        || getRestaurantsRequest.getSearchFor().isEmpty()
+        ? reactiveRestaurantService.findAllRestaurantsCloseBy(getRestaurantsRequest,
+            LocalTime.now())
+        : reactiveRestaurantService.findRestaurantsBySearchQuery(getRestaurantsRequest,
+            LocalTime.now());
+    return response
+        .doOnNext(getRestaurantsResponse -> getRestaurantsResponse.setRestaurants(
+            RestaurantController.withCleanNames(getRestaurantsResponse.getRestaurants())))
+        .map(ResponseEntity::ok)
+        .onErrorResume(InvalidPageRequestException.class, e -> {
+          log.info("getRestaurants rejected {}: {}", getRestaurantsRequest, e.getMessage());
+          return Mono.just(ResponseEntity.badRequest().body(null));
+        });
+  }
+}
@@ -7,10 +7,15 @@
 package com.crio.qeats.controller;
 
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exceptions.InvalidPageRequestException;
+import com.crio.qeats.exceptions.ServiceOverloadedException;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import com.crio.qeats.models.ErrorResponseEntity;
 import com.crio.qeats.services.RestaurantService;
+import com.crio.qeats.services.SuggestionService;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,11 +24,13 @@ import javax.validation.constraints.Min;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import javax.validation.Valid;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -45,10 +52,14 @@ public class RestaurantController {
   public static final String CART_CLEAR_API = "/cart/clear";
   public static final String POST_ORDER_API = "/order";
   public static final String GET_ORDERS_API = "/orders";
+  public static final String SUGGEST_API = "/suggest";
 
   @Autowired
   private RestaurantService restaurantService;
 
+  @Autowired
+  private SuggestionService suggestionService;
+
 
 
   @GetMapping(RESTAURANTS_API)
@@ -64,7 +75,13 @@ public class RestaurantController {
       List<Restaurant> restaurants = new ArrayList<>();
 
       if(getRestaurantsRequest.getSearchFor() != null && !getRestaurantsRequest.getSearchFor().isEmpty()){
-          getRestaurantsResponse = restaurantService.findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.now());
+          try {
+            getRestaurantsResponse = restaurantService
+                .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.now());
+          } catch (InvalidPageRequestException e) {
+            log.info("getRestaurants rejected {}: {}", getRestaurantsRequest, e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+          }
           if(getRestaurantsResponse == null){
             return ResponseEntity.ok().body(null);
           }
@@ -77,17 +94,49 @@ public class RestaurantController {
       }
         
       
-      for (Restaurant r : restaurants) {
-        String str = r.getName().replaceAll("[Â©éí]", "e");
-        r.setName(str);
-      }
+      getRestaurantsResponse.setRestaurants(withCleanNames(restaurants));
       log.info("getRestaurants returned {}", getRestaurantsResponse);
-      getRestaurantsResponse.setRestaurants(restaurants);
       return ResponseEntity.ok().body(getRestaurantsResponse);
     } else {
       return ResponseEntity.badRequest().body(null);
     }
   }
+
+  /**
+   * The restaurants with the garbled characters in their names replaced by an e. Restaurants
+   * may be shared with the caches and other requests, so those renamed are copies.
+   */
+  static List<Restaurant> withCleanNames(List<Restaurant> restaurants) {
+    List<Restaurant> cleaned = new ArrayList<>(restaurants.size());
+    for (Restaurant restaurant : restaurants) {
+      String name = restaurant.getName().replaceAll("[Â©éí]", "e");
+      cleaned.add(name.equals(restaurant.getName()) ? restaurant
+          : new Restaurant(restaurant.getRestaurantId(), name, restaurant.getCity(),
+              restaurant.getImageUrl(), restaurant.getLatitude(), restaurant.getLongitude(),
+              restaurant.getOpensAt(), restaurant.getClosesAt(), restaurant.getAttributes()));
+    }
+    return cleaned;
+  }
+
+  // Typeahead suggestions for a partially typed search, e.g.
+  // curl -X GET "http://localhost:8081/qeats/v1/suggest?latitude=28.49&longitude=77.53&prefix=bir"
+  @GetMapping(SUGGEST_API)
+  public ResponseEntity<GetSuggestionsResponse> getSuggestions(
+      @Valid GetSuggestionsRequest getSuggestionsRequest) {
+    log.debug("getSuggestions called with {}", getSuggestionsRequest);
+    return ResponseEntity.ok().body(suggestionService.findSuggestions(getSuggestionsRequest));
+  }
+
+  // A backing store's bulkhead is full: shed the request at once and tell the client when to
+  // come back, rather than queue it behind requests that are already waiting.
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<ErrorResponseEntity> serviceOverloaded(ServiceOverloadedException e) {
+    log.warn("Shedding request: {}", e.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+        .body(new ErrorResponseEntity("Service overloaded, retry later"));
+  }
+
   // TIP(MODULE_MENUAPI): Model Implementation for getting menu given a restaurantId.
   // Get the Menu for the given restaurantId
   // API URI: /qeats/v1/menu?restaurantId=11
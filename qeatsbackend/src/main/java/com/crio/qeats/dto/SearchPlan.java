@@ -0,0 +1,51 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// How a search was executed, returned on request, e.g.
+// {
+//  "steps": [
+//    {"source": "cuisine", "estimatedMatches": 0, "action": "ran", "found": 0},
+//    {"source": "restaurant-name", "estimatedMatches": 3, "action": "ran", "found": 2},
+//    {"source": "item-name", "estimatedMatches": 40, "action": "skipped: page full"}
+//  ],
+//  "stoppedEarly": true
+// }
+// Steps are listed in execution order; estimatedMatches counts matching restaurants anywhere,
+// or is null while the catalog it comes from is not loaded, and found counts those returned by
+// the source, i.e. nearby and open.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPlan {
+
+  private List<Step> steps = new ArrayList<>();
+
+  private boolean stoppedEarly;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Step {
+
+    private String source;
+
+    private Integer estimatedMatches;
+
+    private String action;
+
+    private Integer found;
+
+  }
+
+}
@@ -0,0 +1,32 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A typeahead suggestion, e.g.
+// {
+//  "text": "Biryani",
+//  "type": "item",
+//  "popularity": 42
+// }
+// where type is one of restaurant, cuisine or item, and popularity is the number of nearby
+// restaurants the suggestion leads to.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Suggestion {
+
+  private String text;
+
+  private String type;
+
+  private int popularity;
+
+}
@@ -0,0 +1,17 @@
+package com.crio.qeats.exceptions;
+
+/**
+ * The limit or cursor of a paged search is invalid: the limit is out of range, or the cursor
+ * was not handed out by a previous page.
+ */
+public class InvalidPageRequestException extends QEatsException {
+
+  public InvalidPageRequestException(String message) {
+    super(message);
+  }
+
+  @Override
+  public int getErrorType() {
+    return INVALID_PAGE_REQUEST;
+  }
+}
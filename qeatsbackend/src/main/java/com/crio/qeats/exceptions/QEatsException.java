@@ -7,6 +7,8 @@ abstract class QEatsException extends RuntimeException {
   public static final int ITEM_NOT_FOUND_IN_RESTAURANT_MENU = 101;
   public static final int ITEM_NOT_FROM_SAME_RESTAURANT = 102;
   public static final int CART_NOT_FOUND = 103;
+  public static final int SERVICE_OVERLOADED = 104;
+  public static final int INVALID_PAGE_REQUEST = 105;
 
   QEatsException() {}
 
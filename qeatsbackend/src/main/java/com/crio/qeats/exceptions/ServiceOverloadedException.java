@@ -0,0 +1,24 @@
+package com.crio.qeats.exceptions;
+
+/**
+ * A backing store is saturated and the request was turned away instead of waiting for it.
+ * Callers should retry after {@link #getRetryAfterSeconds()}.
+ */
+public class ServiceOverloadedException extends QEatsException {
+
+  private final int retryAfterSeconds;
+
+  public ServiceOverloadedException(String message, int retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  @Override
+  public int getErrorType() {
+    return SERVICE_OVERLOADED;
+  }
+}
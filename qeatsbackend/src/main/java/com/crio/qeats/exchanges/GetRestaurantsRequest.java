@@ -41,6 +41,21 @@ public class GetRestaurantsRequest {
 
   private String searchFor;
 
+  // Corrects misspelt words of searchFor to the closest known names, cuisines and items.
+  private boolean fuzzy;
+
+  // Asks for search results ranked and cut into pages of this size; the whole unranked list is
+  // returned when neither limit nor cursor is given.
+  @Min(value = 1)
+  @Max(value = 100)
+  private Integer limit;
+
+  // nextCursor of the previous page.
+  private String cursor;
+
+  // Asks for the executed search plan in the response.
+  private boolean explain;
+
   public GetRestaurantsRequest(@NotNull @Min(value = -90) @Max(value = 90) Double latitude, 
   @NotNull @Min(value = -180) @Max(value = 180) Double longitude) {
 this.latitude = latitude;
@@ -7,6 +7,8 @@
 package com.crio.qeats.exchanges;
 
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.SearchPlan;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,6 +22,22 @@ public class GetRestaurantsResponse {
 
     private List<Restaurant> restaurants;
 
+    // Cursor of the next page of ranked search results, absent on the last page.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    // How the search ran, when asked for.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SearchPlan plan;
+
+    // True when some search sources missed the deadline or failed, so restaurants may be missing.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean partial;
+
+    public GetRestaurantsResponse(List<Restaurant> restaurants) {
+      this.restaurants = restaurants;
+    }
+
 }
 
 // }
@@ -0,0 +1,41 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Query params of /qeats/v1/suggest?latitude=28.49&longitude=77.53&prefix=bir&limit=10
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetSuggestionsRequest {
+
+  @NotNull
+  @Min(value = -90)
+  @Max(value = 90)
+  private Double latitude;
+
+  @NotNull
+  @Min(value = -180)
+  @Max(value = 180)
+  private Double longitude;
+
+  @NotNull
+  @Size(min = 1)
+  private String prefix;
+
+  @Min(value = 1)
+  @Max(value = 50)
+  private Integer limit;
+
+}
@@ -0,0 +1,207 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.repositories.ItemRepository;
+import com.crio.qeats.repositories.MenuRepository;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the {@link ItemRestaurantIndex} built from the items and menus collections.
+ * The index is loaded on first use and kept current with the items and menus this instance
+ * writes through Spring Data. Writes made elsewhere, and deletes by query, are picked up by a
+ * full rebuild once the index is older than the configured refresh interval, or at once after a
+ * delete by query. Rebuilds run on the task scheduler; callers keep the previous index
+ * meanwhile, and the saves and deletes seen during a rebuild are replayed onto its result.
+ */
+@Component
+@Log4j2
+public class ItemCatalog extends AbstractMongoEventListener<Object> {
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Autowired
+  private TaskScheduler taskScheduler;
+
+  @Value("${qeats.index.refresh-interval-seconds:300}")
+  private long refreshIntervalInSeconds;
+
+  private volatile ItemRestaurantIndex index;
+  private volatile long builtAtMillis;
+
+  // Guards the first load and index updates; a lock rather than a monitor since loads read Mongo.
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+  // Guarded by lock. Updates applied while a rebuild reads Mongo, to be replayed onto its
+  // result, and whether a delete by query during the rebuild leaves the result stale.
+  private List<Consumer<ItemRestaurantIndex>> pendingUpdates;
+  private boolean staleAfterRefresh;
+
+  /**
+   * Returns the current index, loading it on first use. A stale index is returned as is while
+   * a rebuild is started in the background.
+   */
+  public ItemRestaurantIndex getIndex() {
+    ItemRestaurantIndex current = index;
+    if (current == null) {
+      lock.lock();
+      try {
+        if (index == null) {
+          long startTimeInMillis = System.currentTimeMillis();
+          index = build();
+          builtAtMillis = startTimeInMillis;
+        }
+        return index;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    if (System.currentTimeMillis() - builtAtMillis
+        > TimeUnit.SECONDS.toMillis(refreshIntervalInSeconds)
+        && refreshing.compareAndSet(false, true)) {
+      try {
+        taskScheduler.schedule(this::refresh, new Date());
+      } catch (TaskRejectedException e) {
+        refreshing.set(false);
+        log.warn("Could not schedule a refresh of the item index, serving the previous one", e);
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the current index as is, without loading or refreshing it; null before the first
+   * load.
+   */
+  public ItemRestaurantIndex peekIndex() {
+    return index;
+  }
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<Object> event) {
+    Consumer<ItemRestaurantIndex> update;
+    if (event.getSource() instanceof ItemEntity) {
+      ItemEntity item = (ItemEntity) event.getSource();
+      update = current -> current.putItem(item);
+    } else if (event.getSource() instanceof MenuEntity) {
+      MenuEntity menu = (MenuEntity) event.getSource();
+      update = current -> current.putMenu(menu);
+    } else {
+      return;
+    }
+    apply(update);
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<Object> event) {
+    boolean items = ItemEntity.class.equals(event.getType());
+    boolean menus = MenuEntity.class.equals(event.getType());
+    if (!items && !menus) {
+      return;
+    }
+
+    Object id = event.getSource().get("_id");
+    if (id == null || id instanceof Document) {
+      // A delete by query: which documents went is unknown, so rebuild on next use.
+      lock.lock();
+      try {
+        builtAtMillis = 0;
+        staleAfterRefresh = pendingUpdates != null;
+      } finally {
+        lock.unlock();
+      }
+    } else if (items) {
+      apply(current -> current.removeItem(id.toString()));
+    } else {
+      apply(current -> current.removeMenu(id.toString()));
+    }
+  }
+
+  // Applied under the catalog lock, so that an update cannot be lost to a concurrent rebuild.
+  private void apply(Consumer<ItemRestaurantIndex> update) {
+    lock.lock();
+    try {
+      ItemRestaurantIndex current = index;
+      if (current == null) {
+        return;
+      }
+      update.accept(current);
+      if (pendingUpdates != null) {
+        pendingUpdates.add(update);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void refresh() {
+    long startTimeInMillis = System.currentTimeMillis();
+    lock.lock();
+    try {
+      pendingUpdates = new ArrayList<>();
+      staleAfterRefresh = false;
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      ItemRestaurantIndex built = build();
+      lock.lock();
+      try {
+        pendingUpdates.forEach(update -> update.accept(built));
+        index = built;
+        builtAtMillis = staleAfterRefresh ? 0 : startTimeInMillis;
+      } finally {
+        lock.unlock();
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to refresh the item index, serving the previous one", e);
+    } finally {
+      lock.lock();
+      try {
+        pendingUpdates = null;
+      } finally {
+        lock.unlock();
+      }
+      refreshing.set(false);
+    }
+  }
+
+  private ItemRestaurantIndex build() {
+    long startTimeInMillis = System.currentTimeMillis();
+    ItemRestaurantIndex built = new ItemRestaurantIndex(itemRepository.findAll(),
+        menuRepository.findAll());
+    log.info("Built item index of {} items and {} menus in {}ms", built.itemCount(),
+        built.menuCount(), System.currentTimeMillis() - startTimeInMillis);
+    return built;
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from item names and attributes to the restaurants serving the items.
+ * Items are indexed by the lower cased words of their name and by their lower cased attributes;
+ * menus link the items to restaurants. A search word selects every dictionary entry containing
+ * it, like the unanchored case-insensitive Mongo regex it replaces but matched literally. The
+ * entries are also indexed by their substrings of up to {@link #GRAM_LENGTH} characters, so
+ * that those containing a word are found by lookups rather than by scanning the dictionary.
+ *
+ * <p>The index is updated in place as items and menus are saved or deleted. Updates are
+ * serialized; lookups never block and see each update either before or after it is applied.
+ */
+public class ItemRestaurantIndex {
+
+  static final int GRAM_LENGTH = 3;
+
+  private final Map<String, IndexedItem> itemsByItemId = new ConcurrentHashMap<>();
+  private final Map<String, String> itemIdsByDocumentId = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> itemIdsByName = new ConcurrentHashMap<>();
+  private final SubstringIndex itemIdsByNameWord = new SubstringIndex();
+  private final SubstringIndex itemIdsByAttribute = new SubstringIndex();
+
+  private final Map<String, IndexedMenu> menusById = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> menuIdsByItemId = new ConcurrentHashMap<>();
+
+  public ItemRestaurantIndex(List<ItemEntity> items, List<MenuEntity> menus) {
+    items.forEach(this::putItem);
+    menus.forEach(this::putMenu);
+  }
+
+  public int itemCount() {
+    return itemsByItemId.size();
+  }
+
+  public int menuCount() {
+    return menusById.size();
+  }
+
+  /**
+   * Ids of the restaurants serving an item named exactly like the search string, or whose name
+   * contains any of its words, ignoring case.
+   */
+  public List<String> findRestaurantIdsByItemName(String searchString) {
+    Set<String> itemIds = new LinkedHashSet<>(
+        itemIdsByName.getOrDefault(normalize(searchString), Collections.emptySet()));
+    for (String word : words(searchString)) {
+      itemIds.addAll(itemIdsByNameWord.matching(word));
+    }
+    return restaurantIdsServing(itemIds);
+  }
+
+  /**
+   * Ids of the restaurants serving an item that has, for every word of the search string, an
+   * attribute containing it, ignoring case.
+   */
+  public List<String> findRestaurantIdsByItemAttributes(String searchString) {
+    Set<String> itemIds = null;
+    for (String word : words(searchString)) {
+      Set<String> wordItemIds = itemIdsByAttribute.matching(word);
+      if (itemIds == null) {
+        itemIds = wordItemIds;
+      } else {
+        itemIds.retainAll(wordItemIds);
+      }
+      if (itemIds.isEmpty()) {
+        break;
+      }
+    }
+    return itemIds == null ? new ArrayList<>() : restaurantIdsServing(itemIds);
+  }
+
+  /**
+   * Words of the indexed item names and attributes, each with the number of items using it.
+   */
+  public Map<String, Integer> vocabulary() {
+    Map<String, Integer> frequenciesByWord = new HashMap<>();
+    itemIdsByNameWord.itemIdsByKey.forEach((word, itemIds) ->
+        frequenciesByWord.merge(word, itemIds.size(), Integer::sum));
+    itemIdsByAttribute.itemIdsByKey.forEach((attribute, itemIds) -> words(attribute).forEach(
+        word -> frequenciesByWord.merge(word, itemIds.size(), Integer::sum)));
+    return frequenciesByWord;
+  }
+
+  /**
+   * Adds or replaces an item.
+   */
+  public synchronized void putItem(ItemEntity item) {
+    if (item.getItemId() == null) {
+      return;
+    }
+    if (item.getId() != null) {
+      String previousItemId = itemIdsByDocumentId.put(item.getId(), item.getItemId());
+      if (previousItemId != null && !previousItemId.equals(item.getItemId())) {
+        unindexItem(previousItemId);
+      }
+    }
+    unindexItem(item.getItemId());
+
+    IndexedItem indexed = new IndexedItem(normalize(item.getName()),
+        words(item.getName()), normalizeAll(item.getAttributes()));
+    itemsByItemId.put(item.getItemId(), indexed);
+    add(itemIdsByName, indexed.name, item.getItemId());
+    indexed.nameWords.forEach(word -> itemIdsByNameWord.add(word, item.getItemId()));
+    indexed.attributes.forEach(attribute -> itemIdsByAttribute.add(attribute,
+        item.getItemId()));
+  }
+
+  /**
+   * Removes the item stored under the given document id, if indexed.
+   */
+  public synchronized void removeItem(String documentId) {
+    String itemId = itemIdsByDocumentId.remove(documentId);
+    if (itemId != null) {
+      unindexItem(itemId);
+    }
+  }
+
+  /**
+   * Adds or replaces a menu.
+   */
+  public synchronized void putMenu(MenuEntity menu) {
+    if (menu.getId() == null) {
+      return;
+    }
+    removeMenu(menu.getId());
+    if (menu.getRestaurantId() == null) {
+      return;
+    }
+
+    Set<String> itemIds = new HashSet<>();
+    for (Item item : menu.getItems()) {
+      if (item.getItemId() != null) {
+        itemIds.add(item.getItemId());
+      }
+    }
+    menusById.put(menu.getId(), new IndexedMenu(menu.getRestaurantId(), itemIds));
+    itemIds.forEach(itemId -> add(menuIdsByItemId, itemId, menu.getId()));
+  }
+
+  /**
+   * Removes the menu with the given id, if indexed.
+   */
+  public synchronized void removeMenu(String menuId) {
+    IndexedMenu menu = menusById.remove(menuId);
+    if (menu != null) {
+      menu.itemIds.forEach(itemId -> remove(menuIdsByItemId, itemId, menuId));
+    }
+  }
+
+  private void unindexItem(String itemId) {
+    IndexedItem indexed = itemsByItemId.remove(itemId);
+    if (indexed == null) {
+      return;
+    }
+    remove(itemIdsByName, indexed.name, itemId);
+    indexed.nameWords.forEach(word -> itemIdsByNameWord.remove(word, itemId));
+    indexed.attributes.forEach(attribute -> itemIdsByAttribute.remove(attribute, itemId));
+  }
+
+  private List<String> restaurantIdsServing(Set<String> itemIds) {
+    Set<String> restaurantIds = new LinkedHashSet<>();
+    for (String itemId : itemIds) {
+      for (String menuId : menuIdsByItemId.getOrDefault(itemId, Collections.emptySet())) {
+        IndexedMenu menu = menusById.get(menuId);
+        if (menu != null) {
+          restaurantIds.add(menu.restaurantId);
+        }
+      }
+    }
+    return new ArrayList<>(restaurantIds);
+  }
+
+  private static void add(Map<String, Set<String>> index, String key, String value) {
+    index.computeIfAbsent(key, absent -> ConcurrentHashMap.newKeySet()).add(value);
+  }
+
+  private static void remove(Map<String, Set<String>> index, String key, String value) {
+    index.computeIfPresent(key, (present, values) -> {
+      values.remove(value);
+      return values.isEmpty() ? null : values;
+    });
+  }
+
+  private static String normalize(String value) {
+    return value == null ? "" : value.toLowerCase(Locale.ROOT);
+  }
+
+  private static Set<String> normalizeAll(List<String> values) {
+    Set<String> normalized = new HashSet<>();
+    if (values != null) {
+      values.stream().map(ItemRestaurantIndex::normalize).forEach(normalized::add);
+    }
+    return normalized;
+  }
+
+  private static Set<String> words(String value) {
+    Set<String> words = new LinkedHashSet<>();
+    for (String word : normalize(value).split(" ")) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  /**
+   * Item ids by name word or attribute, with the keys indexed by each of their substrings of up
+   * to {@link #GRAM_LENGTH} characters. A word that short is a single lookup; a longer one is
+   * checked against the keys holding its rarest gram only. Updated under the index monitor.
+   */
+  private static final class SubstringIndex {
+
+    private final Map<String, Set<String>> itemIdsByKey = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> keysByGram = new ConcurrentHashMap<>();
+
+    void add(String key, String itemId) {
+      Set<String> itemIds = itemIdsByKey.get(key);
+      if (itemIds == null) {
+        itemIds = ConcurrentHashMap.newKeySet();
+        itemIdsByKey.put(key, itemIds);
+        grams(key).forEach(gram -> ItemRestaurantIndex.add(keysByGram, gram, key));
+      }
+      itemIds.add(itemId);
+    }
+
+    void remove(String key, String itemId) {
+      Set<String> itemIds = itemIdsByKey.get(key);
+      if (itemIds == null) {
+        return;
+      }
+      itemIds.remove(itemId);
+      if (itemIds.isEmpty()) {
+        itemIdsByKey.remove(key);
+        grams(key).forEach(gram -> ItemRestaurantIndex.remove(keysByGram, gram, key));
+      }
+    }
+
+    Set<String> matching(String word) {
+      Set<String> itemIds = new LinkedHashSet<>();
+      for (String key : keysContaining(word)) {
+        itemIds.addAll(itemIdsByKey.getOrDefault(key, Collections.emptySet()));
+      }
+      return itemIds;
+    }
+
+    private Collection<String> keysContaining(String word) {
+      if (word.length() <= GRAM_LENGTH) {
+        return keysByGram.getOrDefault(word, Collections.emptySet());
+      }
+      Set<String> candidates = null;
+      for (int start = 0; start + GRAM_LENGTH <= word.length(); start++) {
+        Set<String> keys = keysByGram.getOrDefault(
+            word.substring(start, start + GRAM_LENGTH), Collections.emptySet());
+        if (candidates == null || keys.size() < candidates.size()) {
+          candidates = keys;
+        }
+      }
+      List<String> keys = new ArrayList<>();
+      for (String key : candidates) {
+        if (key.contains(word)) {
+          keys.add(key);
+        }
+      }
+      return keys;
+    }
+
+    private static Set<String> grams(String key) {
+      Set<String> grams = new HashSet<>();
+      for (int start = 0; start < key.length(); start++) {
+        for (int end = start + 1; end <= Math.min(key.length(), start + GRAM_LENGTH); end++) {
+          grams.add(key.substring(start, end));
+        }
+      }
+      return grams;
+    }
+  }
+
+  private static final class IndexedItem {
+
+    private final String name;
+    private final Set<String> nameWords;
+    private final Set<String> attributes;
+
+    IndexedItem(String name, Set<String> nameWords, Set<String> attributes) {
+      this.name = name;
+      this.nameWords = nameWords;
+      this.attributes = attributes;
+    }
+  }
+
+  private static final class IndexedMenu {
+
+    private final String restaurantId;
+    private final Set<String> itemIds;
+
+    IndexedMenu(String restaurantId, Set<String> itemIds) {
+      this.restaurantId = restaurantId;
+      this.itemIds = itemIds;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.utils.OpeningHours;
+import java.time.LocalTime;
+import java.util.BitSet;
+
+/**
+ * Immutable per-minute index of which restaurants are open.
+ * Slot {@code m} of the 1440 slots has the bit of every restaurant ordinal open during minute
+ * {@code m}. Opening times are exclusive, so a lookup at the exact start of a minute also
+ * removes the restaurants opening at that minute.
+ */
+public class OpenNowIndex {
+
+  private final int size;
+  private final BitSet[] openDuringMinute;
+  private final int[][] openingAtMinute;
+
+  public OpenNowIndex(OpeningHours[] openingHours) {
+    this.size = openingHours.length;
+    this.openingAtMinute = groupByMinute(openingHours, true);
+    int[][] closingAtMinute = groupByMinute(openingHours, false);
+
+    // Sweep the day once: start from the restaurants open during midnight, then apply the
+    // openings and closings of each minute and snapshot the result.
+    BitSet open = new BitSet(size);
+    for (int ordinal = 0; ordinal < size; ordinal++) {
+      if (openingHours[ordinal].isOpenDuringMinute(0)) {
+        open.set(ordinal);
+      }
+    }
+    this.openDuringMinute = new BitSet[OpeningHours.MINUTES_PER_DAY];
+    openDuringMinute[0] = (BitSet) open.clone();
+    for (int minute = 1; minute < OpeningHours.MINUTES_PER_DAY; minute++) {
+      for (int ordinal : closingAtMinute[minute]) {
+        open.clear(ordinal);
+      }
+      for (int ordinal : openingAtMinute[minute]) {
+        open.set(ordinal);
+      }
+      openDuringMinute[minute] = (BitSet) open.clone();
+    }
+  }
+
+  /**
+   * Ordinals of the restaurants open at the given time, or of all of them for a null time. The
+   * returned set is a copy owned by the caller.
+   */
+  public BitSet openAt(LocalTime time) {
+    if (time == null) {
+      BitSet all = new BitSet(size);
+      all.set(0, size);
+      return all;
+    }
+    int minute = time.getHour() * 60 + time.getMinute();
+    BitSet open = (BitSet) openDuringMinute[minute].clone();
+    if (isStartOfMinute(time)) {
+      for (int ordinal : openingAtMinute[minute]) {
+        open.clear(ordinal);
+      }
+    }
+    return open;
+  }
+
+  public boolean isOpen(int ordinal, LocalTime time) {
+    if (time == null) {
+      return true;
+    }
+    int minute = time.getHour() * 60 + time.getMinute();
+    if (!openDuringMinute[minute].get(ordinal)) {
+      return false;
+    }
+    if (isStartOfMinute(time)) {
+      for (int opening : openingAtMinute[minute]) {
+        if (opening == ordinal) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // Ordinals grouped by opening (or closing) minute; windows that are never open are left out.
+  private static int[][] groupByMinute(OpeningHours[] openingHours, boolean opening) {
+    int[] counts = new int[OpeningHours.MINUTES_PER_DAY];
+    for (OpeningHours hours : openingHours) {
+      if (hours.getOpensAt() != hours.getClosesAt()) {
+        counts[opening ? hours.getOpensAt() : hours.getClosesAt()]++;
+      }
+    }
+
+    int[][] ordinalsByMinute = new int[OpeningHours.MINUTES_PER_DAY][];
+    for (int minute = 0; minute < OpeningHours.MINUTES_PER_DAY; minute++) {
+      ordinalsByMinute[minute] = new int[counts[minute]];
+      counts[minute] = 0;
+    }
+    for (int ordinal = 0; ordinal < openingHours.length; ordinal++) {
+      OpeningHours hours = openingHours[ordinal];
+      if (hours.getOpensAt() != hours.getClosesAt()) {
+        int minute = opening ? hours.getOpensAt() : hours.getClosesAt();
+        ordinalsByMinute[minute][counts[minute]++] = ordinal;
+      }
+    }
+    return ordinalsByMinute;
+  }
+
+  private static boolean isStartOfMinute(LocalTime time) {
+    return time.getSecond() == 0 && time.getNano() == 0;
+  }
+}
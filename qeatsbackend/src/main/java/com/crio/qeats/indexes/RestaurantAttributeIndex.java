@@ -0,0 +1,105 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable bitmap index over restaurant attributes (cuisines).
+ * Distinct attributes are lower cased and dictionary encoded into small ids, each with a bitmap
+ * of the restaurant ordinals having it. A token selects every attribute containing it, like the
+ * unanchored case-insensitive Mongo regex it replaces but matched literally, so a query is a
+ * union over the (small) dictionary per token and an intersection across tokens. The resulting
+ * bitmap composes directly with {@link OpenNowIndex#openAt}.
+ */
+public class RestaurantAttributeIndex {
+
+  private final int size;
+  private final String[] attributes;
+  private final BitSet[] bitmaps;
+
+  /**
+   * Builds the index.
+   * @param attributesByOrdinal attributes of every restaurant, indexed by ordinal; may be null
+   */
+  public RestaurantAttributeIndex(List<List<String>> attributesByOrdinal) {
+    this.size = attributesByOrdinal.size();
+    Map<String, Integer> dictionary = new HashMap<>();
+    List<String> attributeList = new ArrayList<>();
+    List<BitSet> bitmapList = new ArrayList<>();
+    for (int ordinal = 0; ordinal < size; ordinal++) {
+      List<String> restaurantAttributes = attributesByOrdinal.get(ordinal);
+      if (restaurantAttributes == null) {
+        continue;
+      }
+      for (String attribute : restaurantAttributes) {
+        if (attribute == null) {
+          continue;
+        }
+        String normalized = attribute.toLowerCase(Locale.ROOT);
+        Integer id = dictionary.get(normalized);
+        if (id == null) {
+          id = attributeList.size();
+          dictionary.put(normalized, id);
+          attributeList.add(normalized);
+          bitmapList.add(new BitSet(size));
+        }
+        bitmapList.get(id).set(ordinal);
+      }
+    }
+    this.attributes = attributeList.toArray(new String[0]);
+    this.bitmaps = bitmapList.toArray(new BitSet[0]);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int attributeCount() {
+    return attributes.length;
+  }
+
+  /**
+   * Ordinals of the restaurants having an attribute that contains the token, ignoring case.
+   * The returned set is a copy owned by the caller.
+   */
+  public BitSet matching(String token) {
+    String normalizedToken = token.toLowerCase(Locale.ROOT);
+    BitSet matches = new BitSet(size);
+    for (int id = 0; id < attributes.length; id++) {
+      if (attributes[id].contains(normalizedToken)) {
+        matches.or(bitmaps[id]);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Ordinals of the restaurants matching every token as in {@link #matching}. The returned set
+   * is a copy owned by the caller.
+   */
+  public BitSet matchingAll(Collection<String> tokens) {
+    BitSet matches = null;
+    for (String token : tokens) {
+      if (matches == null) {
+        matches = matching(token);
+      } else {
+        matches.and(matching(token));
+      }
+      if (matches.isEmpty()) {
+        break;
+      }
+    }
+    return matches == null ? new BitSet(size) : matches;
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.OpeningHours;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resident, read-only copy of the restaurants collection together with the in-memory indexes
+ * built over it.
+ * With the spatial-index engine the snapshot is loaded at startup, and with the others on first
+ * use. Once it is older than the configured refresh interval it is rebuilt on the task
+ * scheduler, and callers keep using the previous snapshot meanwhile.
+ */
+@Component
+@Log4j2
+public class RestaurantCatalog {
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private TaskScheduler taskScheduler;
+
+  @Value("${qeats.index.refresh-interval-seconds:300}")
+  private long refreshIntervalInSeconds;
+
+  @Value("${qeats.index.cell-size-in-degrees:0.05}")
+  private double cellSizeInDegrees;
+
+  @Value("${qeats.repository.engine:mongo}")
+  private String engine;
+
+  private volatile Snapshot snapshot;
+
+  // Held while loading from Mongo. A monitor would pin virtual threads to their carriers.
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    if (!SuggestionCatalog.SPATIAL_INDEX_ENGINE.equals(engine)) {
+      // The other engines only read the catalog for suggestions and fuzzy search, if ever.
+      return;
+    }
+    try {
+      getSnapshot();
+    } catch (RuntimeException e) {
+      log.error("Failed to load the restaurant catalog at startup, will retry on first use", e);
+    }
+  }
+
+  /**
+   * Returns the current snapshot, loading it on first use. A stale snapshot is returned as is
+   * while a rebuild is started in the background.
+   */
+  public Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      lock.lock();
+      try {
+        if (snapshot == null) {
+          snapshot = build();
+        }
+        return snapshot;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    if (current.getAgeInMillis() > TimeUnit.SECONDS.toMillis(refreshIntervalInSeconds)
+        && refreshing.compareAndSet(false, true)) {
+      try {
+        taskScheduler.schedule(this::refresh, new Date());
+      } catch (TaskRejectedException e) {
+        refreshing.set(false);
+        log.warn("Could not schedule a refresh of the restaurant catalog, serving the previous "
+            + "snapshot", e);
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the current snapshot as is, without loading or refreshing it; null before the
+   * first load.
+   */
+  public Snapshot peekSnapshot() {
+    return snapshot;
+  }
+
+  void refresh() {
+    try {
+      snapshot = build();
+    } catch (RuntimeException e) {
+      log.error("Failed to refresh the restaurant catalog, serving the previous snapshot", e);
+    } finally {
+      refreshing.set(false);
+    }
+  }
+
+  private Snapshot build() {
+    long startTimeInMillis = System.currentTimeMillis();
+    List<RestaurantEntity> restaurants = new ArrayList<>(restaurantRepository.findAll());
+    Snapshot built = new Snapshot(restaurants, cellSizeInDegrees);
+    log.info("Built restaurant catalog of {} restaurants in {} cells in {}ms",
+        restaurants.size(), built.getSpatialIndex().cellCount(),
+        System.currentTimeMillis() - startTimeInMillis);
+    return built;
+  }
+
+  /**
+   * An immutable view of the restaurants and their indexes. Ordinals used by the indexes are
+   * positions in {@link #getRestaurants()}.
+   */
+  public static class Snapshot {
+
+    private final List<RestaurantEntity> restaurants;
+    private final RestaurantSpatialIndex spatialIndex;
+    private final OpenNowIndex openNowIndex;
+    private final RestaurantNameIndex nameIndex;
+    private final RestaurantAttributeIndex attributeIndex;
+    private final Map<String, Integer> ordinalsByRestaurantId;
+    private final long builtAtMillis;
+
+    Snapshot(List<RestaurantEntity> restaurants, double cellSizeInDegrees) {
+      this.restaurants = Collections.unmodifiableList(restaurants);
+      this.builtAtMillis = System.currentTimeMillis();
+
+      double[] latitudes = new double[restaurants.size()];
+      double[] longitudes = new double[restaurants.size()];
+      OpeningHours[] openingHours = new OpeningHours[restaurants.size()];
+      List<String> names = new ArrayList<>(restaurants.size());
+      List<List<String>> attributes = new ArrayList<>(restaurants.size());
+      this.ordinalsByRestaurantId = new HashMap<>(restaurants.size() * 4 / 3 + 1);
+      for (int ordinal = 0; ordinal < restaurants.size(); ordinal++) {
+        RestaurantEntity restaurant = restaurants.get(ordinal);
+        latitudes[ordinal] = restaurant.getLatitude();
+        longitudes[ordinal] = restaurant.getLongitude();
+        openingHours[ordinal] = OpeningHours.of(restaurant.getOpensAt(), restaurant.getClosesAt());
+        names.add(restaurant.getName());
+        attributes.add(restaurant.getAttributes());
+        ordinalsByRestaurantId.put(restaurant.getRestaurantId(), ordinal);
+      }
+      this.spatialIndex = new RestaurantSpatialIndex(latitudes, longitudes, cellSizeInDegrees);
+      this.openNowIndex = new OpenNowIndex(openingHours);
+      this.nameIndex = new RestaurantNameIndex(names);
+      this.attributeIndex = new RestaurantAttributeIndex(attributes);
+    }
+
+    public List<RestaurantEntity> getRestaurants() {
+      return restaurants;
+    }
+
+    public RestaurantEntity getRestaurant(int ordinal) {
+      return restaurants.get(ordinal);
+    }
+
+    /**
+     * Ordinal of the restaurant with the given restaurantId, or -1 if it is not in the snapshot.
+     */
+    public int getOrdinal(String restaurantId) {
+      return ordinalsByRestaurantId.getOrDefault(restaurantId, -1);
+    }
+
+    public RestaurantSpatialIndex getSpatialIndex() {
+      return spatialIndex;
+    }
+
+    public OpenNowIndex getOpenNowIndex() {
+      return openNowIndex;
+    }
+
+    public RestaurantNameIndex getNameIndex() {
+      return nameIndex;
+    }
+
+    public RestaurantAttributeIndex getAttributeIndex() {
+      return attributeIndex;
+    }
+
+    long getAgeInMillis() {
+      return System.currentTimeMillis() - builtAtMillis;
+    }
+  }
+}
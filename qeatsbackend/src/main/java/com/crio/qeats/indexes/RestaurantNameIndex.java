@@ -0,0 +1,165 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable trigram index over restaurant names for case-insensitive exact and substring lookup.
+ * Every name is lower cased and each distinct three character sequence in it gets a posting list
+ * of the ordinals containing it. A substring query intersects the posting lists of its own
+ * trigrams, shortest first, and confirms the few survivors with a plain substring check; queries
+ * shorter than a trigram fall back to scanning the names.
+ * Unlike the Mongo regex it replaces, the query is matched literally, not as a pattern.
+ * Results are ordinals into the list the index was built from, in ascending order.
+ */
+public class RestaurantNameIndex {
+
+  private static final int GRAM_LENGTH = 3;
+  private static final int[] NONE = new int[0];
+
+  private final String[] names;
+  private final Map<Long, int[]> postings;
+  private final Map<String, int[]> exactNames;
+
+  /**
+   * Builds the index.
+   * @param names name of every restaurant, indexed by ordinal; null names match nothing but ""
+   */
+  public RestaurantNameIndex(List<String> names) {
+    this.names = new String[names.size()];
+    Map<Long, PostingBuilder> postingBuilders = new HashMap<>();
+    Map<String, PostingBuilder> exactBuilders = new HashMap<>();
+    for (int ordinal = 0; ordinal < names.size(); ordinal++) {
+      String name = normalize(names.get(ordinal));
+      this.names[ordinal] = name;
+      exactBuilders.computeIfAbsent(name, key -> new PostingBuilder()).add(ordinal);
+      for (int start = 0; start + GRAM_LENGTH <= name.length(); start++) {
+        postingBuilders.computeIfAbsent(gram(name, start), key -> new PostingBuilder())
+            .add(ordinal);
+      }
+    }
+
+    this.postings = new HashMap<>(postingBuilders.size() * 4 / 3 + 1);
+    postingBuilders.forEach((gram, builder) -> postings.put(gram, builder.build()));
+    this.exactNames = new HashMap<>(exactBuilders.size() * 4 / 3 + 1);
+    exactBuilders.forEach((name, builder) -> exactNames.put(name, builder.build()));
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public int gramCount() {
+    return postings.size();
+  }
+
+  /**
+   * Restaurants whose name equals the query, ignoring case.
+   * @return ordinals of matching restaurants in ascending order
+   */
+  public int[] findExact(String query) {
+    return exactNames.getOrDefault(normalize(query), NONE).clone();
+  }
+
+  /**
+   * Restaurants whose name contains the query, ignoring case.
+   * @return ordinals of matching restaurants in ascending order
+   */
+  public int[] findContaining(String query) {
+    String normalizedQuery = normalize(query);
+    if (normalizedQuery.length() < GRAM_LENGTH) {
+      return IntStream.range(0, names.length)
+          .filter(ordinal -> names[ordinal].contains(normalizedQuery))
+          .toArray();
+    }
+
+    Set<Long> grams = new LinkedHashSet<>();
+    for (int start = 0; start + GRAM_LENGTH <= normalizedQuery.length(); start++) {
+      grams.add(gram(normalizedQuery, start));
+    }
+    int[][] lists = new int[grams.size()][];
+    int listCount = 0;
+    for (Long gram : grams) {
+      int[] posting = postings.get(gram);
+      if (posting == null) {
+        return NONE;
+      }
+      lists[listCount++] = posting;
+    }
+    Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+    int[] candidates = lists[0].clone();
+    int candidateCount = candidates.length;
+    for (int i = 1; i < lists.length && candidateCount > 0; i++) {
+      candidateCount = intersect(candidates, candidateCount, lists[i]);
+    }
+
+    // The trigrams being present does not mean they are adjacent and in order.
+    int matchCount = 0;
+    for (int i = 0; i < candidateCount; i++) {
+      if (names[candidates[i]].contains(normalizedQuery)) {
+        candidates[matchCount++] = candidates[i];
+      }
+    }
+    return Arrays.copyOf(candidates, matchCount);
+  }
+
+  // Keeps in place the first count candidates also present in the sorted list.
+  private static int intersect(int[] candidates, int count, int[] list) {
+    int kept = 0;
+    int position = 0;
+    for (int i = 0; i < count && position < list.length; i++) {
+      int candidate = candidates[i];
+      while (position < list.length && list[position] < candidate) {
+        position++;
+      }
+      if (position < list.length && list[position] == candidate) {
+        candidates[kept++] = candidate;
+      }
+    }
+    return kept;
+  }
+
+  private static String normalize(String name) {
+    return name == null ? "" : name.toLowerCase(Locale.ROOT);
+  }
+
+  private static long gram(String name, int start) {
+    return ((long) name.charAt(start) << 32) | ((long) name.charAt(start + 1) << 16)
+        | name.charAt(start + 2);
+  }
+
+  // Growable posting list. Ordinals arrive in ascending order, so repeats are always the last.
+  private static final class PostingBuilder {
+
+    private int[] ordinals = new int[4];
+    private int size;
+
+    void add(int ordinal) {
+      if (size > 0 && ordinals[size - 1] == ordinal) {
+        return;
+      }
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, size * 2);
+      }
+      ordinals[size++] = ordinal;
+    }
+
+    int[] build() {
+      return Arrays.copyOf(ordinals, size);
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.utils.GeoUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable grid index over restaurant coordinates.
+ * Restaurants are bucketed into fixed size lat/long cells, so a radius query only visits the
+ * cells overlapping the bounding box of the circle instead of every restaurant.
+ * Results are ordinals into the arrays the index was built from, in ascending order.
+ */
+public class RestaurantSpatialIndex {
+
+  private static final double KM_PER_DEGREE_LATITUDE = 111.32;
+
+  private final double cellSizeInDegrees;
+  private final int rows;
+  private final int columns;
+  private final double[] latitudes;
+  private final double[] longitudes;
+  private final double[] cosLatitudes;
+  private final Map<Long, int[]> cells;
+
+  /**
+   * Builds the index.
+   * @param latitudes latitude of every restaurant, indexed by ordinal
+   * @param longitudes longitude of every restaurant, indexed by ordinal
+   * @param cellSizeInDegrees edge of a grid cell; roughly the typical serving radius works best
+   */
+  public RestaurantSpatialIndex(double[] latitudes, double[] longitudes,
+      double cellSizeInDegrees) {
+    if (latitudes.length != longitudes.length) {
+      throw new IllegalArgumentException("latitudes and longitudes must have the same length");
+    }
+    if (cellSizeInDegrees <= 0) {
+      throw new IllegalArgumentException("cellSizeInDegrees must be positive");
+    }
+    this.cellSizeInDegrees = cellSizeInDegrees;
+    this.rows = (int) Math.ceil(180.0 / cellSizeInDegrees) + 1;
+    this.columns = (int) Math.ceil(360.0 / cellSizeInDegrees);
+    this.latitudes = latitudes;
+    this.longitudes = longitudes;
+    this.cosLatitudes = GeoUtils.cosOfLatitudes(latitudes);
+    this.cells = buildCells();
+  }
+
+  public int size() {
+    return latitudes.length;
+  }
+
+  public int cellCount() {
+    return cells.size();
+  }
+
+  /**
+   * Finds the restaurants strictly within the given radius, using the same Haversine distance as
+   * {@link GeoUtils#findDistanceInKm}.
+   * @return ordinals of matching restaurants in ascending order
+   */
+  public int[] findWithinRadius(double latitude, double longitude, double radiusInKms) {
+    double latitudeDelta = radiusInKms / KM_PER_DEGREE_LATITUDE;
+    double minLatitude = Math.max(-90.0, latitude - latitudeDelta);
+    double maxLatitude = Math.min(90.0, latitude + latitudeDelta);
+    int minRow = row(minLatitude);
+    int maxRow = row(maxLatitude);
+
+    // Longitude degrees shrink towards the poles, so widen using the box edge closest to a pole.
+    double widestCos = Math.cos(Math.toRadians(Math.max(Math.abs(minLatitude),
+        Math.abs(maxLatitude))));
+    int minColumn;
+    int maxColumn;
+    if (widestCos <= 1e-9
+        || radiusInKms / (KM_PER_DEGREE_LATITUDE * widestCos) >= 180.0) {
+      minColumn = 0;
+      maxColumn = columns - 1;
+    } else {
+      double longitudeDelta = radiusInKms / (KM_PER_DEGREE_LATITUDE * widestCos);
+      minColumn = (int) Math.floor((longitude - longitudeDelta + 180.0) / cellSizeInDegrees);
+      maxColumn = (int) Math.floor((longitude + longitudeDelta + 180.0) / cellSizeInDegrees);
+      if (maxColumn - minColumn >= columns) {
+        minColumn = 0;
+        maxColumn = columns - 1;
+      }
+    }
+
+    int[] matches = new int[16];
+    int matchCount = 0;
+    for (int r = minRow; r <= maxRow; r++) {
+      for (int c = minColumn; c <= maxColumn; c++) {
+        int[] ordinals = cells.get(key(r, Math.floorMod(c, columns)));
+        if (ordinals == null) {
+          continue;
+        }
+        if (matchCount + ordinals.length > matches.length) {
+          matches = Arrays.copyOf(matches,
+              Math.max(matches.length * 2, matchCount + ordinals.length));
+        }
+        matchCount = GeoUtils.filterWithinRadius(latitude, longitude, radiusInKms,
+            latitudes, longitudes, cosLatitudes, ordinals, matches, matchCount);
+      }
+    }
+
+    int[] result = Arrays.copyOf(matches, matchCount);
+    Arrays.sort(result);
+    return result;
+  }
+
+  private Map<Long, int[]> buildCells() {
+    Map<Long, List<Integer>> buckets = new HashMap<>();
+    for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+      long key = key(row(latitudes[ordinal]), column(longitudes[ordinal]));
+      buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(ordinal);
+    }
+
+    Map<Long, int[]> result = new HashMap<>(buckets.size() * 2);
+    for (Map.Entry<Long, List<Integer>> bucket : buckets.entrySet()) {
+      result.put(bucket.getKey(),
+          bucket.getValue().stream().mapToInt(Integer::intValue).toArray());
+    }
+    return result;
+  }
+
+  private int row(double latitude) {
+    return Math.min(rows - 1, (int) Math.floor((latitude + 90.0) / cellSizeInDegrees));
+  }
+
+  private int column(double longitude) {
+    return Math.floorMod((int) Math.floor((longitude + 180.0) / cellSizeInDegrees), columns);
+  }
+
+  private long key(int row, int column) {
+    return (long) row * columns + column;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the {@link SpellingIndex} over the words of restaurant names, cuisines, item names and
+ * item attributes, and corrects misspelt search strings against it.
+ * Builds never run on the caller's thread: the first fuzzy search starts one on the task
+ * scheduler and goes uncorrected, and once built the index is rebuilt in the background
+ * whenever the restaurant or item catalog has handed out a new index since.
+ */
+@Component
+@Log4j2
+public class SpellingCatalog {
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private ItemCatalog itemCatalog;
+
+  @Autowired
+  private TaskScheduler taskScheduler;
+
+  private volatile Built built;
+
+  private final AtomicBoolean building = new AtomicBoolean(false);
+
+  /**
+   * Returns the index built so far, or null before the first build, which this then starts in
+   * the background.
+   */
+  public SpellingIndex getIndex() {
+    if (built == null && building.compareAndSet(false, true)) {
+      try {
+        taskScheduler.schedule(this::refresh, new Date());
+      } catch (TaskRejectedException e) {
+        building.set(false);
+        log.warn("Could not schedule a build of the spelling index", e);
+      }
+    }
+    Built current = built;
+    return current == null ? null : current.index;
+  }
+
+  /**
+   * Rebuilds the index when the catalogs have moved on. Does nothing until fuzzy search is
+   * first used, so that the catalogs are never loaded for its sake alone.
+   */
+  @Scheduled(fixedDelayString = "${qeats.spelling.refresh-interval-millis:60000}")
+  public void refreshIfBuilt() {
+    if (built != null && building.compareAndSet(false, true)) {
+      refresh();
+    }
+  }
+
+  /**
+   * The search string with every word that occurs in no vocabulary word replaced by its
+   * closest vocabulary word, lower cased. Words found inside a vocabulary word, like "bake" in
+   * "bakery", already match through the containment searches and are kept, as are words
+   * without a close enough match. The string is returned unchanged until the index is built.
+   */
+  public String correct(String searchString) {
+    SpellingIndex index = getIndex();
+    if (index == null) {
+      return searchString;
+    }
+    List<String> corrected = new ArrayList<>();
+    for (String word : searchString.trim().split("\\s+")) {
+      String correction = index.occursInAnyWord(word) ? null : index.correct(word);
+      corrected.add(correction == null ? word.toLowerCase(Locale.ROOT) : correction);
+    }
+    return String.join(" ", corrected);
+  }
+
+  void refresh() {
+    try {
+      RestaurantCatalog.Snapshot snapshot = restaurantCatalog.getSnapshot();
+      ItemRestaurantIndex itemIndex = itemCatalog.getIndex();
+      Built current = built;
+      if (current == null || current.snapshot != snapshot || current.itemIndex != itemIndex) {
+        built = new Built(snapshot, itemIndex, build(snapshot, itemIndex));
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to build the spelling index, serving the previous one", e);
+    } finally {
+      building.set(false);
+    }
+  }
+
+  private static SpellingIndex build(RestaurantCatalog.Snapshot snapshot,
+      ItemRestaurantIndex itemIndex) {
+    long startTimeInMillis = System.currentTimeMillis();
+    Map<String, Integer> frequenciesByWord = itemIndex.vocabulary();
+    for (RestaurantEntity restaurant : snapshot.getRestaurants()) {
+      addWords(frequenciesByWord, restaurant.getName());
+      if (restaurant.getAttributes() != null) {
+        restaurant.getAttributes().forEach(attribute -> addWords(frequenciesByWord, attribute));
+      }
+    }
+
+    SpellingIndex index = new SpellingIndex(frequenciesByWord);
+    log.info("Built spelling index of {} words and {} deletes in {}ms", index.wordCount(),
+        index.deleteCount(), System.currentTimeMillis() - startTimeInMillis);
+    return index;
+  }
+
+  private static void addWords(Map<String, Integer> frequenciesByWord, String text) {
+    if (text == null) {
+      return;
+    }
+    for (String word : text.toLowerCase(Locale.ROOT).split("\\s+")) {
+      if (!word.isEmpty()) {
+        frequenciesByWord.merge(word, 1, Integer::sum);
+      }
+    }
+  }
+
+  private static final class Built {
+
+    private final RestaurantCatalog.Snapshot snapshot;
+    private final ItemRestaurantIndex itemIndex;
+    private final SpellingIndex index;
+
+    Built(RestaurantCatalog.Snapshot snapshot, ItemRestaurantIndex itemIndex,
+        SpellingIndex index) {
+      this.snapshot = snapshot;
+      this.itemIndex = itemIndex;
+      this.index = index;
+    }
+  }
+}
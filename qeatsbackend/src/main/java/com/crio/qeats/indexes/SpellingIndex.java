@@ -0,0 +1,302 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable symmetric delete (SymSpell) dictionary over the search vocabulary, correcting a
+ * misspelt word to the closest vocabulary word within a small Levenshtein distance.
+ * Every vocabulary word is stored under itself and each string obtained by deleting up to its
+ * allowed distance of characters from it; a query word generates its own deletes, and any word
+ * sharing one of them is a candidate confirmed by a bounded edit distance check.
+ *
+ * <p>The allowed distance grows with the word: none below {@link #MIN_WORD_LENGTH} characters,
+ * one up to seven characters and two from eight. Words longer than {@link #MAX_WORD_LENGTH} are
+ * not examined, and only the {@link #MAX_CANDIDATES} candidates closest in length, then most
+ * frequent, are checked, so a lookup costs at most a few hundred binary searches and distance
+ * checks whatever the vocabulary size.
+ * Deletes are kept as 32 bit hashes next to the word id in a single sorted {@code long[]};
+ * hash collisions only add candidates, which the distance check rejects.
+ *
+ * <p>Every suffix of every word is also kept, sorted, to tell whether a query word occurs
+ * inside a vocabulary word.
+ */
+public class SpellingIndex {
+
+  static final int MIN_WORD_LENGTH = 4;
+  static final int MAX_WORD_LENGTH = 24;
+  static final int MAX_CANDIDATES = 256;
+
+  private static final int LONG_WORD_LENGTH = 8;
+
+  private final String[] words;
+  private final int[] frequencies;
+  private final Map<String, Integer> idsByWord;
+  private final long[] deletes;
+  // Word id in the high and start offset in the low 32 bits, sorted by the suffix.
+  private final long[] suffixes;
+
+  /**
+   * Builds the index.
+   * @param frequenciesByWord vocabulary words with how often they occur; words are lower cased
+   */
+  public SpellingIndex(Map<String, Integer> frequenciesByWord) {
+    this.words = new String[frequenciesByWord.size()];
+    this.frequencies = new int[frequenciesByWord.size()];
+    this.idsByWord = new HashMap<>(frequenciesByWord.size() * 4 / 3 + 1);
+    long[] entries = new long[16];
+    int entryCount = 0;
+    int id = 0;
+    for (Map.Entry<String, Integer> entry : frequenciesByWord.entrySet()) {
+      String word = entry.getKey().toLowerCase(Locale.ROOT);
+      if (idsByWord.containsKey(word)) {
+        frequencies[idsByWord.get(word)] += entry.getValue();
+        continue;
+      }
+      words[id] = word;
+      frequencies[id] = entry.getValue();
+      idsByWord.put(word, id);
+      if (word.length() <= MAX_WORD_LENGTH) {
+        for (String delete : deletesOf(word, allowedDistance(word.length()))) {
+          if (entryCount == entries.length) {
+            entries = Arrays.copyOf(entries, entryCount * 2);
+          }
+          entries[entryCount++] = entry(delete.hashCode(), id);
+        }
+      }
+      id++;
+    }
+    Arrays.sort(entries, 0, entryCount);
+    this.deletes = Arrays.copyOf(entries, entryCount);
+    this.suffixes = sortedSuffixes(words, id);
+  }
+
+  public int wordCount() {
+    return idsByWord.size();
+  }
+
+  public int deleteCount() {
+    return deletes.length;
+  }
+
+  public boolean contains(String word) {
+    return idsByWord.containsKey(word.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Whether the word occurs inside some vocabulary word, ignoring case.
+   */
+  public boolean occursInAnyWord(String word) {
+    String normalized = word.toLowerCase(Locale.ROOT);
+    int low = 0;
+    int high = suffixes.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compareSuffix(suffixes[middle], normalized) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low < suffixes.length
+        && words[(int) (suffixes[low] >>> 32)].startsWith(normalized, (int) suffixes[low]);
+  }
+
+  /**
+   * The vocabulary word closest to the given one, preferring the more frequent and then the
+   * alphabetically first among equally close words; the word itself, lower cased, when it is in
+   * the vocabulary, and null when nothing is close enough.
+   */
+  public String correct(String word) {
+    String normalized = word.toLowerCase(Locale.ROOT);
+    if (idsByWord.containsKey(normalized)) {
+      return normalized;
+    }
+    if (normalized.length() < MIN_WORD_LENGTH - 1 || normalized.length() > MAX_WORD_LENGTH) {
+      return null;
+    }
+
+    // A word within two edits of a query of length n is at least n - 2 long, so it needs two
+    // edits' allowance, and thus eight characters, only when the query has six or more.
+    int queryDistance = normalized.length() >= LONG_WORD_LENGTH - 2 ? 2 : 1;
+    Set<Integer> candidateSet = new HashSet<>();
+    for (String delete : deletesOf(normalized, queryDistance)) {
+      long hash = entry(delete.hashCode(), 0);
+      for (int i = lowerBound(deletes, hash);
+          i < deletes.length && (deletes[i] >>> 32) == (hash >>> 32); i++) {
+        candidateSet.add((int) deletes[i]);
+      }
+    }
+    List<Integer> candidates = new ArrayList<>(candidateSet);
+    if (candidates.size() > MAX_CANDIDATES) {
+      // The length difference is a lower bound of the distance, so the likeliest corrections
+      // are kept whichever order the hashes put them in.
+      candidates.sort(Comparator
+          .<Integer>comparingInt(candidate ->
+              Math.abs(words[candidate].length() - normalized.length()))
+          .thenComparing(candidate -> -frequencies[candidate])
+          .thenComparing(candidate -> words[candidate]));
+      candidates = candidates.subList(0, MAX_CANDIDATES);
+    }
+
+    String best = null;
+    int bestDistance = Integer.MAX_VALUE;
+    int bestFrequency = 0;
+    for (int candidate : candidates) {
+      String candidateWord = words[candidate];
+      int allowed = allowedDistance(candidateWord.length());
+      int distance = distance(normalized, candidateWord, Math.min(allowed, bestDistance));
+      if (distance > allowed) {
+        continue;
+      }
+      if (best == null || distance < bestDistance
+          || distance == bestDistance && (frequencies[candidate] > bestFrequency
+              || frequencies[candidate] == bestFrequency && candidateWord.compareTo(best) < 0)) {
+        best = candidateWord;
+        bestDistance = distance;
+        bestFrequency = frequencies[candidate];
+      }
+    }
+    return best;
+  }
+
+  static int allowedDistance(int wordLength) {
+    if (wordLength < MIN_WORD_LENGTH) {
+      return 0;
+    }
+    return wordLength < LONG_WORD_LENGTH ? 1 : 2;
+  }
+
+  /**
+   * Levenshtein distance between the two words, or any value above the bound once it is known
+   * to exceed it.
+   */
+  static int distance(String left, String right, int bound) {
+    if (Math.abs(left.length() - right.length()) > bound) {
+      return bound + 1;
+    }
+    int[] previous = new int[right.length() + 1];
+    int[] current = new int[right.length() + 1];
+    for (int j = 0; j <= right.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= left.length(); i++) {
+      current[0] = i;
+      int rowMinimum = current[0];
+      for (int j = 1; j <= right.length(); j++) {
+        int substitution = previous[j - 1]
+            + (left.charAt(i - 1) == right.charAt(j - 1) ? 0 : 1);
+        current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+        rowMinimum = Math.min(rowMinimum, current[j]);
+      }
+      if (rowMinimum > bound) {
+        return bound + 1;
+      }
+      int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return previous[right.length()];
+  }
+
+  // The word and every distinct string obtained by deleting up to the given number of
+  // characters from it.
+  private static List<String> deletesOf(String word, int distance) {
+    Set<String> seen = new HashSet<>();
+    List<String> deletes = new ArrayList<>();
+    seen.add(word);
+    deletes.add(word);
+    int from = 0;
+    for (int round = 0; round < distance; round++) {
+      int to = deletes.size();
+      for (int i = from; i < to; i++) {
+        String source = deletes.get(i);
+        for (int position = 0; position < source.length(); position++) {
+          String delete = source.substring(0, position) + source.substring(position + 1);
+          if (seen.add(delete)) {
+            deletes.add(delete);
+          }
+        }
+      }
+      from = to;
+    }
+    return deletes;
+  }
+
+  private static long[] sortedSuffixes(String[] words, int wordCount) {
+    List<Long> suffixes = new ArrayList<>();
+    for (int id = 0; id < wordCount; id++) {
+      for (int offset = 0; offset < words[id].length(); offset++) {
+        suffixes.add(entry(id, offset));
+      }
+    }
+    suffixes.sort((left, right) -> compareSuffixes(words, left, right));
+    long[] sorted = new long[suffixes.size()];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = suffixes.get(i);
+    }
+    return sorted;
+  }
+
+  private static int compareSuffixes(String[] words, long left, long right) {
+    String leftWord = words[(int) (left >>> 32)];
+    String rightWord = words[(int) (right >>> 32)];
+    int leftOffset = (int) left;
+    int rightOffset = (int) right;
+    while (leftOffset < leftWord.length() && rightOffset < rightWord.length()) {
+      int comparison = leftWord.charAt(leftOffset++) - rightWord.charAt(rightOffset++);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return (leftWord.length() - leftOffset) - (rightWord.length() - rightOffset);
+  }
+
+  // Compares the suffix with the word as far as the word goes, so that suffixes starting with
+  // the word compare equal to it.
+  private int compareSuffix(long suffix, String word) {
+    String suffixWord = words[(int) (suffix >>> 32)];
+    int offset = (int) suffix;
+    for (int i = 0; i < word.length(); i++, offset++) {
+      if (offset == suffixWord.length()) {
+        return -1;
+      }
+      int comparison = suffixWord.charAt(offset) - word.charAt(i);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  private static long entry(int hash, int id) {
+    return ((long) hash << 32) | (id & 0xffffffffL);
+  }
+
+  private static int lowerBound(long[] sorted, long key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the {@link SuggestionIndex} over the restaurants of the current {@link RestaurantCatalog}
+ * snapshot, their cuisines and the items on their menus, each restaurant counted in the geohash
+ * region containing it. The index is built on first use, and rebuilt on the task scheduler
+ * whenever the catalog hands out a new snapshot; callers keep the previous index meanwhile.
+ * Under the {@code spatial-index} engine, which keeps the catalog resident anyway, it is also
+ * built at startup so that its size is reported before the first request.
+ */
+@Component
+@Log4j2
+public class SuggestionCatalog {
+
+  static final String SPATIAL_INDEX_ENGINE = "spatial-index";
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Autowired
+  private TaskScheduler taskScheduler;
+
+  @Value("${qeats.suggest.region-precision:4}")
+  private int regionPrecision;
+
+  @Value("${qeats.repository.engine:mongo}")
+  private String engine;
+
+  private volatile Built built;
+
+  // Held across the menus query of the first build, hence not a monitor.
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    if (!SPATIAL_INDEX_ENGINE.equals(engine)) {
+      // The other engines never load the restaurant catalog; leave that to the first request.
+      return;
+    }
+    try {
+      getIndex();
+    } catch (RuntimeException e) {
+      log.error("Failed to build the suggestion index at startup, will retry on first use", e);
+    }
+  }
+
+  /**
+   * Returns the index, building it on first use. An index over an older catalog snapshot is
+   * returned as is while its rebuild is started in the background.
+   */
+  public SuggestionIndex getIndex() {
+    RestaurantCatalog.Snapshot snapshot = restaurantCatalog.getSnapshot();
+    Built current = built;
+    if (current == null) {
+      lock.lock();
+      try {
+        if (built == null) {
+          built = new Built(snapshot, build(snapshot));
+        }
+        return built.index;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    if (current.snapshot != snapshot && rebuilding.compareAndSet(false, true)) {
+      try {
+        taskScheduler.schedule(() -> rebuild(snapshot), new Date());
+      } catch (TaskRejectedException e) {
+        rebuilding.set(false);
+        log.warn("Could not schedule a rebuild of the suggestion index, serving the previous one",
+            e);
+      }
+    }
+    return current.index;
+  }
+
+  /**
+   * The geohash region containing the location followed by its neighbours, so that callers
+   * near a region border also see the restaurants just across it.
+   */
+  public List<String> regionsAround(double latitude, double longitude) {
+    GeoHash region = GeoHash.withCharacterPrecision(latitude, longitude, regionPrecision);
+    List<String> regions = new ArrayList<>();
+    regions.add(region.toBase32());
+    for (GeoHash neighbour : region.getAdjacent()) {
+      regions.add(neighbour.toBase32());
+    }
+    return regions;
+  }
+
+  void rebuild(RestaurantCatalog.Snapshot snapshot) {
+    try {
+      built = new Built(snapshot, build(snapshot));
+    } catch (RuntimeException e) {
+      log.error("Failed to rebuild the suggestion index, serving the previous one", e);
+    } finally {
+      rebuilding.set(false);
+    }
+  }
+
+  private SuggestionIndex build(RestaurantCatalog.Snapshot snapshot) {
+    long startTimeInMillis = System.currentTimeMillis();
+    Map<String, List<Item>> itemsByRestaurantId = new HashMap<>();
+    for (MenuEntity menu : menuRepository.findAll()) {
+      itemsByRestaurantId.computeIfAbsent(menu.getRestaurantId(), id -> new ArrayList<>())
+          .addAll(menu.getItems());
+    }
+
+    SuggestionIndex.Builder builder = new SuggestionIndex.Builder();
+    for (RestaurantEntity restaurant : snapshot.getRestaurants()) {
+      String region = GeoHash.withCharacterPrecision(restaurant.getLatitude(),
+          restaurant.getLongitude(), regionPrecision).toBase32();
+      builder.add(region, SuggestionIndex.Kind.RESTAURANT, restaurant.getName());
+      addOncePerRestaurant(builder, region, SuggestionIndex.Kind.CUISINE,
+          restaurant.getAttributes());
+
+      List<String> itemNames = new ArrayList<>();
+      for (Item item : itemsByRestaurantId.getOrDefault(restaurant.getRestaurantId(),
+          new ArrayList<>())) {
+        itemNames.add(item.getName());
+      }
+      addOncePerRestaurant(builder, region, SuggestionIndex.Kind.ITEM, itemNames);
+    }
+
+    SuggestionIndex index = builder.build();
+    log.info("Built suggestion index of {} terms in {} regions in {}ms, about {} KB",
+        index.termCount(), index.regionCount(), System.currentTimeMillis() - startTimeInMillis,
+        index.estimatedSizeInBytes() / 1024);
+    return index;
+  }
+
+  private static void addOncePerRestaurant(SuggestionIndex.Builder builder, String region,
+      SuggestionIndex.Kind kind, List<String> texts) {
+    if (texts == null) {
+      return;
+    }
+    Set<String> seen = new LinkedHashSet<>();
+    for (String text : texts) {
+      if (text != null && seen.add(text.toLowerCase(Locale.ROOT))) {
+        builder.add(region, kind, text);
+      }
+    }
+  }
+
+  private static final class Built {
+
+    private final RestaurantCatalog.Snapshot snapshot;
+    private final SuggestionIndex index;
+
+    Built(RestaurantCatalog.Snapshot snapshot, SuggestionIndex index) {
+      this.snapshot = snapshot;
+      this.index = index;
+    }
+  }
+}
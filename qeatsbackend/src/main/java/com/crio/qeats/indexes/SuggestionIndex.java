@@ -0,0 +1,213 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.dto.Suggestion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable typeahead index of restaurant names, cuisines and item names, scoped by region.
+ * Terms are kept once, lower cased and sorted, so the terms starting with a prefix form a
+ * contiguous range of term ids found by binary search. Each region stores the sorted ids of the
+ * terms offered in it with their popularity, the number of restaurants of the region offering
+ * the term, and a query only visits the slice of that range within the requested regions.
+ */
+public class SuggestionIndex {
+
+  public enum Kind {
+    RESTAURANT, CUISINE, ITEM
+  }
+
+  private static final Kind[] KINDS = Kind.values();
+
+  private final String[] keys;
+  private final String[] texts;
+  private final byte[] kinds;
+  private final Map<String, Region> regions;
+
+  private SuggestionIndex(String[] keys, String[] texts, byte[] kinds,
+      Map<String, Region> regions) {
+    this.keys = keys;
+    this.texts = texts;
+    this.kinds = kinds;
+    this.regions = regions;
+  }
+
+  public int termCount() {
+    return keys.length;
+  }
+
+  public int regionCount() {
+    return regions.size();
+  }
+
+  /**
+   * Rough heap footprint of the index, counting strings, arrays and map entries.
+   */
+  public long estimatedSizeInBytes() {
+    long size = 3 * 16L + kinds.length;
+    for (int id = 0; id < keys.length; id++) {
+      size += 8 + 40 + 2L * keys[id].length();
+      size += 8 + (texts[id] == keys[id] ? 0 : 40 + 2L * texts[id].length());
+    }
+    for (Map.Entry<String, Region> region : regions.entrySet()) {
+      size += 48 + 40 + 2L * region.getKey().length() + 2 * 16 + 8L * region.getValue().size();
+    }
+    return size;
+  }
+
+  /**
+   * The most popular terms starting with the prefix, ignoring case, summed over the given
+   * regions; ties go to the alphabetically first.
+   */
+  public List<Suggestion> suggest(Collection<String> regionHashes, String prefix, int limit) {
+    String normalizedPrefix = prefix.toLowerCase(Locale.ROOT);
+    int from = lowerBound(keys, normalizedPrefix);
+    int to = lowerBound(keys, normalizedPrefix + Character.MAX_VALUE);
+    if (from == to || limit <= 0) {
+      return Collections.emptyList();
+    }
+
+    // Popularity of every term in the prefix range, summed over the regions.
+    int[] popularity = new int[to - from];
+    for (String regionHash : regionHashes) {
+      Region region = regions.get(regionHash);
+      if (region == null) {
+        continue;
+      }
+      int end = region.indexOf(to);
+      for (int i = region.indexOf(from); i < end; i++) {
+        popularity[region.termIds[i] - from] += region.popularity[i];
+      }
+    }
+
+    // Min-heap of the best limit terms seen so far: least popular, then alphabetically last,
+    // on top.
+    PriorityQueue<int[]> best = new PriorityQueue<>(limit + 1, (left, right) ->
+        left[1] != right[1] ? Integer.compare(left[1], right[1])
+            : Integer.compare(right[0], left[0]));
+    for (int offset = 0; offset < popularity.length; offset++) {
+      if (popularity[offset] == 0
+          || best.size() == limit && popularity[offset] <= best.peek()[1]) {
+        continue;
+      }
+      best.add(new int[] {from + offset, popularity[offset]});
+      if (best.size() > limit) {
+        best.poll();
+      }
+    }
+
+    Suggestion[] suggestions = new Suggestion[best.size()];
+    for (int i = suggestions.length - 1; i >= 0; i--) {
+      int[] term = best.poll();
+      suggestions[i] = new Suggestion(texts[term[0]],
+          KINDS[kinds[term[0]]].name().toLowerCase(Locale.ROOT), term[1]);
+    }
+    return Arrays.asList(suggestions);
+  }
+
+  private static int lowerBound(String[] sorted, String key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle].compareTo(key) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static final class Region {
+
+    private final int[] termIds;
+    private final int[] popularity;
+
+    Region(int[] termIds, int[] popularity) {
+      this.termIds = termIds;
+      this.popularity = popularity;
+    }
+
+    int size() {
+      return termIds.length;
+    }
+
+    int indexOf(int termId) {
+      int index = Arrays.binarySearch(termIds, termId);
+      return index >= 0 ? index : -index - 1;
+    }
+  }
+
+  /**
+   * Collects terms per region. Each call to {@link #add} counts one restaurant, so callers add a
+   * term once per restaurant offering it.
+   */
+  public static class Builder {
+
+    // Lower cased text, a NUL, and the kind, so that sorting orders by text first.
+    private final Map<String, String> textsByTermKey = new HashMap<>();
+    private final Map<String, Map<String, Integer>> popularityByRegion = new HashMap<>();
+
+    public Builder add(String regionHash, Kind kind, String text) {
+      if (text == null || text.isEmpty()) {
+        return this;
+      }
+      String termKey = text.toLowerCase(Locale.ROOT) + '\0' + kind.ordinal();
+      textsByTermKey.putIfAbsent(termKey, text);
+      popularityByRegion.computeIfAbsent(regionHash, region -> new HashMap<>())
+          .merge(termKey, 1, Integer::sum);
+      return this;
+    }
+
+    public SuggestionIndex build() {
+      List<String> termKeys = new ArrayList<>(textsByTermKey.keySet());
+      Collections.sort(termKeys);
+
+      String[] keys = new String[termKeys.size()];
+      String[] texts = new String[termKeys.size()];
+      byte[] kinds = new byte[termKeys.size()];
+      Map<String, Integer> idsByTermKey = new HashMap<>(termKeys.size() * 4 / 3 + 1);
+      for (int id = 0; id < termKeys.size(); id++) {
+        String termKey = termKeys.get(id);
+        int separator = termKey.lastIndexOf('\0');
+        keys[id] = termKey.substring(0, separator);
+        String text = textsByTermKey.get(termKey);
+        texts[id] = text.equals(keys[id]) ? keys[id] : text;
+        kinds[id] = Byte.parseByte(termKey.substring(separator + 1));
+        idsByTermKey.put(termKey, id);
+      }
+
+      Map<String, Region> regions = new HashMap<>(popularityByRegion.size() * 4 / 3 + 1);
+      popularityByRegion.forEach((regionHash, popularityByTermKey) -> {
+        int[][] entries = new int[popularityByTermKey.size()][];
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : popularityByTermKey.entrySet()) {
+          entries[count++] = new int[] {idsByTermKey.get(entry.getKey()), entry.getValue()};
+        }
+        Arrays.sort(entries, (left, right) -> Integer.compare(left[0], right[0]));
+        int[] termIds = new int[count];
+        int[] popularity = new int[count];
+        for (int i = 0; i < count; i++) {
+          termIds[i] = entries[i][0];
+          popularity[i] = entries[i][1];
+        }
+        regions.put(regionHash, new Region(termIds, popularity));
+      });
+      return new SuggestionIndex(keys, texts, kinds, regions);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.Bulkhead;
+import com.crio.qeats.utils.SearchPatterns;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Item searches as single aggregation pipelines over the items collection, replacing the chain
+ * of items, menus and restaurants queries with one round trip.
+ * Matching items are joined to the menus serving them and, for full searches, to those
+ * restaurants, which are narrowed to the bounding box of the serving circle and projected to
+ * the fields the {@code Restaurant} DTO needs. {@code $geoNear} is not usable here as it must
+ * open a pipeline on the restaurants collection, so callers apply the exact distance and
+ * opening hours checks on the (few) restaurants returned.
+ */
+@Component
+public class ItemSearchAggregation {
+
+  private static final double KM_PER_DEGREE = 111.32;
+
+  private static final String[] RESTAURANT_FIELDS = {"restaurantId", "name", "city", "imageUrl",
+      "latitude", "longitude", "opensAt", "closesAt", "attributes"};
+
+  // Matches no item, for search strings without any word.
+  private static final Criteria NOTHING = Criteria.where("_id").exists(false);
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  @Qualifier("itemsBulkhead")
+  private Bulkhead itemsBulkhead;
+
+  /**
+   * Items whose name matches the search string exactly or contains any of its words, literally
+   * and ignoring case.
+   */
+  public static Criteria itemNameCriteria(String searchString) {
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    if (tokens.isEmpty()) {
+      return NOTHING;
+    }
+    return new Criteria().orOperator(
+        Criteria.where("name").regex(SearchPatterns.equalTo(searchString)),
+        Criteria.where("name").regex(SearchPatterns.containingAny(tokens)));
+  }
+
+  /**
+   * Items having an attribute containing every word of the search string, literally and
+   * ignoring case.
+   */
+  public static Criteria itemAttributesCriteria(String searchString) {
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    if (tokens.isEmpty()) {
+      return NOTHING;
+    }
+    return RestaurantRepositoryServiceImpl.everyTokenIn("attributes", tokens);
+  }
+
+  /**
+   * Restaurants serving a matching item and lying in the bounding box of the serving circle.
+   */
+  public List<RestaurantEntity> findRestaurantsServingItems(Criteria itemCriteria,
+      double latitude, double longitude, double servingRadiusInKms) {
+    List<AggregationOperation> operations = new ArrayList<>(menusServing(itemCriteria));
+    operations.add(Aggregation.lookup("restaurants", "_id", "restaurantId", "restaurant"));
+    operations.add(Aggregation.unwind("restaurant"));
+    operations.add(Aggregation.replaceRoot("restaurant"));
+    operations.add(Aggregation.match(boundingBox(latitude, longitude, servingRadiusInKms)));
+    operations.add(Aggregation.project(RESTAURANT_FIELDS));
+    return itemsBulkhead.call(() -> mongoTemplate.aggregate(
+        Aggregation.newAggregation(operations), "items", RestaurantEntity.class)
+        .getMappedResults());
+  }
+
+  /**
+   * Ids of the restaurants serving a matching item.
+   */
+  public List<String> findRestaurantIdsServingItems(Criteria itemCriteria) {
+    List<String> restaurantIds = new ArrayList<>();
+    for (Document group : itemsBulkhead.call(() -> mongoTemplate.aggregate(
+        Aggregation.newAggregation(menusServing(itemCriteria)), "items", Document.class)
+        .getMappedResults())) {
+      restaurantIds.add(group.getString("_id"));
+    }
+    return restaurantIds;
+  }
+
+  // Matching items, joined to their menus and grouped into one document per restaurantId.
+  private static List<AggregationOperation> menusServing(Criteria itemCriteria) {
+    return Arrays.asList(
+        Aggregation.match(itemCriteria),
+        Aggregation.project("itemId"),
+        Aggregation.lookup("menus", "itemId", "items.itemId", "menu"),
+        Aggregation.unwind("menu"),
+        Aggregation.group("menu.restaurantId"));
+  }
+
+  /**
+   * Latitude/longitude box containing the serving circle. The longitude bound is dropped when
+   * the box would wrap around the antimeridian or a pole.
+   */
+  static Criteria boundingBox(double latitude, double longitude, double servingRadiusInKms) {
+    double latitudeDelta = servingRadiusInKms / KM_PER_DEGREE;
+    Criteria criteria = Criteria.where("latitude")
+        .gte(latitude - latitudeDelta).lte(latitude + latitudeDelta);
+
+    double widestCos = Math.cos(Math.toRadians(Math.min(90.0,
+        Math.abs(latitude) + latitudeDelta)));
+    if (widestCos > 0) {
+      double longitudeDelta = servingRadiusInKms / (KM_PER_DEGREE * widestCos);
+      if (longitude - longitudeDelta >= -180.0 && longitude + longitudeDelta <= 180.0) {
+        criteria = criteria.and("longitude")
+            .gte(longitude - longitudeDelta).lte(longitude + longitudeDelta);
+      }
+    }
+    return criteria;
+  }
+}
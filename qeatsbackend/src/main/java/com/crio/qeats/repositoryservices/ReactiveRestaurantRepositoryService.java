@@ -0,0 +1,138 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.SearchPatterns;
+import java.time.LocalTime;
+import java.util.List;
+import javax.inject.Provider;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link RestaurantRepositoryService} on the reactive Mongo driver.
+ * Every method returns a cold {@link Flux} streaming restaurants that are open and within the
+ * serving radius: nothing is queried until it is subscribed, Mongo cursors are read as fast as
+ * the subscriber requests, and cancelling the subscription closes them.
+ *
+ * <p>Item searches run the items, menus and restaurants queries as a pipeline, in batches of
+ * {@link #BATCH_SIZE} ids, so the restaurants of the first matching items stream out before the
+ * last items are read. Lookups go to Mongo every time: the Redis caches of the blocking engines
+ * are read through Jedis, which would block the event loop.
+ */
+@Service
+public class ReactiveRestaurantRepositoryService {
+
+  static final int BATCH_SIZE = 256;
+
+  @Autowired
+  private ReactiveMongoTemplate reactiveMongoTemplate;
+
+  @Autowired
+  private Provider<ModelMapper> modelMapperProvider;
+
+  /**
+   * Open restaurants within the serving radius.
+   */
+  public Flux<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    return findCloseByAndOpen(new Query(), latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  /**
+   * Restaurants whose name contains the search string, literally and ignoring case.
+   */
+  public Flux<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    String query = SearchPatterns.normalize(searchString);
+    if (query.isEmpty()) {
+      return Flux.empty();
+    }
+    return findCloseByAndOpen(
+        new Query(Criteria.where("name").regex(SearchPatterns.containing(query))),
+        latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  /**
+   * Restaurants with a cuisine containing every word of the search string.
+   */
+  public Flux<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    if (tokens.isEmpty()) {
+      return Flux.empty();
+    }
+    return findCloseByAndOpen(
+        new Query(RestaurantRepositoryServiceImpl.everyTokenIn("attributes", tokens)),
+        latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  /**
+   * Restaurants serving an item whose name matches the search string exactly or contains any of
+   * its words.
+   */
+  public Flux<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return findRestaurantsServingItems(ItemSearchAggregation.itemNameCriteria(searchString),
+        latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  /**
+   * Restaurants serving an item with an attribute containing every word of the search string.
+   */
+  public Flux<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return findRestaurantsServingItems(
+        ItemSearchAggregation.itemAttributesCriteria(searchString),
+        latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  private Flux<Restaurant> findRestaurantsServingItems(Criteria itemCriteria, Double latitude,
+      Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    Query itemQuery = new Query(itemCriteria);
+    itemQuery.fields().include("itemId");
+    return reactiveMongoTemplate.find(itemQuery, ItemEntity.class)
+        .map(ItemEntity::getItemId)
+        .buffer(BATCH_SIZE)
+        .concatMap(itemIds -> {
+          Query menuQuery = new Query(Criteria.where("items.itemId").in(itemIds));
+          menuQuery.fields().include("restaurantId");
+          return reactiveMongoTemplate.find(menuQuery, MenuEntity.class);
+        })
+        .map(MenuEntity::getRestaurantId)
+        .distinct()
+        .buffer(BATCH_SIZE)
+        .concatMap(restaurantIds -> findCloseByAndOpen(
+            new Query(Criteria.where("restaurantId").in(restaurantIds)),
+            latitude, longitude, currentTime, servingRadiusInKms));
+  }
+
+  // Narrows the query to the bounding box of the serving circle, then checks the exact distance
+  // and the opening hours of each restaurant read.
+  private Flux<Restaurant> findCloseByAndOpen(Query query, Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    query.addCriteria(ItemSearchAggregation.boundingBox(latitude, longitude,
+        servingRadiusInKms));
+    ModelMapper modelMapper = modelMapperProvider.get();
+    return reactiveMongoTemplate.find(query, RestaurantEntity.class)
+        .filter(restaurantEntity -> RestaurantRepositoryServiceImpl.isOpenNow(currentTime,
+            restaurantEntity)
+            && GeoUtils.findDistanceInKm(latitude, longitude, restaurantEntity.getLatitude(),
+                restaurantEntity.getLongitude()) < servingRadiusInKms)
+        .map(restaurantEntity -> modelMapper.map(restaurantEntity, Restaurant.class));
+  }
+}
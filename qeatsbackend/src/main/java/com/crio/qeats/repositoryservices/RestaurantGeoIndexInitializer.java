@@ -0,0 +1,127 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.Arrays;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepares the restaurants collection for the {@code mongo-geo} repository engine.
+ *   - Backfills the GeoJSON {@code location} field from {@code latitude}/{@code longitude} for
+ *     every document that does not have it yet.
+ *   - Ensures the {@code 2dsphere} index on {@code location}.
+ * Both steps are idempotent and run once the application is ready.
+ *
+ * <p>Restaurants saved through Spring Data get {@code location} set from their coordinates on
+ * every save. Documents written some other way, by imports or by instances on another engine,
+ * are picked up by the backfill, which reruns every
+ * {@code qeats.geo.backfill-interval-millis}.
+ */
+@Component
+@ConditionalOnProperty(name = "qeats.repository.engine", havingValue = "mongo-geo")
+@Log4j2
+public class RestaurantGeoIndexInitializer
+    extends AbstractMongoEventListener<RestaurantEntity> {
+
+  static final String RESTAURANTS_COLLECTION = "restaurants";
+  static final String LOCATION_FIELD = "location";
+
+  private static final int BATCH_SIZE = 1000;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    long migrated = backfillLocations();
+    mongoTemplate.indexOps(RESTAURANTS_COLLECTION).ensureIndex(
+        new GeospatialIndex(LOCATION_FIELD).typed(GeoSpatialIndexType.GEO_2DSPHERE));
+    log.info("2dsphere index on {}.{} is ready, backfilled {} restaurants",
+        RESTAURANTS_COLLECTION, LOCATION_FIELD, migrated);
+  }
+
+  @Scheduled(initialDelayString = "${qeats.geo.backfill-interval-millis:300000}",
+      fixedDelayString = "${qeats.geo.backfill-interval-millis:300000}")
+  public void backfillPeriodically() {
+    long migrated = backfillLocations();
+    if (migrated > 0) {
+      log.info("Backfilled {} restaurants written without a location", migrated);
+    }
+  }
+
+  /**
+   * Keeps {@code location} in step with the coordinates of every restaurant saved.
+   */
+  @Override
+  public void onBeforeConvert(BeforeConvertEvent<RestaurantEntity> event) {
+    RestaurantEntity restaurantEntity = event.getSource();
+    if (restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null) {
+      restaurantEntity.setLocation(new GeoJsonPoint(restaurantEntity.getLongitude(),
+          restaurantEntity.getLatitude()));
+    }
+  }
+
+  /**
+   * Sets {@code location} on every restaurant missing it, in unordered bulk batches.
+   * @return number of restaurants updated
+   */
+  long backfillLocations() {
+    Query missingLocation = new Query(Criteria.where(LOCATION_FIELD).exists(false)
+        .and("latitude").exists(true)
+        .and("longitude").exists(true));
+    missingLocation.fields().include("_id").include("latitude").include("longitude");
+
+    long migrated = 0;
+    int pending = 0;
+    BulkOperations bulkOperations = newBulkOperations();
+    try (CloseableIterator<Document> documents =
+             mongoTemplate.stream(missingLocation, Document.class, RESTAURANTS_COLLECTION)) {
+      while (documents.hasNext()) {
+        Document document = documents.next();
+        Number latitude = (Number) document.get("latitude");
+        Number longitude = (Number) document.get("longitude");
+        Document point = new Document("type", "Point")
+            .append("coordinates", Arrays.asList(longitude.doubleValue(), latitude.doubleValue()));
+
+        bulkOperations.updateOne(new Query(Criteria.where("_id").is(document.get("_id"))),
+            new Update().set(LOCATION_FIELD, point));
+        if (++pending == BATCH_SIZE) {
+          migrated += bulkOperations.execute().getModifiedCount();
+          bulkOperations = newBulkOperations();
+          pending = 0;
+        }
+      }
+    }
+    if (pending > 0) {
+      migrated += bulkOperations.execute().getModifiedCount();
+    }
+    return migrated;
+  }
+
+  private BulkOperations newBulkOperations() {
+    return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RESTAURANTS_COLLECTION);
+  }
+}
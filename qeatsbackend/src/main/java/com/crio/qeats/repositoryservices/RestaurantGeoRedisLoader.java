@@ -0,0 +1,191 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.GeoCoordinate;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+/**
+ * Copies the restaurants collection into Redis for the {@code redis-geo} engine.
+ *   - {@value #GEO_KEY} is a GEO sorted set of restaurant ids.
+ *   - {@value #RESTAURANT_KEY_PREFIX}{restaurantId} is a hash with the restaurant fields.
+ * The copy is made in the background once the application is up, then again every
+ * {@code qeats.geo.redis-reload-interval-millis}. The sorted set is written under a staging key
+ * and renamed into place, so readers never see a partially loaded set; hashes of restaurants
+ * that were in the previous set and are gone from Mongo are deleted after the swap.
+ * Until the first copy is in place {@link #isLoaded()} is false, and callers read Mongo instead.
+ */
+@Component
+@Log4j2
+public class RestaurantGeoRedisLoader {
+
+  public static final String GEO_KEY = "restaurants:geo";
+  public static final String RESTAURANT_KEY_PREFIX = "restaurant:";
+
+  static final String REDIS_GEO_ENGINE = "redis-geo";
+
+  private static final String STAGING_GEO_KEY = GEO_KEY + ":staging";
+  private static final int BATCH_SIZE = 1000;
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Value("${qeats.repository.engine:mongo}")
+  private String engine;
+
+  private volatile boolean loaded;
+
+  // Loads share the staging key, so they must not overlap. Held across Mongo and Redis round
+  // trips, so not a monitor, which would pin virtual threads.
+  private final ReentrantLock lock = new ReentrantLock();
+
+  @PostConstruct
+  public void registerFlushListener() {
+    redisConfiguration.addFlushListener(() -> loaded = false);
+  }
+
+  /**
+   * Whether the GEO set and hashes have been copied into Redis.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Copies the restaurants into Redis when the {@code redis-geo} engine is in use. A failed
+   * copy leaves the previous one in place, to be replaced by the next run.
+   */
+  @Scheduled(initialDelay = 0,
+      fixedDelayString = "${qeats.geo.redis-reload-interval-millis:300000}")
+  public void reload() {
+    if (!REDIS_GEO_ENGINE.equals(engine)) {
+      return;
+    }
+    try {
+      load();
+    } catch (RuntimeException e) {
+      log.error("Failed to load restaurants into {}, keeping the previous copy", GEO_KEY, e);
+    }
+  }
+
+  /**
+   * (Re)loads every restaurant from Mongo into Redis.
+   * @return number of restaurants loaded
+   */
+  public int load() {
+    lock.lock();
+    try {
+      List<RestaurantEntity> restaurantEntities = restaurantRepository.findAll();
+      try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+        Set<String> removedIds = new HashSet<>(jedis.zrange(GEO_KEY, 0, -1));
+        jedis.del(STAGING_GEO_KEY);
+
+        Pipeline pipeline = jedis.pipelined();
+        Map<String, GeoCoordinate> coordinates = new HashMap<>();
+        for (RestaurantEntity restaurantEntity : restaurantEntities) {
+          removedIds.remove(restaurantEntity.getRestaurantId());
+          coordinates.put(restaurantEntity.getRestaurantId(),
+              new GeoCoordinate(restaurantEntity.getLongitude(), restaurantEntity.getLatitude()));
+          pipeline.hmset(RESTAURANT_KEY_PREFIX + restaurantEntity.getRestaurantId(),
+              toHash(restaurantEntity));
+
+          if (coordinates.size() == BATCH_SIZE) {
+            pipeline.geoadd(STAGING_GEO_KEY, coordinates);
+            pipeline.sync();
+            coordinates = new HashMap<>();
+          }
+        }
+        if (!coordinates.isEmpty()) {
+          pipeline.geoadd(STAGING_GEO_KEY, coordinates);
+        }
+        pipeline.sync();
+
+        if (restaurantEntities.isEmpty()) {
+          jedis.del(GEO_KEY);
+        } else {
+          jedis.rename(STAGING_GEO_KEY, GEO_KEY);
+        }
+        if (!removedIds.isEmpty()) {
+          jedis.del(removedIds.stream().map(restaurantId -> RESTAURANT_KEY_PREFIX + restaurantId)
+              .toArray(String[]::new));
+        }
+      }
+      loaded = true;
+      log.info("Loaded {} restaurants into {}", restaurantEntities.size(), GEO_KEY);
+      return restaurantEntities.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  static Map<String, String> toHash(RestaurantEntity restaurantEntity) {
+    Map<String, String> hash = new HashMap<>();
+    hash.put("restaurantId", restaurantEntity.getRestaurantId());
+    hash.put("name", restaurantEntity.getName());
+    hash.put("city", restaurantEntity.getCity());
+    hash.put("imageUrl", restaurantEntity.getImageUrl());
+    hash.put("latitude", String.valueOf(restaurantEntity.getLatitude()));
+    hash.put("longitude", String.valueOf(restaurantEntity.getLongitude()));
+    hash.put("opensAt", restaurantEntity.getOpensAt());
+    hash.put("closesAt", restaurantEntity.getClosesAt());
+    try {
+      hash.put("attributes", objectMapper.writeValueAsString(restaurantEntity.getAttributes()));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+    // Redis rejects null hash values.
+    hash.values().removeIf(value -> value == null);
+    return hash;
+  }
+
+  static Restaurant fromHash(Map<String, String> hash) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(hash.get("restaurantId"));
+    restaurant.setName(hash.get("name"));
+    restaurant.setCity(hash.get("city"));
+    restaurant.setImageUrl(hash.get("imageUrl"));
+    restaurant.setLatitude(Double.parseDouble(hash.get("latitude")));
+    restaurant.setLongitude(Double.parseDouble(hash.get("longitude")));
+    restaurant.setOpensAt(hash.get("opensAt"));
+    restaurant.setClosesAt(hash.get("closesAt"));
+    if (hash.containsKey("attributes")) {
+      try {
+        restaurant.setAttributes(objectMapper.readValue(hash.get("attributes"),
+            new TypeReference<List<String>>() {}));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return restaurant;
+  }
+}
@@ -9,8 +9,6 @@ package com.crio.qeats.repositoryservices;
 import com.crio.qeats.dto.Restaurant;
 import java.time.LocalTime;
 import java.util.List;
-import java.util.concurrent.Future;
-import org.springframework.scheduling.annotation.Async;
 
 public interface RestaurantRepositoryService {
 
@@ -64,23 +62,4 @@ public interface RestaurantRepositoryService {
    */
   List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms);
-
-
-      @Async
-      Future<List<Restaurant>> findRestaurantsByNameAsync(Double latitude, Double longitude,
-          String searchString, LocalTime currentTime, Double servingRadiusInKms);
-    
-      @Async
-      Future<List<Restaurant>> findRestaurantsByAttributesAsync(Double latitude, Double longitude,
-          String searchString, LocalTime currentTime, Double servingRadiusInKms);
-    
-      @Async
-      Future<List<Restaurant>> findRestaurantsByItemNameAsync(Double latitude, Double longitude,
-          String searchString, LocalTime currentTime, Double servingRadiusInKms);
-      
-      @Async
-      Future<List<Restaurant>> findRestaurantsByItemAttributesAsync(Double latitude, Double longitude,
-          String searchString, LocalTime currentTime, Double servingRadiusInKms);
 }
-
-
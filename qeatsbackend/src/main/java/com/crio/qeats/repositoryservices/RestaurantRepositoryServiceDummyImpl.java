@@ -9,9 +9,7 @@ import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 
@@ -79,31 +77,4 @@ public class RestaurantRepositoryServiceDummyImpl implements RestaurantRepositor
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
     return null;
   }
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByNameAsync(Double latitude, Double longitude,
-      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    // TODO Auto-generated method stub
-    return null;
-  }
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByAttributesAsync(Double latitude,
-      Double longitude, String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    // TODO Auto-generated method stub
-    return null;
-  }
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByItemNameAsync(Double latitude, Double longitude,
-      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    // TODO Auto-generated method stub
-    return null;
-  }
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByItemAttributesAsync(Double latitude,
-      Double longitude, String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    // TODO Auto-generated method stub
-    return null;
-  }
-
-
 }
-
@@ -6,54 +6,52 @@
 
 package com.crio.qeats.repositoryservices;
 
-import ch.hsr.geohash.GeoHash;
-import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.cache.RestaurantCellCache;
 import com.crio.qeats.dto.Restaurant;
-import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.indexes.ItemCatalog;
 import com.crio.qeats.models.ItemEntity;
 import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.ItemRepository;
 import com.crio.qeats.repositories.MenuRepository;
 import com.crio.qeats.repositories.RestaurantRepository;
-import com.crio.qeats.utils.GeoLocation;
+import com.crio.qeats.utils.Bulkhead;
 import com.crio.qeats.utils.GeoUtils;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.IOException;
+import com.crio.qeats.utils.OpeningHours;
+import com.crio.qeats.utils.SearchPatterns;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Future;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.inject.Provider;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.context.annotation.Primary;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
-import redis.clients.jedis.Jedis;
 
 
 @Service
-@Primary
 public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryService {
 
+  private static final String REVERSE_INDEX_ITEM_LOOKUP = "reverse-index";
+  private static final String AGGREGATION_ITEM_LOOKUP = "aggregation";
+
   @Autowired
   private RestaurantRepository restaurantRepository;
 
   @Autowired
-  private RedisConfiguration redisConfiguration;
+  private RestaurantCellCache restaurantCellCache;
 
   @Autowired
   private MongoTemplate mongoTemplate;
@@ -67,11 +65,33 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   @Autowired
   private MenuRepository menuRepository;
 
-  private boolean isOpenNow(LocalTime time, RestaurantEntity res) {
-    LocalTime openingTime = LocalTime.parse(res.getOpensAt());
-    LocalTime closingTime = LocalTime.parse(res.getClosesAt());
+  @Autowired
+  private ItemCatalog itemCatalog;
+
+  @Autowired
+  private ItemSearchAggregation itemSearchAggregation;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  @Qualifier("restaurantsBulkhead")
+  private Bulkhead restaurantsBulkhead;
+
+  @Autowired
+  @Qualifier("itemsBulkhead")
+  private Bulkhead itemsBulkhead;
+
+  // How item searches find restaurants: query-chain | reverse-index | aggregation
+  @Value("${qeats.search.item-lookup:reverse-index}")
+  private String itemLookup;
 
-    return time.isAfter(openingTime) && time.isBefore(closingTime);
+  static boolean isOpenNow(LocalTime time, RestaurantEntity res) {
+    return isOpenNow(time, res.getOpensAt(), res.getClosesAt());
+  }
+
+  static boolean isOpenNow(LocalTime time, String opensAt, String closesAt) {
+    return OpeningHours.isOpenAt(time, opensAt, closesAt);
   }
 
   // TODO: CRIO_TASK_MODULE_NOSQL
@@ -82,43 +102,42 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findAllRestaurantsCloseBy(Double latitude,
       Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
 
-    List<Restaurant> restaurants = new ArrayList<Restaurant>();
-    GeoHash geoHash = GeoHash.withCharacterPrecision(latitude, longitude, 7);
-    ObjectMapper objectMapper = new ObjectMapper();
-    Jedis jedis = redisConfiguration.getJedisPool().getResource();
-    String restaurantsString;
-
+    int precision = RestaurantCellCache.precisionFor(latitude, servingRadiusInKms);
+    List<String> cells = RestaurantCellCache.coveringCells(latitude, longitude, precision);
+    Map<String, List<Restaurant>> candidatesByCell = restaurantCellCache.getOrLoadCells(cells,
+        missingCells -> loadCells(missingCells, precision));
 
-    if (jedis.exists(geoHash.toBase32())) {
-      restaurantsString = jedis.get(geoHash.toBase32());
-      try {
-        restaurants = objectMapper.readValue(restaurantsString, 
-                      new TypeReference<List<Restaurant>>(){});
-        return restaurants;
-      } catch (Exception e) {
-        e.printStackTrace();
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (String cell : cells) {
+      for (Restaurant restaurant : candidatesByCell.get(cell)) {
+        if (isOpenNow(currentTime, restaurant.getOpensAt(), restaurant.getClosesAt())
+            && GeoUtils.findDistanceInKm(latitude, longitude,
+                restaurant.getLatitude(), restaurant.getLongitude()) < servingRadiusInKms) {
+          restaurants.add(restaurant);
+        }
       }
     }
-    
-    
-    // If restaurants don't exist in cache
+    return restaurants;
+  }
+
+  // Buckets every restaurant of the missing cells with a single scan of the collection.
+  private Map<String, List<Restaurant>> loadCells(Set<String> cells, int precision) {
+    Map<String, List<Restaurant>> restaurantsByCell = new HashMap<>();
+    for (String cell : cells) {
+      restaurantsByCell.put(cell, new ArrayList<>());
+    }
+
     ModelMapper modelMapper = modelMapperProvider.get();
-    List<RestaurantEntity> restaurantList = restaurantRepository.findAll();
-    for (RestaurantEntity restaurantEntity: restaurantList) {
-      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime, 
-          latitude, longitude, servingRadiusInKms)) {
-        Restaurant restaurant = modelMapper.map(restaurantEntity, Restaurant.class);
-        restaurants.add(restaurant);
+    for (RestaurantEntity restaurantEntity : restaurantsBulkhead.call(
+        restaurantRepository::findAll)) {
+      List<Restaurant> cellRestaurants = restaurantsByCell.get(RestaurantCellCache.cellOf(
+          restaurantEntity.getLatitude(), restaurantEntity.getLongitude(), precision));
+      if (cellRestaurants != null) {
+        cellRestaurants.add(modelMapper.map(restaurantEntity, Restaurant.class));
       }
     }
-    try {
-      restaurantsString = objectMapper.writeValueAsString(restaurants);
-      jedis.set(geoHash.toBase32(),restaurantsString);
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
-    return restaurants;
-      }
+    return restaurantsByCell;
+  }
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
   // Objective:
@@ -130,28 +149,34 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
         Set<String> restaurantIdSet = new HashSet<>();
         List<Restaurant> restaurants = new ArrayList<>();
     
-        Optional<List<RestaurantEntity>> optionalRestaurantsByName = 
-            restaurantRepository.findRestaurantsByName(searchString);
+        // The repository queries embed their argument in a regex, so pass the query literally.
+        String literalQuery = SearchPatterns.literal(SearchPatterns.normalize(searchString));
+        if (literalQuery.isEmpty()) {
+          return restaurants;
+        }
+
+        Optional<List<RestaurantEntity>> optionalRestaurantsByName = restaurantsBulkhead.call(
+            () -> restaurantRepository.findRestaurantsByName(literalQuery));
         if (optionalRestaurantsByName.isPresent()) {
           List<RestaurantEntity> restaurantEntities = optionalRestaurantsByName.get();
           for (RestaurantEntity restaurantEntity: restaurantEntities) {
             if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime, 
                 latitude, longitude, servingRadiusInKms)
-                && !restaurantIdSet.contains(restaurantEntity.getId())) {
+                && !restaurantIdSet.contains(restaurantEntity.getRestaurantId())) {
               restaurants.add(modelMapper.map(restaurantEntity, Restaurant.class));
               restaurantIdSet.add(restaurantEntity.getRestaurantId());
             }
           }
         }
         
-        Optional<List<RestaurantEntity>> optionalRestaurantsByExactName = 
-            restaurantRepository.findRestaurantsByNameExact(searchString);
+        Optional<List<RestaurantEntity>> optionalRestaurantsByExactName = restaurantsBulkhead
+            .call(() -> restaurantRepository.findRestaurantsByNameExact(literalQuery));
         if (optionalRestaurantsByExactName.isPresent()) {
           List<RestaurantEntity> restaurantEntities = optionalRestaurantsByExactName.get();
           for (RestaurantEntity restaurantEntity: restaurantEntities) {
             if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime, 
                 latitude, longitude, servingRadiusInKms)
-                && !restaurantIdSet.contains(restaurantEntity.getId())) {
+                && !restaurantIdSet.contains(restaurantEntity.getRestaurantId())) {
               restaurants.add(modelMapper.map(restaurantEntity, Restaurant.class));
               restaurantIdSet.add(restaurantEntity.getRestaurantId());
             }
@@ -169,15 +194,16 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
          
-    Query query = new Query();
-    for (String str: searchString.split(" ")) {
-      Pattern pattern = Pattern.compile(str, Pattern.CASE_INSENSITIVE);
-      query.addCriteria(Criteria.where("attributes").regex(pattern));
-    }
-    
     List<Restaurant> restaurants = new ArrayList<>();
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    if (tokens.isEmpty()) {
+      return restaurants;
+    }
+    Query query = new Query(everyTokenIn("attributes", tokens));
+
     ModelMapper modelMapper = modelMapperProvider.get();
-    List<RestaurantEntity> restaurantEntityList = mongoTemplate.find(query, RestaurantEntity.class);
+    List<RestaurantEntity> restaurantEntityList = restaurantsBulkhead.call(
+        () -> mongoTemplate.find(query, RestaurantEntity.class));
     for (RestaurantEntity restaurantEntity: restaurantEntityList) {
       if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime, 
           latitude, longitude, servingRadiusInKms)) {
@@ -194,41 +220,77 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findRestaurantsByItemName(
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return itemLookupTimer("name").record(() -> {
+      if (AGGREGATION_ITEM_LOOKUP.equals(itemLookup)) {
+        return toCloseByAndOpenRestaurants(itemSearchAggregation.findRestaurantsServingItems(
+            ItemSearchAggregation.itemNameCriteria(searchString), latitude, longitude,
+            servingRadiusInKms), currentTime, latitude, longitude, servingRadiusInKms);
+      }
+      return getRestaurantListServingItems(latitude, longitude, currentTime, servingRadiusInKms,
+          findRestaurantIdsByItemName(searchString));
+    });
+  }
 
-        String regex = String.join("|", Arrays.asList(searchString.split(" ")));
-        Optional<List<ItemEntity>> optionalExactItems
-            = itemRepository.findItemsByNameExact(searchString);
-        Optional<List<ItemEntity>> optionalInexactItems
-            = itemRepository.findItemsByNameInexact(regex);
-    
-        List<ItemEntity> itemEntityList = optionalExactItems.orElseGet(ArrayList::new);
-        List<ItemEntity> inexactItemEntityList = optionalInexactItems.orElseGet(ArrayList::new);
-        itemEntityList.addAll(inexactItemEntityList);
-    
-        return getRestaurantListServingItems(latitude, longitude, currentTime, servingRadiusInKms,
-            itemEntityList);
+  /**
+   * Ids of the restaurants serving an item matching the search string as in
+   * {@link #findItemsByName}, resolved as configured by {@code qeats.search.item-lookup}.
+   */
+  List<String> findRestaurantIdsByItemName(String searchString) {
+    if (REVERSE_INDEX_ITEM_LOOKUP.equals(itemLookup)) {
+      return itemCatalog.getIndex().findRestaurantIdsByItemName(searchString);
+    }
+    if (AGGREGATION_ITEM_LOOKUP.equals(itemLookup)) {
+      return itemSearchAggregation.findRestaurantIdsServingItems(
+          ItemSearchAggregation.itemNameCriteria(searchString));
+    }
+    return findRestaurantIdsServingItems(findItemsByName(searchString));
   }
 
-  private List<Restaurant> getRestaurantListServingItems(Double latitude, Double longitude,
-      LocalTime currentTime, Double servingRadiusInKms, List<ItemEntity> itemEntityList) {
+  /**
+   * Items whose name matches the search string exactly, followed by items matching any of its
+   * words.
+   */
+  List<ItemEntity> findItemsByName(String searchString) {
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    if (tokens.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Optional<List<ItemEntity>> optionalExactItems = itemsBulkhead.call(
+        () -> itemRepository.findItemsByNameExact(
+            SearchPatterns.literal(SearchPatterns.normalize(searchString))));
+    Optional<List<ItemEntity>> optionalInexactItems = itemsBulkhead.call(
+        () -> itemRepository.findItemsByNameInexact(SearchPatterns.anyOf(tokens)));
+
+    List<ItemEntity> itemEntityList = optionalExactItems.orElseGet(ArrayList::new);
+    List<ItemEntity> inexactItemEntityList = optionalInexactItems.orElseGet(ArrayList::new);
+    itemEntityList.addAll(inexactItemEntityList);
+    return itemEntityList;
+  }
 
+  /**
+   * Ids of the restaurants whose menu contains any of the given items.
+   */
+  List<String> findRestaurantIdsServingItems(List<ItemEntity> itemEntityList) {
     List<String> itemIdList = itemEntityList
         .stream()
         .map(ItemEntity::getItemId)
         .collect(Collectors.toList());
 
-    Optional<List<MenuEntity>> optionalMenuEntityList
-        = menuRepository.findMenusByItemsItemIdIn(itemIdList);
-    Optional<List<RestaurantEntity>> optionalRestaurantEntityList = Optional.empty();
+    return itemsBulkhead.call(() -> menuRepository.findMenusByItemsItemIdIn(itemIdList))
+        .map(menuEntityList -> menuEntityList
+            .stream()
+            .map(MenuEntity::getRestaurantId)
+            .collect(Collectors.toList()))
+        .orElseGet(ArrayList::new);
+  }
 
-    if (optionalMenuEntityList.isPresent()) {
-      List<MenuEntity> menuEntityList = optionalMenuEntityList.get();
-      List<String> restaurantIdList = menuEntityList
-          .stream()
-          .map(MenuEntity::getRestaurantId)
-          .collect(Collectors.toList());
-      optionalRestaurantEntityList = restaurantRepository
-          .findRestaurantsByRestaurantIdIn(restaurantIdList);
+  private List<Restaurant> getRestaurantListServingItems(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, List<String> restaurantIdList) {
+
+    Optional<List<RestaurantEntity>> optionalRestaurantEntityList = Optional.empty();
+    if (!restaurantIdList.isEmpty()) {
+      optionalRestaurantEntityList = restaurantsBulkhead.call(
+          () -> restaurantRepository.findRestaurantsByRestaurantIdIn(restaurantIdList));
     }
 
     List<Restaurant> restaurantList = new ArrayList<>();
@@ -261,24 +323,53 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   @Override
   public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-        List<Pattern> patterns = Arrays
-        .stream(searchString.split(" "))
-        .map(attr -> Pattern.compile(attr, Pattern.CASE_INSENSITIVE))
-        .collect(Collectors.toList());
-    Query query = new Query();
-    for (Pattern pattern : patterns) {
-      query.addCriteria(
-          Criteria.where("attributes").regex(pattern)
-      );
-    }
-
-    List<ItemEntity> itemEntityList = mongoTemplate.find(query, ItemEntity.class);
-    return getRestaurantListServingItems(latitude, longitude, currentTime, servingRadiusInKms,
-        itemEntityList);
+    return itemLookupTimer("attributes").record(() -> {
+      if (AGGREGATION_ITEM_LOOKUP.equals(itemLookup)) {
+        return toCloseByAndOpenRestaurants(itemSearchAggregation.findRestaurantsServingItems(
+            ItemSearchAggregation.itemAttributesCriteria(searchString), latitude, longitude,
+            servingRadiusInKms), currentTime, latitude, longitude, servingRadiusInKms);
+      }
+      return getRestaurantListServingItems(latitude, longitude, currentTime, servingRadiusInKms,
+          findRestaurantIdsByItemAttributes(searchString));
+    });
   }
 
+  /**
+   * Ids of the restaurants serving an item matching the search string as in
+   * {@link #findItemsByAttributes}, resolved as configured by {@code qeats.search.item-lookup}.
+   */
+  List<String> findRestaurantIdsByItemAttributes(String searchString) {
+    if (REVERSE_INDEX_ITEM_LOOKUP.equals(itemLookup)) {
+      return itemCatalog.getIndex().findRestaurantIdsByItemAttributes(searchString);
+    }
+    if (AGGREGATION_ITEM_LOOKUP.equals(itemLookup)) {
+      return itemSearchAggregation.findRestaurantIdsServingItems(
+          ItemSearchAggregation.itemAttributesCriteria(searchString));
+    }
+    return findRestaurantIdsServingItems(findItemsByAttributes(searchString));
+  }
 
+  /**
+   * Items having an attribute matching every word of the search string.
+   */
+  List<ItemEntity> findItemsByAttributes(String searchString) {
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    if (tokens.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return itemsBulkhead.call(() -> mongoTemplate.find(
+        new Query(everyTokenIn("attributes", tokens)), ItemEntity.class));
+  }
 
+  /**
+   * Documents with, for every token, a value of the array field containing it literally,
+   * ignoring case. A single criteria object cannot hold the same key twice, hence the $and.
+   */
+  static Criteria everyTokenIn(String field, List<String> tokens) {
+    return new Criteria().andOperator(tokens.stream()
+        .map(token -> Criteria.where(field).regex(SearchPatterns.containing(token)))
+        .toArray(Criteria[]::new));
+  }
 
 
   /**
@@ -297,40 +388,19 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   }
 
 
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByNameAsync(Double latitude, 
-      Double longitude, String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    List<Restaurant> restaurants = findRestaurantsByName(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-    return new AsyncResult<>(restaurants);
-  }
-
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByAttributesAsync(Double latitude, 
-      Double longitude, String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    List<Restaurant> restaurants = findRestaurantsByAttributes(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-    return new AsyncResult<>(restaurants);
-  }
-
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByItemNameAsync(Double latitude, 
-      Double longitude, String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    List<Restaurant> restaurants = findRestaurantsByItemName(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-    return new AsyncResult<>(restaurants);
+  private List<Restaurant> toCloseByAndOpenRestaurants(List<RestaurantEntity> restaurantEntities,
+      LocalTime currentTime, Double latitude, Double longitude, Double servingRadiusInKms) {
+    ModelMapper modelMapper = modelMapperProvider.get();
+    return restaurantEntities.stream()
+        .filter(restaurantEntity -> isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
+            latitude, longitude, servingRadiusInKms))
+        .map(restaurantEntity -> modelMapper.map(restaurantEntity, Restaurant.class))
+        .collect(Collectors.toList());
   }
 
-  @Override
-  public Future<List<Restaurant>> findRestaurantsByItemAttributesAsync(Double latitude, 
-      Double longitude, String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    List<Restaurant> restaurants = findRestaurantsByItemAttributes(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-    return new AsyncResult<>(restaurants);
+  // Times item searches per lookup mode, to compare the modes on a real data set.
+  private Timer itemLookupTimer(String source) {
+    return meterRegistry.timer("qeats.search.item-lookup", "mode", itemLookup,
+        "source", source);
   }
-
-
-
-
 }
-
@@ -0,0 +1,145 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.Bulkhead;
+import com.crio.qeats.utils.SearchPatterns;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Provider;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Pushes the serving radius filter down to Mongo.
+ * Every query adds a {@code $geoWithin}/{@code $centerSphere} criteria on the GeoJSON
+ * {@code location} field, so only restaurants inside the radius are read and deserialized.
+ * Requires the 2dsphere index and backfill done by {@link RestaurantGeoIndexInitializer}.
+ * Enable with {@code qeats.repository.engine=mongo-geo}.
+ */
+@Service
+public class RestaurantRepositoryServiceMongoGeoImpl implements RestaurantRepositoryService {
+
+  // Same earth radius as GeoUtils, so $centerSphere agrees with the Haversine distance.
+  private static final double EARTH_RADIUS_IN_KMS = 6371.0;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  @Qualifier("restaurantsBulkhead")
+  private Bulkhead restaurantsBulkhead;
+
+  @Autowired
+  private RestaurantRepositoryServiceImpl restaurantRepositoryServiceImpl;
+
+  @Autowired
+  private Provider<ModelMapper> modelMapperProvider;
+
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    Query query = new Query(withinRadius(latitude, longitude, servingRadiusInKms));
+    return toOpenRestaurants(findRestaurants(query), currentTime);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    Map<String, RestaurantEntity> restaurantsById = new LinkedHashMap<>();
+    String query = SearchPatterns.normalize(searchString);
+    if (query.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Query exactQuery = new Query(withinRadius(latitude, longitude, servingRadiusInKms)
+        .and("name").regex(SearchPatterns.equalTo(query)));
+    for (RestaurantEntity restaurantEntity : findRestaurants(exactQuery)) {
+      restaurantsById.putIfAbsent(restaurantEntity.getRestaurantId(), restaurantEntity);
+    }
+
+    Query inexactQuery = new Query(withinRadius(latitude, longitude, servingRadiusInKms)
+        .and("name").regex(SearchPatterns.containing(query)));
+    for (RestaurantEntity restaurantEntity : findRestaurants(inexactQuery)) {
+      restaurantsById.putIfAbsent(restaurantEntity.getRestaurantId(), restaurantEntity);
+    }
+
+    return toOpenRestaurants(new ArrayList<>(restaurantsById.values()), currentTime);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    if (tokens.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Query query = new Query(withinRadius(latitude, longitude, servingRadiusInKms)
+        .andOperator(RestaurantRepositoryServiceImpl.everyTokenIn("attributes", tokens)));
+    return toOpenRestaurants(findRestaurants(query), currentTime);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return findRestaurantsServingItems(latitude, longitude, currentTime, servingRadiusInKms,
+        restaurantRepositoryServiceImpl.findRestaurantIdsByItemName(searchString));
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return findRestaurantsServingItems(latitude, longitude, currentTime, servingRadiusInKms,
+        restaurantRepositoryServiceImpl.findRestaurantIdsByItemAttributes(searchString));
+  }
+
+  private List<Restaurant> findRestaurantsServingItems(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, List<String> restaurantIdList) {
+    if (restaurantIdList.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Query query = new Query(withinRadius(latitude, longitude, servingRadiusInKms)
+        .and("restaurantId").in(restaurantIdList));
+    return toOpenRestaurants(findRestaurants(query), currentTime);
+  }
+
+  private static Criteria withinRadius(Double latitude, Double longitude,
+      Double servingRadiusInKms) {
+    // A Circle without a metric is passed through as is, i.e. the radius is in radians.
+    return Criteria.where(RestaurantGeoIndexInitializer.LOCATION_FIELD).withinSphere(
+        new Circle(new Point(longitude, latitude), servingRadiusInKms / EARTH_RADIUS_IN_KMS));
+  }
+
+  private List<RestaurantEntity> findRestaurants(Query query) {
+    return restaurantsBulkhead.call(() -> mongoTemplate.find(query, RestaurantEntity.class));
+  }
+
+  private List<Restaurant> toOpenRestaurants(List<RestaurantEntity> restaurantEntities,
+      LocalTime currentTime) {
+    ModelMapper modelMapper = modelMapperProvider.get();
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      if (RestaurantRepositoryServiceImpl.isOpenNow(currentTime, restaurantEntity)) {
+        restaurants.add(modelMapper.map(restaurantEntity, Restaurant.class));
+      }
+    }
+    return restaurants;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.utils.Bulkhead;
+import com.crio.qeats.utils.GeoUtils;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.GeoRadiusResponse;
+import redis.clients.jedis.GeoUnit;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.geo.GeoRadiusParam;
+
+/**
+ * Answers nearby queries entirely from Redis: a GEORADIUS over the GEO set written by
+ * {@link RestaurantGeoRedisLoader}, followed by one pipelined round trip fetching the restaurant
+ * hashes. Until {@link RestaurantGeoRedisLoader} has copied the restaurants into Redis, nearby
+ * queries are answered by the Mongo backed {@link RestaurantRepositoryServiceImpl}.
+ * Search queries are delegated to the Mongo backed {@link RestaurantRepositoryServiceImpl}.
+ * Enable with {@code qeats.repository.engine=redis-geo}; needs Redis 3.2 or later.
+ */
+@Service
+public class RestaurantRepositoryServiceRedisGeoImpl implements RestaurantRepositoryService {
+
+  // Redis uses a slightly larger earth radius than GeoUtils; widen the GEORADIUS so it returns
+  // a superset and apply the exact Haversine cut in Java.
+  private static final double RADIUS_SLACK = 1.001;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Autowired
+  @Qualifier("redisBulkhead")
+  private Bulkhead redisBulkhead;
+
+  @Autowired
+  private RestaurantGeoRedisLoader restaurantGeoRedisLoader;
+
+  @Autowired
+  private RestaurantRepositoryServiceImpl restaurantRepositoryServiceImpl;
+
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    if (!restaurantGeoRedisLoader.isLoaded()) {
+      return restaurantRepositoryServiceImpl.findAllRestaurantsCloseBy(latitude, longitude,
+          currentTime, servingRadiusInKms);
+    }
+
+    List<Restaurant> restaurants = new ArrayList<>();
+    try (Bulkhead.Permit permit = redisBulkhead.acquire();
+        Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      List<GeoRadiusResponse> nearby = jedis.georadius(RestaurantGeoRedisLoader.GEO_KEY,
+          longitude, latitude, servingRadiusInKms * RADIUS_SLACK, GeoUnit.KM,
+          GeoRadiusParam.geoRadiusParam().withCoord().sortAscending());
+
+      Pipeline pipeline = jedis.pipelined();
+      List<Response<Map<String, String>>> hashes = new ArrayList<>();
+      for (GeoRadiusResponse response : nearby) {
+        if (GeoUtils.findDistanceInKm(latitude, longitude,
+            response.getCoordinate().getLatitude(), response.getCoordinate().getLongitude())
+            < servingRadiusInKms) {
+          hashes.add(pipeline.hgetAll(
+              RestaurantGeoRedisLoader.RESTAURANT_KEY_PREFIX + response.getMemberByString()));
+        }
+      }
+      pipeline.sync();
+
+      for (Response<Map<String, String>> hash : hashes) {
+        Map<String, String> fields = hash.get();
+        if (fields == null || fields.isEmpty()) {
+          continue;
+        }
+        Restaurant restaurant = RestaurantGeoRedisLoader.fromHash(fields);
+        if (RestaurantRepositoryServiceImpl.isOpenNow(currentTime, restaurant.getOpensAt(),
+            restaurant.getClosesAt())) {
+          restaurants.add(restaurant);
+        }
+      }
+    }
+    return restaurants;
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByName(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByAttributes(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByItemName(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByItemAttributes(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.indexes.ItemCatalog;
+import com.crio.qeats.indexes.OpenNowIndex;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.indexes.RestaurantNameIndex;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.SearchPatterns;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import javax.inject.Provider;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers nearby queries from the resident {@link RestaurantCatalog} spatial index, touching only
+ * the grid cells around the requested location, name searches from its trigram name index,
+ * attribute searches from its attribute bitmaps and item searches from the
+ * {@link ItemCatalog} reverse index, so that no request reaches Mongo.
+ * Enable with {@code qeats.repository.engine=spatial-index}.
+ */
+@Service
+public class RestaurantRepositoryServiceSpatialIndexImpl implements RestaurantRepositoryService {
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private ItemCatalog itemCatalog;
+
+  @Autowired
+  private Provider<ModelMapper> modelMapperProvider;
+
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    RestaurantCatalog.Snapshot snapshot = restaurantCatalog.getSnapshot();
+    int[] ordinals = snapshot.getSpatialIndex()
+        .findWithinRadius(latitude, longitude, servingRadiusInKms);
+
+    OpenNowIndex openNowIndex = snapshot.getOpenNowIndex();
+
+    ModelMapper modelMapper = modelMapperProvider.get();
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int ordinal : ordinals) {
+      if (openNowIndex.isOpen(ordinal, currentTime)) {
+        restaurants.add(modelMapper.map(snapshot.getRestaurant(ordinal), Restaurant.class));
+      }
+    }
+    return restaurants;
+  }
+
+  /**
+   * Restaurants whose name equals the search string, followed by those whose name contains it,
+   * both ignoring case.
+   */
+  @Override
+  public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    RestaurantCatalog.Snapshot snapshot = restaurantCatalog.getSnapshot();
+    RestaurantNameIndex nameIndex = snapshot.getNameIndex();
+    OpenNowIndex openNowIndex = snapshot.getOpenNowIndex();
+
+    BitSet seen = new BitSet(nameIndex.size());
+    ModelMapper modelMapper = modelMapperProvider.get();
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int[] ordinals : new int[][] {nameIndex.findExact(searchString),
+        nameIndex.findContaining(searchString)}) {
+      for (int ordinal : ordinals) {
+        if (seen.get(ordinal)) {
+          continue;
+        }
+        seen.set(ordinal);
+        RestaurantEntity restaurant = snapshot.getRestaurant(ordinal);
+        if (openNowIndex.isOpen(ordinal, currentTime)
+            && GeoUtils.findDistanceInKm(latitude, longitude, restaurant.getLatitude(),
+                restaurant.getLongitude()) < servingRadiusInKms) {
+          restaurants.add(modelMapper.map(restaurant, Restaurant.class));
+        }
+      }
+    }
+    return restaurants;
+  }
+
+  /**
+   * Restaurants having, for every word of the search string, an attribute containing it. The
+   * attribute and open-now bitmaps are intersected before any restaurant is looked at.
+   */
+  @Override
+  public List<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    RestaurantCatalog.Snapshot snapshot = restaurantCatalog.getSnapshot();
+    BitSet candidates = snapshot.getAttributeIndex()
+        .matchingAll(SearchPatterns.tokens(searchString));
+    candidates.and(snapshot.getOpenNowIndex().openAt(currentTime));
+
+    return toNearbyRestaurants(snapshot, candidates, latitude, longitude, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return findRestaurantsServing(
+        itemCatalog.getIndex().findRestaurantIdsByItemName(searchString),
+        latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return findRestaurantsServing(
+        itemCatalog.getIndex().findRestaurantIdsByItemAttributes(searchString),
+        latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  private List<Restaurant> findRestaurantsServing(List<String> restaurantIds, Double latitude,
+      Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    RestaurantCatalog.Snapshot snapshot = restaurantCatalog.getSnapshot();
+    BitSet candidates = new BitSet(snapshot.getRestaurants().size());
+    for (String restaurantId : restaurantIds) {
+      int ordinal = snapshot.getOrdinal(restaurantId);
+      if (ordinal >= 0) {
+        candidates.set(ordinal);
+      }
+    }
+    candidates.and(snapshot.getOpenNowIndex().openAt(currentTime));
+    return toNearbyRestaurants(snapshot, candidates, latitude, longitude, servingRadiusInKms);
+  }
+
+  // Materializes the candidates within the radius, in ordinal order.
+  private List<Restaurant> toNearbyRestaurants(RestaurantCatalog.Snapshot snapshot,
+      BitSet candidates, Double latitude, Double longitude, Double servingRadiusInKms) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    if (candidates.isEmpty()) {
+      return restaurants;
+    }
+    ModelMapper modelMapper = modelMapperProvider.get();
+    for (int ordinal : snapshot.getSpatialIndex()
+        .findWithinRadius(latitude, longitude, servingRadiusInKms)) {
+      if (candidates.get(ordinal)) {
+        restaurants.add(modelMapper.map(snapshot.getRestaurant(ordinal), Restaurant.class));
+      }
+    }
+    return restaurants;
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import java.time.LocalTime;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveRestaurantService {
+
+  /**
+   * Non-blocking counterpart of {@link RestaurantService#findAllRestaurantsCloseBy}.
+   * @param getRestaurantsRequest valid lat/long
+   * @param currentTime current time.
+   * @return GetRestaurantsResponse with the open restaurants within the serving radius.
+   */
+  Mono<GetRestaurantsResponse> findAllRestaurantsCloseBy(
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime);
+
+  /**
+   * Non-blocking counterpart of {@link RestaurantService#findRestaurantsBySearchQuery}.
+   * - The four sources are queried at the same time and merged as they emit, without ordering
+   *   between sources unless a limit or cursor asks for a ranked page.
+   * - Sources still running at the search deadline are cancelled; the response then holds the
+   *   restaurants found so far and is marked partial.
+   * @param getRestaurantsRequest valid lat/long and searchFor, optional limit and cursor
+   * @return GetRestaurantsResponse object containing a list of open restaurants or an
+   *     empty list if none fits the criteria.
+   */
+  Mono<GetRestaurantsResponse> findRestaurantsBySearchQuery(
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime);
+}
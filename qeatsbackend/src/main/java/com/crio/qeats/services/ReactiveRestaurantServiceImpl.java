@@ -0,0 +1,103 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.indexes.SpellingCatalog;
+import com.crio.qeats.repositoryservices.ReactiveRestaurantRepositoryService;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Log4j2
+public class ReactiveRestaurantServiceImpl implements ReactiveRestaurantService {
+
+  @Autowired
+  private ReactiveRestaurantRepositoryService reactiveRestaurantRepositoryService;
+
+  @Autowired
+  private SpellingCatalog spellingCatalog;
+
+  @Value("${qeats.search.deadline-millis:500}")
+  private long deadlineInMillis;
+
+  @Override
+  public Mono<GetRestaurantsResponse> findAllRestaurantsCloseBy(
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
+    return reactiveRestaurantRepositoryService.findAllRestaurantsCloseBy(
+        getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(), currentTime,
+        RestaurantServiceImpl.servingRadiusInKms(currentTime))
+        .collectList()
+        .map(GetRestaurantsResponse::new);
+  }
+
+  @Override
+  public Mono<GetRestaurantsResponse> findRestaurantsBySearchQuery(
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
+    if (getRestaurantsRequest.getSearchFor() == null
+        || getRestaurantsRequest.getSearchFor().isEmpty()) {
+      return Mono.just(new GetRestaurantsResponse(new ArrayList<>()));
+    }
+    Double servingRadiusInKms = RestaurantServiceImpl.servingRadiusInKms(currentTime);
+
+    return Mono.defer(() -> {
+      // Fuzzy searches are corrected against the spelling index built so far, never waiting for
+      // a build: until the first one completes on the task scheduler they go uncorrected.
+      String searchString = RestaurantServiceImpl.searchStringOf(getRestaurantsRequest,
+          spellingCatalog);
+      List<Flux<Restaurant>> sources = sources(getRestaurantsRequest.getLatitude(),
+          getRestaurantsRequest.getLongitude(), searchString, currentTime, servingRadiusInKms);
+      AtomicInteger completedSources = new AtomicInteger();
+      return Flux.merge(sources.stream()
+          .map(source -> source
+              .doOnComplete(completedSources::incrementAndGet)
+              .onErrorResume(e -> {
+                log.warn("Search source failed for {}", searchString, e);
+                return Flux.empty();
+              }))
+          .collect(Collectors.toList()))
+          .distinct(Restaurant::getRestaurantId)
+          // Completes at the deadline, cancelling the sources still running.
+          .take(Duration.ofMillis(deadlineInMillis))
+          .collectList()
+          .map(restaurants -> {
+            GetRestaurantsResponse response = RestaurantServiceImpl.toResponse(
+                getRestaurantsRequest, searchString, restaurants, servingRadiusInKms);
+            if (completedSources.get() < sources.size()) {
+              response.setPartial(true);
+            }
+            return response;
+          });
+    });
+  }
+
+  private List<Flux<Restaurant>> sources(Double latitude, Double longitude, String searchString,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    return Arrays.asList(
+        reactiveRestaurantRepositoryService.findRestaurantsByItemName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms),
+        reactiveRestaurantRepositoryService.findRestaurantsByName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms),
+        reactiveRestaurantRepositoryService.findRestaurantsByItemAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms),
+        reactiveRestaurantRepositoryService.findRestaurantsByAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms));
+  }
+}
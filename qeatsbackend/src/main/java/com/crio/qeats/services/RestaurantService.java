@@ -44,7 +44,10 @@ public interface RestaurantService {
    * - service radius is 3KMs.
    * - All other times, serving radius is 5KMs.
    * - If there are no restaurants, return empty list of restaurants.
-   * @param getRestaurantsRequest valid lat/long and searchFor
+   * - With a limit or cursor, return one page of the results ranked by these rules and by
+   *   distance, with the cursor of the next page.
+   * - Sources that miss the search deadline leave the response marked partial.
+   * @param getRestaurantsRequest valid lat/long and searchFor, optional limit and cursor
    * @return GetRestaurantsResponse object containing a list of open restaurants or an
    *     empty list if none fits the criteria.
    */
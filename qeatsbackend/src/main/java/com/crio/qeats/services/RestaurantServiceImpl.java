@@ -7,32 +7,57 @@
 
 package com.crio.qeats.services;
 
+import com.crio.qeats.cache.SearchResultCache;
+import com.crio.qeats.cache.SingleFlight;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.SearchPlan;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.indexes.SpellingCatalog;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 @Log4j2
 public class RestaurantServiceImpl implements RestaurantService {
 
-  private final Double peakHoursServingRadiusInKms = 3.0;
-  private final Double normalHoursServingRadiusInKms = 5.0;
+  private static final Double PEAK_HOURS_SERVING_RADIUS_IN_KMS = 3.0;
+  private static final Double NORMAL_HOURS_SERVING_RADIUS_IN_KMS = 5.0;
   @Autowired
   private RestaurantRepositoryService restaurantRepositoryService;
 
+  @Autowired
+  private SearchResultCache searchResultCache;
+
+  @Autowired
+  private SpellingCatalog spellingCatalog;
+
+  @Value("${qeats.search-cache.enabled:false}")
+  private boolean searchCacheEnabled;
+
+  @Autowired
+  private SearchPlanner searchPlanner;
+
+  @Value("${qeats.search.planner.enabled:false}")
+  private boolean searchPlannerEnabled;
+
+  @Autowired
+  private SearchFanOut searchFanOut;
+
+  // Identical searches running at the same time share a single fan-out to the repositories.
+  private final SingleFlight<String, List<Restaurant>> searchLoads = new SingleFlight<>();
+
+  private final SingleFlight<String, SearchFanOut.Result> parallelSearches = new SingleFlight<>();
+
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSAPI - Implement findAllRestaurantsCloseby.
   // Check RestaurantService.java file for the interface contract.
@@ -42,21 +67,24 @@ public class RestaurantServiceImpl implements RestaurantService {
     // - For peak hours: 8AM - 10AM, 1PM-2PM, 7PM-9PM
     double latitude = getRestaurantsRequest.getLatitude();
     double longitude = getRestaurantsRequest.getLongitude();
-    if (isPeakHour(currentTime)) {
-      return new GetRestaurantsResponse(restaurantRepositoryService.findAllRestaurantsCloseBy(
-          latitude, longitude, currentTime, peakHoursServingRadiusInKms));
-    }
-
     return new GetRestaurantsResponse(restaurantRepositoryService.findAllRestaurantsCloseBy(
-        latitude, longitude, currentTime, normalHoursServingRadiusInKms));
+        latitude, longitude, currentTime, servingRadiusInKms(currentTime)));
   }
 
-  public boolean isTimeWithinRange(LocalTime time, LocalTime startTime, LocalTime endTime) {
+  /**
+   * The serving radius at the given time, smaller during peak hours.
+   */
+  static Double servingRadiusInKms(LocalTime currentTime) {
+    return isPeakHour(currentTime)
+        ? PEAK_HOURS_SERVING_RADIUS_IN_KMS : NORMAL_HOURS_SERVING_RADIUS_IN_KMS;
+  }
+
+  public static boolean isTimeWithinRange(LocalTime time, LocalTime startTime, LocalTime endTime) {
     return !time.isBefore(startTime) && !time.isAfter(endTime);
   }
 
 
-  public boolean isPeakHour(LocalTime time){
+  public static boolean isPeakHour(LocalTime time){
     return isTimeWithinRange(time, LocalTime.of(7, 59, 59), 
     LocalTime.of(10, 00, 01)) 
       || isTimeWithinRange(time, LocalTime.of(12, 59, 59), 
@@ -79,32 +107,121 @@ public class RestaurantServiceImpl implements RestaurantService {
   @Override
   public GetRestaurantsResponse findRestaurantsBySearchQuery(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
-        Double servingRadiusInKms = isPeakHour(currentTime) ? peakHoursServingRadiusInKms : normalHoursServingRadiusInKms;
-        String searchString= getRestaurantsRequest.getSearchFor();
-        List<Restaurant> restaurants = new ArrayList<>();
-        HashSet<String> restaurantIDs = new HashSet<>();
-        List<List<Restaurant>> restaurantLists = new ArrayList<>();
+        Double servingRadiusInKms = servingRadiusInKms(currentTime);
         Double latitude = getRestaurantsRequest.getLatitude();
         Double longitude = getRestaurantsRequest.getLongitude();
-        if(searchString != null && !searchString.isEmpty()){
-          restaurantLists.add(restaurantRepositoryService.findRestaurantsByItemName(latitude, longitude, searchString, currentTime, servingRadiusInKms));
-          restaurantLists.add(restaurantRepositoryService.findRestaurantsByName(latitude, longitude, searchString, currentTime, servingRadiusInKms));
-          restaurantLists.add(restaurantRepositoryService.findRestaurantsByItemAttributes(latitude, longitude, searchString, currentTime, servingRadiusInKms));
-          restaurantLists.add(restaurantRepositoryService.findRestaurantsByAttributes(latitude, longitude, searchString, currentTime, servingRadiusInKms));
-        
-          restaurantLists.stream()
+        if (getRestaurantsRequest.getSearchFor() == null
+            || getRestaurantsRequest.getSearchFor().isEmpty()) {
+          return new GetRestaurantsResponse(new ArrayList<>());
+        }
+        String searchString = searchStringOf(getRestaurantsRequest, spellingCatalog);
+
+        Integer limit = getRestaurantsRequest.getLimit();
+        String cursor = getRestaurantsRequest.getCursor();
+        SearchPlan plan = getRestaurantsRequest.isExplain() && searchPlannerEnabled
+            ? new SearchPlan() : null;
+
+        List<Restaurant> restaurants;
+        if (plan != null) {
+          // Explained searches run on their own, so that the plan is the one actually executed.
+          restaurants = searchPlanner.search(latitude, longitude, searchString, currentTime,
+              servingRadiusInKms, limit, cursor, plan);
+        } else if (searchCacheEnabled) {
+          // The cache holds candidates for the whole cell at any time, which it narrows down to
+          // this caller; any page is then cut from the complete result.
+          restaurants = searchResultCache.getOrSearch("all", searchString, latitude, longitude,
+              servingRadiusInKms, currentTime, (query, cellLatitude, cellLongitude, radius) ->
+                  searchEverySource(cellLatitude, cellLongitude, query, null, radius));
+        } else if (searchPlannerEnabled && (limit != null || cursor != null)) {
+          // The planner may settle the page before running every source.
+          String variant = String.join(":", "page", String.valueOf(limit),
+              String.valueOf(cursor));
+          restaurants = searchLoads.execute(
+              searchKey(variant, searchString, getRestaurantsRequest, currentTime,
+                  servingRadiusInKms),
+              () -> searchPlanner.search(latitude, longitude, searchString, currentTime,
+                  servingRadiusInKms, limit, cursor, null));
+        } else {
+          return searchInParallel(getRestaurantsRequest, searchString, currentTime,
+              servingRadiusInKms);
+        }
+        GetRestaurantsResponse response = toResponse(getRestaurantsRequest, searchString,
+            restaurants, servingRadiusInKms);
+        response.setPlan(plan);
+        return response;
+  }
+
+  /**
+   * All the restaurants found, or the requested page of them once ranked when the request has a
+   * limit or a cursor.
+   */
+  static GetRestaurantsResponse toResponse(GetRestaurantsRequest getRestaurantsRequest,
+      String searchString, List<Restaurant> restaurants, Double servingRadiusInKms) {
+    if (getRestaurantsRequest.getLimit() == null && getRestaurantsRequest.getCursor() == null) {
+      return new GetRestaurantsResponse(new ArrayList<>(restaurants));
+    }
+    SearchResultRanking.Page page = SearchResultRanking.page(restaurants, searchString,
+        getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(),
+        servingRadiusInKms, getRestaurantsRequest.getLimit(), getRestaurantsRequest.getCursor());
+    GetRestaurantsResponse response = new GetRestaurantsResponse(page.getRestaurants());
+    response.setNextCursor(page.getNextCursor());
+    return response;
+  }
+
+  /**
+   * The search string of the request, with misspelt words corrected when it asks for fuzzy
+   * matching. Correcting once up front lets every search source, and the caches, work on the
+   * corrected string.
+   */
+  static String searchStringOf(GetRestaurantsRequest getRestaurantsRequest,
+      SpellingCatalog spellingCatalog) {
+    if (!getRestaurantsRequest.isFuzzy()) {
+      return getRestaurantsRequest.getSearchFor();
+    }
+    return spellingCatalog.correct(getRestaurantsRequest.getSearchFor());
+  }
+
+  /**
+   * Restaurants matching the search string through any source, running the sources one after
+   * the other without a deadline. For the search cache, which must only hold complete results.
+   */
+  private List<Restaurant> searchEverySource(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    List<List<Restaurant>> restaurantLists = new ArrayList<>();
+    restaurantLists.add(restaurantRepositoryService.findRestaurantsByItemName(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms));
+    restaurantLists.add(restaurantRepositoryService.findRestaurantsByName(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms));
+    restaurantLists.add(restaurantRepositoryService.findRestaurantsByItemAttributes(latitude,
+        longitude, searchString, currentTime, servingRadiusInKms));
+    restaurantLists.add(restaurantRepositoryService.findRestaurantsByAttributes(latitude,
+        longitude, searchString, currentTime, servingRadiusInKms));
+
+    List<Restaurant> restaurants = new ArrayList<>();
+    HashSet<String> restaurantIDs = new HashSet<>();
+    restaurantLists.stream()
         .flatMap(List::stream)
         .filter(restaurant -> !restaurantIDs.contains(restaurant.getRestaurantId()))
-        .forEach(restaurant-> {
+        .forEach(restaurant -> {
           restaurants.add(restaurant);
           restaurantIDs.add(restaurant.getRestaurantId());
         });
-        }
-        GetRestaurantsResponse response = new GetRestaurantsResponse(restaurants);
-        
-
+    return restaurants;
+  }
 
-     return response;
+  /**
+   * Key under which identical concurrent searches are coalesced. The time is truncated to the
+   * minute, so callers joining a running search share results computed for a time up to a
+   * minute apart from their own.
+   */
+  private static String searchKey(String variant, String searchString,
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime,
+      Double servingRadiusInKms) {
+    return String.join("|", variant, searchString,
+        String.valueOf(getRestaurantsRequest.getLatitude()),
+        String.valueOf(getRestaurantsRequest.getLongitude()),
+        String.valueOf(servingRadiusInKms),
+        currentTime.truncatedTo(ChronoUnit.MINUTES).toString());
   }
 
  
@@ -115,48 +232,34 @@ public class RestaurantServiceImpl implements RestaurantService {
   @Override
   public GetRestaurantsResponse findRestaurantsBySearchQueryMt(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
-        Double servingRadiusInKms = isPeakHour(currentTime) 
-        ? peakHoursServingRadiusInKms : normalHoursServingRadiusInKms;
+        Double servingRadiusInKms = servingRadiusInKms(currentTime);
     
-    String searchString = getRestaurantsRequest.getSearchFor();
-    List<Restaurant> restaurants;
-    if (!searchString.isEmpty()) {
-      Future<List<Restaurant>> futureRestaurantsByName = restaurantRepositoryService
-          .findRestaurantsByNameAsync(getRestaurantsRequest.getLatitude(), 
-          getRestaurantsRequest.getLongitude(), searchString, currentTime, servingRadiusInKms);
-      Future<List<Restaurant>> futureRestaurantsByAttributes = restaurantRepositoryService
-          .findRestaurantsByAttributesAsync(getRestaurantsRequest.getLatitude(), 
-          getRestaurantsRequest.getLongitude(), searchString, currentTime, servingRadiusInKms);
-
-      List<Restaurant> restaurantsByName;
-      List<Restaurant> restaurantsByAttributes;
-
-      try {
-        while (true) {
-          if (futureRestaurantsByName.isDone() && futureRestaurantsByAttributes.isDone()) {
-            restaurantsByName = futureRestaurantsByName.get();
-            restaurantsByAttributes = futureRestaurantsByAttributes.get();
-            break;
-          }
-        }
-      } catch (InterruptedException | ExecutionException e) {
-        e.printStackTrace();
-        return new GetRestaurantsResponse(new ArrayList<>());
-      }
-
-      Map<String,Restaurant> restaurantMap = new HashMap<>();
-      for (Restaurant r: restaurantsByName) {
-        restaurantMap.put(r.getRestaurantId(), r);
-      }
-      for (Restaurant r: restaurantsByAttributes) {
-        restaurantMap.put(r.getRestaurantId(), r);
-      }
-      restaurants = new ArrayList<>(restaurantMap.values());
-    } else {
-      restaurants = new ArrayList<>();
+    if (getRestaurantsRequest.getSearchFor().isEmpty()) {
+      return new GetRestaurantsResponse(new ArrayList<>());
     }
+    String searchString = searchStringOf(getRestaurantsRequest, spellingCatalog);
+    return searchInParallel(getRestaurantsRequest, searchString, currentTime,
+        servingRadiusInKms);
+  }
 
-    return new GetRestaurantsResponse(restaurants);
+  /**
+   * Runs the sources in parallel up to the search deadline, see {@link SearchFanOut}, and marks
+   * the response partial when some of them missed it.
+   */
+  private GetRestaurantsResponse searchInParallel(GetRestaurantsRequest getRestaurantsRequest,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    SearchFanOut.Result result = parallelSearches.execute(
+        searchKey("fan-out", searchString, getRestaurantsRequest, currentTime,
+            servingRadiusInKms),
+        () -> searchFanOut.search(getRestaurantsRequest.getLatitude(),
+            getRestaurantsRequest.getLongitude(), searchString, currentTime,
+            servingRadiusInKms));
+    GetRestaurantsResponse response = toResponse(getRestaurantsRequest, searchString,
+        result.getRestaurants(), servingRadiusInKms);
+    if (result.isPartial()) {
+      response.setPartial(true);
+    }
+    return response;
   }
 }
 
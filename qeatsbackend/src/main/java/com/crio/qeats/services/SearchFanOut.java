@@ -0,0 +1,198 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the four sources of {@link RestaurantRepositoryService} in parallel on the search
+ * executor and waits for them, without spinning, up to a per-request deadline. Whatever order
+ * the sources complete in, restaurants come back in the fixed source order of the sequential
+ * search, item name, restaurant name, item attribute and cuisine, each once. Sources still
+ * running at the deadline are cancelled and the restaurants of the others are returned, along
+ * with the sources that missed it; so do sources that failed or found the executor full.
+ *
+ * <p>Cancelling interrupts the thread running the source. A driver blocked on the network may
+ * only notice once its own socket timeout expires, so the deadline bounds the response time, not
+ * the time the executor threads stay busy.
+ */
+@Component
+@Log4j2
+public class SearchFanOut {
+
+  @FunctionalInterface
+  private interface Source {
+
+    List<Restaurant> find(RestaurantRepositoryService restaurantRepositoryService,
+        Double latitude, Double longitude, String searchString, LocalTime currentTime,
+        Double servingRadiusInKms);
+  }
+
+  private static final Map<String, Source> SOURCES = new LinkedHashMap<>();
+
+  static {
+    SOURCES.put("item-name", RestaurantRepositoryService::findRestaurantsByItemName);
+    SOURCES.put("restaurant-name", RestaurantRepositoryService::findRestaurantsByName);
+    SOURCES.put("item-attribute", RestaurantRepositoryService::findRestaurantsByItemAttributes);
+    SOURCES.put("cuisine", RestaurantRepositoryService::findRestaurantsByAttributes);
+  }
+
+  @Autowired
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @Autowired
+  @Qualifier("searchExecutor")
+  private ExecutorService searchExecutor;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${qeats.search.deadline-millis:500}")
+  private long deadlineInMillis;
+
+  @Data
+  @AllArgsConstructor
+  public static class Result {
+
+    private List<Restaurant> restaurants;
+
+    // Labels of the sources whose restaurants are missing from the result.
+    private List<String> missedSources;
+
+    public boolean isPartial() {
+      return !missedSources.isEmpty();
+    }
+  }
+
+  /**
+   * Restaurants matching the search string through any source that answered before the
+   * deadline.
+   */
+  public Result search(Double latitude, Double longitude, String searchString,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    Collector collector = new Collector();
+    Map<String, Future<?>> tasks = new LinkedHashMap<>();
+    List<CompletableFuture<Void>> completions = new ArrayList<>();
+    List<String> missedSources = new ArrayList<>();
+
+    for (Map.Entry<String, Source> source : SOURCES.entrySet()) {
+      CompletableFuture<Void> completion = new CompletableFuture<>();
+      try {
+        tasks.put(source.getKey(), searchExecutor.submit(() -> {
+          try {
+            collector.add(source.getKey(), source.getValue().find(restaurantRepositoryService,
+                latitude, longitude, searchString, currentTime, servingRadiusInKms));
+            completion.complete(null);
+          } catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+          }
+        }));
+        completions.add(completion);
+      } catch (RejectedExecutionException e) {
+        missed(missedSources, source.getKey(), "rejected");
+      }
+    }
+
+    try {
+      CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[0]))
+          .get(deadlineInMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      // Whatever did not complete normally is accounted for below.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    List<Restaurant> restaurants = collector.close();
+    int index = 0;
+    for (Map.Entry<String, Future<?>> task : tasks.entrySet()) {
+      CompletableFuture<Void> completion = completions.get(index++);
+      if (collector.hasAnswered(task.getKey())) {
+        continue;
+      }
+      if (!completion.isCompletedExceptionally()) {
+        // Still running, or completed after the collector closed.
+        task.getValue().cancel(true);
+        missed(missedSources, task.getKey(), "deadline");
+      } else {
+        log.warn("Search source {} failed for {}", task.getKey(), searchString,
+            failureOf(completion));
+        missed(missedSources, task.getKey(), "failed");
+      }
+    }
+    return new Result(restaurants, missedSources);
+  }
+
+  private void missed(List<String> missedSources, String source, String reason) {
+    missedSources.add(source);
+    meterRegistry.counter("qeats.search.fanout.missed", "source", source, "reason", reason)
+        .increment();
+  }
+
+  private static Throwable failureOf(CompletableFuture<Void> completion) {
+    try {
+      completion.join();
+      return null;
+    } catch (RuntimeException e) {
+      return e.getCause() != null ? e.getCause() : e;
+    }
+  }
+
+  /**
+   * Restaurants of one search by the source that found them. Once closed, late sources are
+   * ignored, so the result handed out no longer changes.
+   */
+  private static final class Collector {
+
+    private final Map<String, List<Restaurant>> restaurantsBySource = new HashMap<>();
+    private boolean closed;
+
+    synchronized void add(String source, List<Restaurant> restaurants) {
+      if (!closed) {
+        restaurantsBySource.put(source, restaurants);
+      }
+    }
+
+    synchronized boolean hasAnswered(String source) {
+      return restaurantsBySource.containsKey(source);
+    }
+
+    // The restaurants of the sources that answered, in source order, deduplicated by
+    // restaurantId.
+    synchronized List<Restaurant> close() {
+      closed = true;
+      Map<String, Restaurant> restaurantsById = new LinkedHashMap<>();
+      for (String source : SOURCES.keySet()) {
+        restaurantsBySource.getOrDefault(source, Collections.emptyList()).forEach(restaurant ->
+            restaurantsById.putIfAbsent(restaurant.getRestaurantId(), restaurant));
+      }
+      return new ArrayList<>(restaurantsById.values());
+    }
+  }
+}
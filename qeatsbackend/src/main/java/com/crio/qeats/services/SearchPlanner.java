@@ -0,0 +1,159 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.SearchPlan;
+import com.crio.qeats.indexes.ItemCatalog;
+import com.crio.qeats.indexes.ItemRestaurantIndex;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import com.crio.qeats.utils.SearchPatterns;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Plans and runs a search over the four sources of {@link RestaurantRepositoryService}.
+ * Before running anything, the planner counts the restaurants each source could match anywhere,
+ * using the in-memory catalogs: the name trigram index, the cuisine bitmaps and the item reverse
+ * index. For a page request the sources run most selective first, and the search stops as soon
+ * as the page is settled, see {@link SearchResultRanking#isPageSettled}; otherwise they run in
+ * the usual order, which fixes the order of the unranked results.
+ *
+ * <p>The counts only order the sources: every source runs unless the page is settled first,
+ * since a catalog may lag behind the restaurants written by other instances by up to the
+ * configured refresh interval. The planner only reads catalogs that are already loaded, never
+ * loading one for its own sake; sources without a count run first, the restaurant name among
+ * them being what lets a page settle.
+ */
+@Component
+@Log4j2
+public class SearchPlanner {
+
+  enum Source {
+    ITEM_NAME("item-name"),
+    RESTAURANT_NAME("restaurant-name"),
+    ITEM_ATTRIBUTE("item-attribute"),
+    CUISINE("cuisine");
+
+    private final String label;
+
+    Source(String label) {
+      this.label = label;
+    }
+  }
+
+  @Autowired
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private ItemCatalog itemCatalog;
+
+  /**
+   * Restaurants found by the sources, deduplicated in the order found.
+   * @param limit page size of a ranked page request, see {@link SearchResultRanking#page}
+   * @param cursor cursor of a ranked page request
+   * @param plan receives the executed plan when not null
+   */
+  public List<Restaurant> search(Double latitude, Double longitude, String searchString,
+      LocalTime currentTime, Double servingRadiusInKms, Integer limit, String cursor,
+      SearchPlan plan) {
+    boolean pageRequest = limit != null || cursor != null;
+    Map<Source, Integer> estimates = estimate(searchString);
+    List<Source> order = new ArrayList<>(estimates.keySet());
+    if (pageRequest) {
+      order.sort(Comparator.comparing(estimates::get,
+          Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    Map<String, Restaurant> restaurantsById = new LinkedHashMap<>();
+    boolean nameMatchesIncluded = false;
+    boolean stoppedEarly = false;
+    for (Source source : order) {
+      Integer estimate = estimates.get(source);
+      if (stoppedEarly) {
+        addStep(plan, source, estimate, "skipped: page full", null);
+        continue;
+      }
+
+      List<Restaurant> found = find(source, latitude, longitude, searchString, currentTime,
+          servingRadiusInKms);
+      found.forEach(restaurant ->
+          restaurantsById.putIfAbsent(restaurant.getRestaurantId(), restaurant));
+      nameMatchesIncluded |= source == Source.RESTAURANT_NAME;
+      addStep(plan, source, estimate, "ran", found.size());
+
+      stoppedEarly = pageRequest && SearchResultRanking.isPageSettled(
+          new ArrayList<>(restaurantsById.values()), searchString, latitude, longitude,
+          servingRadiusInKms, limit, cursor, nameMatchesIncluded);
+    }
+
+    if (plan != null) {
+      plan.setStoppedEarly(stoppedEarly);
+      log.debug("Search for {} ran {}", searchString, plan);
+    }
+    return new ArrayList<>(restaurantsById.values());
+  }
+
+  /**
+   * Number of restaurants anywhere each source would match, by source in the usual order; null
+   * for the sources whose catalog is not loaded.
+   */
+  Map<Source, Integer> estimate(String searchString) {
+    String query = SearchPatterns.normalize(searchString);
+    List<String> tokens = SearchPatterns.tokens(searchString);
+    RestaurantCatalog.Snapshot snapshot = restaurantCatalog.peekSnapshot();
+    ItemRestaurantIndex itemIndex = itemCatalog.peekIndex();
+
+    Map<Source, Integer> estimates = new EnumMap<>(Source.class);
+    estimates.put(Source.ITEM_NAME, itemIndex == null ? null
+        : itemIndex.findRestaurantIdsByItemName(query).size());
+    estimates.put(Source.RESTAURANT_NAME, snapshot == null ? null
+        : query.isEmpty() ? 0 : snapshot.getNameIndex().findContaining(query).length);
+    estimates.put(Source.ITEM_ATTRIBUTE, itemIndex == null ? null
+        : itemIndex.findRestaurantIdsByItemAttributes(query).size());
+    estimates.put(Source.CUISINE, snapshot == null ? null
+        : tokens.isEmpty() ? 0 : snapshot.getAttributeIndex().matchingAll(tokens).cardinality());
+    return estimates;
+  }
+
+  private List<Restaurant> find(Source source, Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    switch (source) {
+      case ITEM_NAME:
+        return restaurantRepositoryService.findRestaurantsByItemName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms);
+      case RESTAURANT_NAME:
+        return restaurantRepositoryService.findRestaurantsByName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms);
+      case ITEM_ATTRIBUTE:
+        return restaurantRepositoryService.findRestaurantsByItemAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms);
+      default:
+        return restaurantRepositoryService.findRestaurantsByAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms);
+    }
+  }
+
+  private static void addStep(SearchPlan plan, Source source, Integer estimate, String action,
+      Integer found) {
+    if (plan != null) {
+      plan.getSteps().add(new SearchPlan.Step(source.label, estimate, action, found));
+    }
+  }
+}
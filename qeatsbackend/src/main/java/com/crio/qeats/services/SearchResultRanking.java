@@ -0,0 +1,227 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exceptions.InvalidPageRequestException;
+import com.crio.qeats.utils.GeoUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Orders search results by relevance to the query and closeness to the user, and cuts them into
+ * pages. A page is the best {@code limit} results ranked after the cursor, selected with a heap
+ * of {@code limit + 1} entries, so the work beyond scoring and the payload grow with the page
+ * size rather than with the number of matches.
+ *
+ * <p>Results are ordered by descending score, then by restaurantId. The cursor is an opaque
+ * encoding of the score and restaurantId of the last result of a page; the next page is what
+ * ranks strictly after it, so it stays consistent while results before it come and go.
+ *
+ * <p>Paging is applied to the merged results, not pushed down into the search sources: the
+ * score mixes the name, cuisine and item relevance found by different sources with the
+ * distance, so no single source can tell which of its matches make the page. Each source still
+ * materializes every match within the serving radius, which bounds that work; the page bounds
+ * the ranking heap and the response. {@link SearchPlanner} cuts the source work where it can,
+ * by stopping once the page is settled.
+ */
+public class SearchResultRanking {
+
+  public static final int DEFAULT_LIMIT = 20;
+  public static final int MAX_LIMIT = 100;
+
+  private static final double RELEVANCE_WEIGHT = 0.7;
+  private static final double CLOSENESS_WEIGHT = 0.3;
+
+  // Relevance of a name containing some word of the search string but not all of it, the best
+  // a restaurant can get without its name containing the search string.
+  private static final double ANY_WORD_IN_NAME = 0.6;
+
+  private static final Comparator<Ranked> BEST_FIRST = Comparator
+      .comparingDouble((Ranked ranked) -> -ranked.score)
+      .thenComparing(ranked -> ranked.restaurant.getRestaurantId());
+
+  private SearchResultRanking() {
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class Page {
+
+    private List<Restaurant> restaurants;
+
+    // Null on the last page.
+    private String nextCursor;
+  }
+
+  /**
+   * Returns the page of the search results following the cursor.
+   * @param limit page size, {@link #DEFAULT_LIMIT} when null
+   * @param cursor nextCursor of the previous page, null for the first page
+   * @throws InvalidPageRequestException if the limit is out of range or the cursor is
+   *     malformed
+   */
+  public static Page page(List<Restaurant> restaurants, String searchString, double latitude,
+      double longitude, double servingRadiusInKms, Integer limit, String cursor) {
+    int pageSize = pageSize(limit);
+    Ranked after = cursor == null ? null : decodeCursor(cursor);
+
+    String query = normalize(searchString);
+    String[] words = query.split(" ");
+    // Worst of the best pageSize + 1 on top; the extra entry tells whether a next page exists.
+    PriorityQueue<Ranked> best = new PriorityQueue<>(pageSize + 1, BEST_FIRST.reversed());
+    for (Restaurant restaurant : restaurants) {
+      Ranked ranked = new Ranked(restaurant, score(restaurant, query, words, latitude,
+          longitude, servingRadiusInKms));
+      if (after != null && BEST_FIRST.compare(ranked, after) <= 0) {
+        continue;
+      }
+      if (best.size() <= pageSize) {
+        best.add(ranked);
+      } else if (BEST_FIRST.compare(ranked, best.peek()) < 0) {
+        best.poll();
+        best.add(ranked);
+      }
+    }
+
+    boolean hasMore = best.size() > pageSize;
+    if (hasMore) {
+      best.poll();
+    }
+    List<Ranked> page = new ArrayList<>(best);
+    page.sort(BEST_FIRST);
+    List<Restaurant> pageRestaurants = new ArrayList<>(page.size());
+    page.forEach(ranked -> pageRestaurants.add(ranked.restaurant));
+    return new Page(pageRestaurants,
+        hasMore ? encodeCursor(page.get(page.size() - 1)) : null);
+  }
+
+  /**
+   * Whether the page following the cursor is already decided by the given search results, that
+   * is whether more than a page of them rank after the cursor with a score above any restaurant
+   * missing from them could reach. That bound is only below the maximum once every restaurant
+   * whose name contains the search string is among the results.
+   * @param nameMatchesIncluded whether the results include all the name matches nearby
+   */
+  public static boolean isPageSettled(List<Restaurant> restaurants, String searchString,
+      double latitude, double longitude, double servingRadiusInKms, Integer limit,
+      String cursor, boolean nameMatchesIncluded) {
+    if (!nameMatchesIncluded) {
+      return false;
+    }
+    int pageSize = pageSize(limit);
+    Ranked after = cursor == null ? null : decodeCursor(cursor);
+    double bestMissingScore = RELEVANCE_WEIGHT * ANY_WORD_IN_NAME + CLOSENESS_WEIGHT;
+
+    String query = normalize(searchString);
+    String[] words = query.split(" ");
+    int settled = 0;
+    for (Restaurant restaurant : restaurants) {
+      Ranked ranked = new Ranked(restaurant, score(restaurant, query, words, latitude,
+          longitude, servingRadiusInKms));
+      if (ranked.score > bestMissingScore
+          && (after == null || BEST_FIRST.compare(ranked, after) > 0)
+          && ++settled > pageSize) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Weighted sum of the relevance of the restaurant to the query, from its name down to its
+   * cuisines and, below those, the items it serves, and of its closeness to the user.
+   */
+  static double score(Restaurant restaurant, String query, String[] words, double latitude,
+      double longitude, double servingRadiusInKms) {
+    double distanceInKm = GeoUtils.findDistanceInKm(latitude, longitude,
+        restaurant.getLatitude(), restaurant.getLongitude());
+    double closeness = Math.max(0.0, 1.0 - distanceInKm / servingRadiusInKms);
+    return RELEVANCE_WEIGHT * relevance(restaurant, query, words) + CLOSENESS_WEIGHT * closeness;
+  }
+
+  private static double relevance(Restaurant restaurant, String query, String[] words) {
+    String name = normalize(restaurant.getName());
+    if (name.equals(query)) {
+      return 1.0;
+    }
+    if (name.contains(query)) {
+      return 0.8;
+    }
+    if (containsAny(name, words)) {
+      return ANY_WORD_IN_NAME;
+    }
+    if (restaurant.getAttributes() != null) {
+      for (String attribute : restaurant.getAttributes()) {
+        if (attribute != null && containsAny(normalize(attribute), words)) {
+          return 0.4;
+        }
+      }
+    }
+    // Matched through the items it serves.
+    return 0.3;
+  }
+
+  private static int pageSize(Integer limit) {
+    int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+    if (pageSize < 1 || pageSize > MAX_LIMIT) {
+      throw new InvalidPageRequestException("limit must be between 1 and " + MAX_LIMIT);
+    }
+    return pageSize;
+  }
+
+  private static boolean containsAny(String text, String[] words) {
+    for (String word : words) {
+      if (!word.isEmpty() && text.contains(word)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String normalize(String text) {
+    return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  private static String encodeCursor(Ranked ranked) {
+    String value = Long.toHexString(Double.doubleToLongBits(ranked.score)) + ":"
+        + ranked.restaurant.getRestaurantId();
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Ranked decodeCursor(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = value.indexOf(':');
+      Restaurant restaurant = new Restaurant();
+      restaurant.setRestaurantId(value.substring(separator + 1));
+      return new Ranked(restaurant,
+          Double.longBitsToDouble(Long.parseUnsignedLong(value.substring(0, separator), 16)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new InvalidPageRequestException("Malformed cursor " + cursor);
+    }
+  }
+
+  private static final class Ranked {
+
+    private final Restaurant restaurant;
+    private final double score;
+
+    Ranked(Restaurant restaurant, double score) {
+      this.restaurant = restaurant;
+      this.score = score;
+    }
+  }
+}
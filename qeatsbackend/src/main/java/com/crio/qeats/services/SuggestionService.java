@@ -0,0 +1,23 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+
+public interface SuggestionService {
+
+  /**
+   * Get typeahead suggestions for a partially typed search.
+   * - Restaurant names, cuisines and item names starting with the prefix, ignoring case.
+   * - Only restaurants in the geohash region around the location count.
+   * - Ordered by popularity, the number of those restaurants each suggestion leads to.
+   * @param getSuggestionsRequest valid lat/long and prefix, and an optional limit
+   * @return GetSuggestionsResponse with at most limit suggestions, possibly none.
+   */
+  GetSuggestionsResponse findSuggestions(GetSuggestionsRequest getSuggestionsRequest);
+}
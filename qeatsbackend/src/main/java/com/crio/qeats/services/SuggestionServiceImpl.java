@@ -0,0 +1,48 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.indexes.SuggestionCatalog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SuggestionServiceImpl implements SuggestionService {
+
+  private static final int DEFAULT_LIMIT = 10;
+
+  @Autowired
+  private SuggestionCatalog suggestionCatalog;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Timer suggestTimer;
+
+  @PostConstruct
+  public void init() {
+    suggestTimer = Timer.builder("qeats.suggest")
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public GetSuggestionsResponse findSuggestions(GetSuggestionsRequest getSuggestionsRequest) {
+    int limit = getSuggestionsRequest.getLimit() == null
+        ? DEFAULT_LIMIT : getSuggestionsRequest.getLimit();
+    return suggestTimer.record(() -> new GetSuggestionsResponse(
+        suggestionCatalog.getIndex().suggest(
+            suggestionCatalog.regionsAround(getSuggestionsRequest.getLatitude(),
+                getSuggestionsRequest.getLongitude()),
+            getSuggestionsRequest.getPrefix(), limit)));
+  }
+}
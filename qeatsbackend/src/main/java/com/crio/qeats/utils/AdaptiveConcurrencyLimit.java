@@ -0,0 +1,197 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that follows latency, in the style of a gradient limiter. Requests beyond
+ * the limit are turned away at once. The limit is adjusted after every window of
+ * {@code windowSize} completed requests:
+ *   - the window's average latency is compared with a long-term average, the baseline;
+ *   - when latency is within {@link #TOLERANCE} times the baseline, the limit grows by about its
+ *     square root, probing for more throughput;
+ *   - as latency inflates past that, the limit shrinks in proportion, down to half per window;
+ *   - a request dropped downstream for overload cuts the limit by {@link #BACKOFF} at once.
+ * Windows in which the limit was never approached leave it as is: their latency says nothing
+ * about how many requests the node can hold. Changes are smoothed, and the limit stays within
+ * {@code minLimit} and {@code maxLimit}.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  static final double TOLERANCE = 1.5;
+  static final double BACKOFF = 0.9;
+  // Weight of a new window in the limit, and in the baseline latency.
+  static final double SMOOTHING = 0.2;
+  static final double BASELINE_SMOOTHING = 0.02;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int windowSize;
+  private final LongSupplier nanoClock;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+  private volatile int limit;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  // Guarded by lock.
+  private double estimatedLimit;
+  private double baselineInNanos;
+  private long windowLatencySumInNanos;
+  private int windowSamples;
+  private int windowMaxInFlight;
+
+  /**
+   * Handed to an admitted request; report how it ended exactly once.
+   */
+  public final class Listener {
+
+    private final long startInNanos;
+    private final int inFlightAtStart;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Listener(long startInNanos, int inFlightAtStart) {
+      this.startInNanos = startInNanos;
+      this.inFlightAtStart = inFlightAtStart;
+    }
+
+    /**
+     * The request was served: its latency counts towards the limit.
+     */
+    public void onSuccess() {
+      if (release()) {
+        sample(nanoClock.getAsLong() - startInNanos, inFlightAtStart);
+      }
+    }
+
+    /**
+     * The request was shed further down for overload: back off.
+     */
+    public void onDropped() {
+      if (release()) {
+        backOff();
+      }
+    }
+
+    /**
+     * The request ended in a way that says nothing about load, e.g. a bad request.
+     */
+    public void onIgnore() {
+      release();
+    }
+
+    private boolean release() {
+      if (released.compareAndSet(false, true)) {
+        inFlight.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int windowSize,
+      LongSupplier nanoClock) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || windowSize < 1) {
+      throw new IllegalArgumentException("Invalid concurrency limit bounds: " + minLimit + " <= "
+          + initialLimit + " <= " + maxLimit + ", window of " + windowSize);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.windowSize = windowSize;
+    this.nanoClock = nanoClock;
+    this.estimatedLimit = initialLimit;
+    this.limit = initialLimit;
+  }
+
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int windowSize) {
+    this(initialLimit, minLimit, maxLimit, windowSize, System::nanoTime);
+  }
+
+  /**
+   * Admits the request if fewer than the limit are in flight, empty otherwise.
+   */
+  public Optional<Listener> tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        rejected.incrementAndGet();
+        return Optional.empty();
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return Optional.of(new Listener(nanoClock.getAsLong(), current + 1));
+      }
+    }
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  private void sample(long latencyInNanos, int inFlightAtStart) {
+    lock.lock();
+    try {
+      windowLatencySumInNanos += latencyInNanos;
+      windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+      if (++windowSamples >= windowSize) {
+        update((double) windowLatencySumInNanos / windowSamples, windowMaxInFlight);
+        windowLatencySumInNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void update(double windowLatencyInNanos, int maxInFlight) {
+    double latencyInNanos = Math.max(windowLatencyInNanos, 1);
+    if (baselineInNanos == 0) {
+      baselineInNanos = latencyInNanos;
+    } else {
+      baselineInNanos += BASELINE_SMOOTHING * (latencyInNanos - baselineInNanos);
+    }
+    // Once latency has settled well below the baseline, as after a slow spell, let the baseline
+    // catch up faster than the averaging alone would.
+    if (baselineInNanos > 2 * latencyInNanos) {
+      baselineInNanos *= 0.95;
+    }
+    if (maxInFlight < estimatedLimit / 2) {
+      return;
+    }
+    double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineInNanos / latencyInNanos));
+    double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+    setEstimatedLimit(estimatedLimit + SMOOTHING * (newLimit - estimatedLimit));
+  }
+
+  private void backOff() {
+    lock.lock();
+    try {
+      setEstimatedLimit(estimatedLimit * BACKOFF);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void setEstimatedLimit(double newLimit) {
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    limit = (int) estimatedLimit;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import com.crio.qeats.exceptions.ServiceOverloadedException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of threads using one backing store at a time, so that a slow store holds at
+ * most that many request threads. Up to {@code maxWaiting} more callers wait at most
+ * {@code maxWaitInMillis} for a turn; any other caller is turned away at once with a
+ * {@link ServiceOverloadedException}.
+ *
+ * <p>Wrap single calls with {@link #call}, and use a permit with try-with-resources to hold a
+ * turn across several calls or a connection:
+ * <pre>
+ * try (Bulkhead.Permit permit = bulkhead.acquire(); Jedis jedis = pool.getResource()) {
+ *   ...
+ * }
+ * </pre>
+ */
+public class Bulkhead {
+
+  private final String name;
+  private final int maxConcurrent;
+  private final int maxWaiting;
+  private final long maxWaitInMillis;
+  private final int retryAfterSeconds;
+
+  private final Semaphore permits;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * Held while the store is used; closing it lets the next caller in.
+   */
+  @FunctionalInterface
+  public interface Permit extends AutoCloseable {
+
+    @Override
+    void close();
+  }
+
+  public Bulkhead(String name, int maxConcurrent, int maxWaiting, long maxWaitInMillis,
+      int retryAfterSeconds) {
+    if (maxConcurrent < 1 || maxWaiting < 0 || maxWaitInMillis < 0) {
+      throw new IllegalArgumentException("Invalid bounds for bulkhead " + name);
+    }
+    this.name = name;
+    this.maxConcurrent = maxConcurrent;
+    this.maxWaiting = maxWaiting;
+    this.maxWaitInMillis = maxWaitInMillis;
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.permits = new Semaphore(maxConcurrent, true);
+  }
+
+  /**
+   * Takes a turn at the store, waiting for one if the wait queue has room.
+   * @throws ServiceOverloadedException if the wait queue is full or no turn came in time
+   */
+  public Permit acquire() {
+    if (permits.tryAcquire()) {
+      return newPermit();
+    }
+    if (waiting.incrementAndGet() > maxWaiting) {
+      waiting.decrementAndGet();
+      throw reject("its queue is full");
+    }
+    try {
+      if (permits.tryAcquire(maxWaitInMillis, TimeUnit.MILLISECONDS)) {
+        return newPermit();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      waiting.decrementAndGet();
+    }
+    throw reject("no turn came within " + maxWaitInMillis + "ms");
+  }
+
+  /**
+   * Returns the result of the call, made once the bulkhead lets it in.
+   * @throws ServiceOverloadedException if it does not
+   */
+  public <T> T call(Supplier<T> call) {
+    try (Permit permit = acquire()) {
+      return call.get();
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Callers using the store right now.
+   */
+  public int getActive() {
+    return maxConcurrent - permits.availablePermits();
+  }
+
+  /**
+   * Callers waiting for a turn right now.
+   */
+  public int getWaiting() {
+    return waiting.get();
+  }
+
+  /**
+   * Callers turned away so far.
+   */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  // Releases its turn once, however many times it is closed.
+  private Permit newPermit() {
+    AtomicBoolean released = new AtomicBoolean();
+    return () -> {
+      if (released.compareAndSet(false, true)) {
+        permits.release();
+      }
+    };
+  }
+
+  private ServiceOverloadedException reject(String reason) {
+    rejected.incrementAndGet();
+    return new ServiceOverloadedException("Bulkhead " + name + " rejected the call: " + reason,
+        retryAfterSeconds);
+  }
+}
@@ -1,4 +1,3 @@
-
 /*
  *
  *  * Copyright (c) Crio.Do 2019. All rights reserved
@@ -14,42 +13,170 @@ import lombok.Data;
 @AllArgsConstructor
 public class GeoUtils {
 
+  private static final int R = 6371; // Radius of the earth
+
+  // Relative band around the radius inside which the batch kernels fall back to the scalar
+  // distance, so that they agree with findDistanceInKm exactly.
+  private static final double BOUNDARY_TOLERANCE = 1e-9;
+
   public static double findDistanceInKm(double srcLatitude, double srcLongitude,
       double dstLatitude, double dstLongitude) {
-    return distance(srcLatitude, dstLatitude, srcLongitude, dstLongitude, 0, 0);
+    return distance(srcLatitude, dstLatitude, srcLongitude, dstLongitude);
+  }
+
+  /**
+   * Cosine of every latitude, to be computed once per data set and passed to the batch kernels.
+   */
+  public static double[] cosOfLatitudes(double[] latitudes) {
+    double[] cosLatitudes = new double[latitudes.length];
+    for (int i = 0; i < latitudes.length; i++) {
+      cosLatitudes[i] = Math.cos(Math.toRadians(latitudes[i]));
+    }
+    return cosLatitudes;
+  }
+
+  /**
+   * Batch form of {@link #findDistanceInKm}: writes the distance from the source to every point
+   * into {@code distancesInKm}. Given the cosines from {@link #cosOfLatitudes}, the distances
+   * are identical to the scalar method.
+   */
+  public static void findDistancesInKm(double srcLatitude, double srcLongitude,
+      double[] latitudes, double[] longitudes, double[] cosLatitudes, double[] distancesInKm) {
+    double srcCos = Math.cos(Math.toRadians(srcLatitude));
+    for (int i = 0; i < latitudes.length; i++) {
+      double a = haversine(srcLatitude, srcLongitude, srcCos,
+          latitudes[i], longitudes[i], cosLatitudes[i]);
+      distancesInKm[i] = R * (2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)));
+    }
+  }
+
+  /**
+   * Batch form of {@code findDistanceInKm(...) < radiusInKms}: sets {@code matches[i]} for every
+   * point strictly within the radius and returns how many matched. The result is identical to
+   * the scalar comparison.
+   */
+  public static int findWithinRadius(double srcLatitude, double srcLongitude, double radiusInKms,
+      double[] latitudes, double[] longitudes, double[] cosLatitudes, boolean[] matches) {
+    RadiusFilter filter = new RadiusFilter(srcLatitude, srcLongitude, radiusInKms);
+    int matchCount = 0;
+    for (int i = 0; i < latitudes.length; i++) {
+      matches[i] = filter.test(latitudes[i], longitudes[i], cosLatitudes[i]);
+      if (matches[i]) {
+        matchCount++;
+      }
+    }
+    return matchCount;
   }
 
   /**
-   * THIS IS BORROWED CODE. Calculate distance between two points in latitude and longitude taking
-   * into account height difference. If you are not interested in height difference pass 0.0. Uses
-   * Haversine method as its base.
+   * Appends to {@code matches}, starting at {@code matchCount}, the candidate ordinals strictly
+   * within the radius. {@code matches} must have room for every candidate.
+   * @return the new number of matches
+   */
+  public static int filterWithinRadius(double srcLatitude, double srcLongitude,
+      double radiusInKms, double[] latitudes, double[] longitudes, double[] cosLatitudes,
+      int[] candidates, int[] matches, int matchCount) {
+    RadiusFilter filter = new RadiusFilter(srcLatitude, srcLongitude, radiusInKms);
+    for (int ordinal : candidates) {
+      if (filter.test(latitudes[ordinal], longitudes[ordinal], cosLatitudes[ordinal])) {
+        matches[matchCount++] = ordinal;
+      }
+    }
+    return matchCount;
+  }
+
+  /**
+   * THIS IS BORROWED CODE. Calculate distance between two points in latitude and longitude.
+   * Uses Haversine method as its base.
    *
-   * <p>lat1, lon1 Start point lat2, lon2 End point el1 Start altitude in meters el2 End altitude
-   * in
-   * meters
+   * <p>lat1, lon1 Start point lat2, lon2 End point
    *
    * @returns Distance in Kilo Meters
    */
-  private static double distance(
-      double lat1, double lat2, double lon1, double lon2, double el1, double el2) {
-
-    final int R = 6371; // Radius of the earth
+  private static double distance(double lat1, double lat2, double lon1, double lon2) {
+    double a = haversine(lat1, lon1, Math.cos(Math.toRadians(lat1)),
+        lat2, lon2, Math.cos(Math.toRadians(lat2)));
+    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    return R * c;
+  }
 
+  // Haversine of the central angle. Every kernel goes through here so that they all produce
+  // bit for bit the same value.
+  private static double haversine(double lat1, double lon1, double cosLat1,
+      double lat2, double lon2, double cosLat2) {
     double latDistance = Math.toRadians(lat2 - lat1);
     double lonDistance = Math.toRadians(lon2 - lon1);
-    double a =
-        Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-            + Math.cos(Math.toRadians(lat1))
-            * Math.cos(Math.toRadians(lat2))
-            * Math.sin(lonDistance / 2)
-            * Math.sin(lonDistance / 2);
-    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-    double distance = R * c;
+    double sinLat = Math.sin(latDistance / 2);
+    double sinLon = Math.sin(lonDistance / 2);
+    return sinLat * sinLat + cosLat1 * cosLat2 * sinLon * sinLon;
+  }
+
+  /**
+   * Radius test without the atan2: the distance grows with the haversine, so comparing against
+   * the haversine of the radius gives the same answer. Points outside the bounding box of the
+   * circle are rejected before any trigonometry, and points within {@link #BOUNDARY_TOLERANCE}
+   * of the boundary are settled with the scalar distance.
+   */
+  private static final class RadiusFilter {
+
+    private final double srcLatitude;
+    private final double srcLongitude;
+    private final double srcCos;
+    private final double radiusInKms;
+    private final double maxLatitudeDelta;
+    private final double maxLongitudeDelta;
+    private final double lowerHaversine;
+    private final double upperHaversine;
+
+    RadiusFilter(double srcLatitude, double srcLongitude, double radiusInKms) {
+      this.srcLatitude = srcLatitude;
+      this.srcLongitude = srcLongitude;
+      this.srcCos = Math.cos(Math.toRadians(srcLatitude));
+      this.radiusInKms = radiusInKms;
+      // A great circle is never shorter than the meridian arc between the two latitudes.
+      this.maxLatitudeDelta = Math.toDegrees(radiusInKms / R) * (1 + BOUNDARY_TOLERANCE);
+      this.maxLongitudeDelta = maxLongitudeDelta(srcLatitude, radiusInKms)
+          * (1 + BOUNDARY_TOLERANCE);
+      this.lowerHaversine = haversineOf(radiusInKms * (1 - BOUNDARY_TOLERANCE));
+      this.upperHaversine = haversineOf(radiusInKms * (1 + BOUNDARY_TOLERANCE));
+    }
 
-    double height = el1 - el2;
+    boolean test(double latitude, double longitude, double cosLatitude) {
+      if (Math.abs(latitude - srcLatitude) > maxLatitudeDelta) {
+        return false;
+      }
+      double longitudeDelta = Math.abs(longitude - srcLongitude);
+      if (Math.min(longitudeDelta, 360 - longitudeDelta) > maxLongitudeDelta) {
+        return false;
+      }
+      double a = haversine(srcLatitude, srcLongitude, srcCos, latitude, longitude, cosLatitude);
+      if (a < lowerHaversine) {
+        return true;
+      }
+      if (a >= upperHaversine) {
+        return false;
+      }
+      return R * (2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a))) < radiusInKms;
+    }
 
-    double result = Math.pow(distance, 2) + Math.pow(height, 2);
+    // Widest longitude difference within the radius, reached where a meridian touches the circle:
+    // the latitude bound widened by about 1/cos(latitude). A circle reaching a pole spans every
+    // longitude.
+    private static double maxLongitudeDelta(double latitude, double radiusInKms) {
+      double angularRadius = radiusInKms / R;
+      double cosLatitude = Math.cos(Math.toRadians(latitude));
+      if (Math.sin(angularRadius) >= cosLatitude) {
+        return Double.POSITIVE_INFINITY;
+      }
+      return Math.toDegrees(Math.asin(Math.sin(angularRadius) / cosLatitude));
+    }
 
-    return Math.sqrt(result);
+    private static double haversineOf(double distanceInKms) {
+      if (distanceInKms >= Math.PI * R) {
+        return Double.POSITIVE_INFINITY;
+      }
+      double sin = Math.sin(distanceInKms / R / 2);
+      return sin * sin;
+    }
   }
 }
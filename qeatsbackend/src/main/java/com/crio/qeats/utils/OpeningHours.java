@@ -0,0 +1,89 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opening hours of a restaurant as minutes of the day.
+ * A window whose closing time is earlier than its opening time runs overnight, e.g. 22:00 to
+ * 02:00. Like the original {@code LocalTime} comparison, both ends are exclusive, and a window
+ * that opens and closes at the same minute is never open. A null time stands for any time of
+ * day, for searches gathering candidates whose hours are checked afterwards.
+ */
+public final class OpeningHours {
+
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+  // Restaurants share a handful of distinct "HH:mm" values, so every string is parsed once.
+  private static final Map<String, Integer> minuteOfDayCache = new ConcurrentHashMap<>();
+
+  private final int opensAt;
+  private final int closesAt;
+
+  public OpeningHours(int opensAt, int closesAt) {
+    this.opensAt = opensAt;
+    this.closesAt = closesAt;
+  }
+
+  public static OpeningHours of(String opensAt, String closesAt) {
+    return new OpeningHours(minuteOfDay(opensAt), minuteOfDay(closesAt));
+  }
+
+  /**
+   * Minute of the day of an {@code HH:mm} time, parsed once per distinct string.
+   */
+  public static int minuteOfDay(String time) {
+    return minuteOfDayCache.computeIfAbsent(time,
+        key -> LocalTime.parse(key).toSecondOfDay() / 60);
+  }
+
+  public static boolean isOpenAt(LocalTime time, String opensAt, String closesAt) {
+    return isOpenAt(time, minuteOfDay(opensAt), minuteOfDay(closesAt));
+  }
+
+  public boolean isOpenAt(LocalTime time) {
+    return isOpenAt(time, opensAt, closesAt);
+  }
+
+  /**
+   * Whether the restaurant is open at any point strictly inside the given minute, i.e. open
+   * at every instant of the minute except possibly its very first second.
+   */
+  public boolean isOpenDuringMinute(int minute) {
+    if (opensAt <= closesAt) {
+      return opensAt <= minute && minute < closesAt;
+    }
+    return minute >= opensAt || minute < closesAt;
+  }
+
+  public int getOpensAt() {
+    return opensAt;
+  }
+
+  public int getClosesAt() {
+    return closesAt;
+  }
+
+  private static boolean isOpenAt(LocalTime time, int opensAt, int closesAt) {
+    if (time == null) {
+      return true;
+    }
+    // Compare at full precision so that exactly 18:00 is still closed for a window opening then.
+    long nanoOfDay = time.toNanoOfDay();
+    long opensAtNano = opensAt * NANOS_PER_MINUTE;
+    long closesAtNano = closesAt * NANOS_PER_MINUTE;
+    if (opensAtNano <= closesAtNano) {
+      return opensAtNano < nanoOfDay && nanoOfDay < closesAtNano;
+    }
+    return nanoOfDay > opensAtNano || nanoOfDay < closesAtNano;
+  }
+}
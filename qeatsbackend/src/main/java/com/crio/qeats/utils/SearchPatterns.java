@@ -0,0 +1,111 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles user search strings into regular expressions that match them literally.
+ * The search string is normalized (trimmed, whitespace collapsed, length bounded) and split into
+ * at most {@link #MAX_TOKENS} distinct tokens, and every character that is not a letter, digit,
+ * underscore or whitespace is escaped. The resulting patterns are anchored or unanchored
+ * literals, or alternations of literals, which run in time linear in the text for a given query
+ * in Java and in the PCRE engine of Mongo alike: there is no nested quantifier for a crafted
+ * query to backtrack through.
+ */
+public class SearchPatterns {
+
+  public static final int MAX_QUERY_LENGTH = 128;
+  public static final int MAX_TOKENS = 10;
+
+  private SearchPatterns() {
+  }
+
+  /**
+   * The search string trimmed, with runs of whitespace collapsed to a space and cut to
+   * {@link #MAX_QUERY_LENGTH} characters.
+   */
+  public static String normalize(String searchString) {
+    String normalized = searchString == null ? ""
+        : searchString.trim().replaceAll("\\s+", " ");
+    return normalized.length() <= MAX_QUERY_LENGTH ? normalized
+        : normalized.substring(0, MAX_QUERY_LENGTH).trim();
+  }
+
+  /**
+   * The first {@link #MAX_TOKENS} distinct words of the normalized search string, ignoring case.
+   */
+  public static List<String> tokens(String searchString) {
+    Set<String> seen = new LinkedHashSet<>();
+    List<String> tokens = new ArrayList<>();
+    String normalized = normalize(searchString);
+    if (normalized.isEmpty()) {
+      return tokens;
+    }
+    for (String token : normalized.split(" ")) {
+      if (tokens.size() == MAX_TOKENS) {
+        break;
+      }
+      if (seen.add(token.toLowerCase(Locale.ROOT))) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * The text as a regular expression matching it literally. Backslash followed by a character
+   * other than a letter or digit stands for that character in both Java and PCRE.
+   */
+  public static String literal(String text) {
+    StringBuilder escaped = new StringBuilder(text.length() * 2);
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '_' && !Character.isWhitespace(c)) {
+        escaped.append('\\');
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+
+  /**
+   * Regular expression matching any of the tokens literally, as an alternation.
+   */
+  public static String anyOf(List<String> tokens) {
+    List<String> literals = new ArrayList<>(tokens.size());
+    tokens.forEach(token -> literals.add(literal(token)));
+    return String.join("|", literals);
+  }
+
+  /**
+   * Matches text equal to the normalized search string, ignoring case.
+   */
+  public static Pattern equalTo(String searchString) {
+    return Pattern.compile("^" + literal(normalize(searchString)) + "$",
+        Pattern.CASE_INSENSITIVE);
+  }
+
+  /**
+   * Matches text containing the token, ignoring case.
+   */
+  public static Pattern containing(String token) {
+    return Pattern.compile(literal(token), Pattern.CASE_INSENSITIVE);
+  }
+
+  /**
+   * Matches text containing any of the tokens, ignoring case.
+   */
+  public static Pattern containingAny(List<String> tokens) {
+    return Pattern.compile(anyOf(tokens), Pattern.CASE_INSENSITIVE);
+  }
+}
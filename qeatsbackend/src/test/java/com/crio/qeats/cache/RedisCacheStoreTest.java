@@ -0,0 +1,172 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.utils.Bulkhead;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Jedis;
+import redis.embedded.RedisServer;
+
+class RedisCacheStoreTest {
+
+  private static final int REDIS_PORT = 6391;
+
+  private RedisServer redisServer;
+  private RedisConfiguration redisConfiguration;
+  private RedisCacheStore redisCacheStore;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    redisServer = new RedisServer(REDIS_PORT);
+    redisServer.start();
+    redisConfiguration = new RedisConfiguration();
+    redisConfiguration.setRedisPort(REDIS_PORT);
+    redisConfiguration.initCache();
+
+    redisCacheStore = new RedisCacheStore();
+    ReflectionTestUtils.setField(redisCacheStore, "redisConfiguration", redisConfiguration);
+    ReflectionTestUtils.setField(redisCacheStore, "redisBulkhead",
+        new Bulkhead("redis", 4, 4, 100, 1));
+  }
+
+  @AfterEach
+  public void teardown() {
+    redisConfiguration.destroyCache();
+    redisServer.stop();
+  }
+
+  @Test
+  public void batchReadsAreASingleMget() {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.set("a", "1");
+      jedis.set("c", "3");
+      jedis.configResetStat();
+    }
+
+    Map<String, byte[]> values = redisCacheStore.getAllBytes(Arrays.asList("a", "b", "c"));
+
+    assertEquals(2, values.size());
+    assertArrayEquals(bytes("1"), values.get("a"));
+    assertNull(values.get("b"));
+    assertArrayEquals(bytes("3"), values.get("c"));
+    assertEquals("1", callsOf("mget"));
+    assertNull(callsOf("get"));
+  }
+
+  @Test
+  public void batchWritesSetEveryKeyWithItsExpiry() {
+    Map<String, byte[]> values = new HashMap<>();
+    values.put("a", bytes("1"));
+    values.put("b", bytes("2"));
+
+    redisCacheStore.putAllBytes(values, 60);
+
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertEquals("1", jedis.get("a"));
+      assertEquals("2", jedis.get("b"));
+      assertTrue(jedis.ttl("a") > 0 && jedis.ttl("a") <= 60);
+      assertTrue(jedis.ttl("b") > 0 && jedis.ttl("b") <= 60);
+    }
+  }
+
+  @Test
+  public void pipelinedReadsReturnWhatIsLeftOfEachTtl() {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.setex("expiring", 60, "1");
+      jedis.set("persistent", "2");
+    }
+
+    Map<String, RedisCacheStore.ExpiringValue> values = redisCacheStore.getAllBytesWithTtl(
+        Arrays.asList("expiring", "persistent", "missing"));
+
+    assertEquals(2, values.size());
+    long ttlInMillis = values.get("expiring").getTtlInMillis();
+    assertTrue(ttlInMillis > 0 && ttlInMillis <= 60_000, "ttl " + ttlInMillis);
+    assertTrue(values.get("persistent").getTtlInMillis() < 0);
+    assertArrayEquals(bytes("2"), values.get("persistent").getValue());
+  }
+
+  @Test
+  public void leasesAreGrantedOnceAndReleasedOnlyByTheirHolder() {
+    assertEquals(Collections.singleton("lease:a"),
+        redisCacheStore.tryLeases(Collections.singletonList("lease:a"), "node-1", 10));
+
+    assertEquals(Collections.singleton("lease:b"),
+        redisCacheStore.tryLeases(Arrays.asList("lease:a", "lease:b"), "node-2", 10));
+
+    redisCacheStore.releaseLeases(Arrays.asList("lease:a", "lease:b"), "node-2");
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertEquals("node-1", jedis.get("lease:a"));
+      assertNull(jedis.get("lease:b"));
+    }
+  }
+
+  @Test
+  public void shedReadsAreMissesAndShedLeasesAreNotGranted() {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.set("a", "1");
+    }
+    Bulkhead saturated = new Bulkhead("redis", 1, 0, 0, 1);
+    ReflectionTestUtils.setField(redisCacheStore, "redisBulkhead", saturated);
+
+    try (Bulkhead.Permit permit = saturated.acquire()) {
+      assertNull(redisCacheStore.get("a"));
+      assertEquals(Collections.emptyMap(),
+          redisCacheStore.getAllBytes(Collections.singletonList("a")));
+      assertEquals(Collections.emptyMap(),
+          redisCacheStore.getAllBytesWithTtl(Collections.singletonList("a")));
+      assertEquals(Collections.emptySet(),
+          redisCacheStore.tryLeases(Collections.singletonList("lease:a"), "node-1", 10));
+    }
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertNull(jedis.get("lease:a"));
+    }
+  }
+
+  @Test
+  public void leasesAreAllGrantedWhenRedisIsDown() {
+    redisServer.stop();
+    try {
+      assertEquals(new HashSet<>(Arrays.asList("lease:a", "lease:b")),
+          redisCacheStore.tryLeases(Arrays.asList("lease:a", "lease:b"), "node-1", 10));
+    } finally {
+      redisServer.start();
+    }
+  }
+
+  // Number of calls of the command since the stats were reset, null if there were none.
+  private String callsOf(String command) {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      for (String line : jedis.info("commandstats").split("\r\n")) {
+        if (line.startsWith("cmdstat_" + command + ":")) {
+          return line.substring(line.indexOf("calls=") + 6, line.indexOf(','));
+        }
+      }
+      return null;
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantCellCacheTest {
+
+  private static final String CELL = "tdr1";
+  private static final List<String> CELL_KEYS =
+      Collections.singletonList(RestaurantCellCache.CELL_KEY_PREFIX + CELL);
+  private static final byte[] ENCODED = {1, 2, 3};
+
+  @Mock
+  private RedisCacheStore redisCacheStore;
+
+  @Mock
+  private RestaurantListSerializer restaurantListSerializer;
+
+  @Mock
+  private CacheInvalidationBus cacheInvalidationBus;
+
+  @Mock
+  private RedisConfiguration redisConfiguration;
+
+  @Captor
+  private ArgumentCaptor<Consumer<String>> invalidationListener;
+
+  @InjectMocks
+  private RestaurantCellCache restaurantCellCache;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicLong nanos = new AtomicLong();
+
+  @BeforeEach
+  public void init() {
+    ReflectionTestUtils.setField(restaurantCellCache, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(restaurantCellCache, "localMaximumWeight", 20L);
+    ReflectionTestUtils.setField(restaurantCellCache, "ticker", (Ticker) nanos::get);
+    restaurantCellCache.init();
+  }
+
+  @Test
+  public void redisHitsArePromotedIntoL1() throws IOException {
+    stubRedisCell(TimeUnit.MINUTES.toMillis(10));
+
+    restaurantCellCache.getCells(Collections.singletonList(CELL));
+    Map<String, List<Restaurant>> cells =
+        restaurantCellCache.getCells(Collections.singletonList(CELL));
+
+    assertEquals(2, cells.get(CELL).size());
+    verify(redisCacheStore, times(1)).getAllBytesWithTtl(CELL_KEYS);
+    assertEquals(1.0, lookups("l2-hit"));
+    assertEquals(1.0, lookups("l1-hit"));
+  }
+
+  @Test
+  public void promotedCellsExpireWithTheRestOfTheirRedisTtl() throws IOException {
+    stubRedisCell(1000);
+
+    restaurantCellCache.getCells(Collections.singletonList(CELL));
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+    restaurantCellCache.getCells(Collections.singletonList(CELL));
+    verify(redisCacheStore, times(1)).getAllBytesWithTtl(CELL_KEYS);
+
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+    restaurantCellCache.getCells(Collections.singletonList(CELL));
+    verify(redisCacheStore, times(2)).getAllBytesWithTtl(CELL_KEYS);
+  }
+
+  @Test
+  public void invalidationsFromTheBusDropL1Cells() {
+    verify(cacheInvalidationBus).addListener(invalidationListener.capture());
+    Map<String, List<Restaurant>> cells = new HashMap<>();
+    cells.put(CELL, restaurants(1));
+    cells.put("tdr2", restaurants(1));
+    restaurantCellCache.putCells(cells);
+
+    assertEquals(2, restaurantCellCache.getCells(Arrays.asList(CELL, "tdr2")).size());
+    verify(redisCacheStore, never()).getAllBytesWithTtl(any());
+
+    when(redisCacheStore.getAllBytesWithTtl(CELL_KEYS)).thenReturn(Collections.emptyMap());
+    invalidationListener.getValue().accept(CELL);
+    assertEquals(Collections.singleton("tdr2"),
+        restaurantCellCache.getCells(Arrays.asList(CELL, "tdr2")).keySet());
+
+    invalidationListener.getValue().accept(CacheInvalidationBus.ALL);
+    assertTrue(localCells().asMap().isEmpty());
+  }
+
+  @Test
+  public void l1IsBoundedByTheRestaurantsItHolds() {
+    Map<String, List<Restaurant>> cells = new HashMap<>();
+    cells.put("sparse1", restaurants(0));
+    cells.put("sparse2", restaurants(0));
+    cells.put("sparse3", restaurants(0));
+    cells.put("dense1", restaurants(12));
+    restaurantCellCache.putCells(cells);
+    localCells().cleanUp();
+    assertEquals(4, localCells().estimatedSize());
+
+    restaurantCellCache.putCells(Collections.singletonMap("dense2", restaurants(12)));
+    localCells().cleanUp();
+
+    assertTrue(localCells().policy().eviction().get().weightedSize().getAsLong() <= 20);
+  }
+
+  @Test
+  public void cellsLeasedByAnotherNodeAreAwaitedInsteadOfLoaded() throws IOException {
+    ReflectionTestUtils.setField(restaurantCellCache, "leaseInSeconds", 10);
+    ReflectionTestUtils.setField(restaurantCellCache, "leaseWaitInMillis", 2000L);
+    String leasedLease = RestaurantCellCache.LEASE_KEY_PREFIX + "tdr2";
+    String contendedLease = RestaurantCellCache.LEASE_KEY_PREFIX + CELL;
+    when(redisCacheStore.getAllBytesWithTtl(Arrays.asList(CELL_KEYS.get(0),
+        RestaurantCellCache.CELL_KEY_PREFIX + "tdr2"))).thenReturn(Collections.emptyMap());
+    when(redisCacheStore.tryLeases(argThat(keys -> keys.size() == 2
+        && keys.containsAll(Arrays.asList(contendedLease, leasedLease))), anyString(), eq(10)))
+        .thenReturn(Collections.singleton(leasedLease));
+    // The other node has stored its cell by the time this one polls for it.
+    stubRedisCell(TimeUnit.MINUTES.toMillis(10));
+    List<Set<String>> loaded = new ArrayList<>();
+
+    Map<String, List<Restaurant>> cells = restaurantCellCache.getOrLoadCells(
+        Arrays.asList(CELL, "tdr2"), owned -> {
+          loaded.add(owned);
+          return Collections.singletonMap("tdr2", restaurants(1));
+        });
+
+    assertEquals(Collections.singletonList(Collections.singleton("tdr2")), loaded);
+    assertEquals(2, cells.get(CELL).size());
+    assertEquals(1, cells.get("tdr2").size());
+    verify(redisCacheStore).releaseLeases(eq(Collections.singleton(leasedLease)), anyString());
+  }
+
+  private void stubRedisCell(long ttlInMillis) throws IOException {
+    doReturn(Collections.singletonMap(CELL_KEYS.get(0),
+        new RedisCacheStore.ExpiringValue(ENCODED, ttlInMillis)))
+        .when(redisCacheStore).getAllBytesWithTtl(CELL_KEYS);
+    when(restaurantListSerializer.deserialize(ENCODED)).thenReturn(restaurants(2));
+  }
+
+  private double lookups(String result) {
+    return meterRegistry.counter("qeats.cache.cell.lookups", "result", result).count();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Cache<String, ?> localCells() {
+    return (Cache<String, ?>) ReflectionTestUtils.getField(restaurantCellCache, "localCells");
+  }
+
+  private static List<Restaurant> restaurants(int count) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Restaurant restaurant = new Restaurant();
+      restaurant.setRestaurantId(String.valueOf(i));
+      restaurants.add(restaurant);
+    }
+    return restaurants;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RestaurantListCodecTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  private final JsonRestaurantListCodec json = new JsonRestaurantListCodec();
+  private final BinaryRestaurantListCodec binary = new BinaryRestaurantListCodec();
+
+  @Test
+  public void everyCodecRoundTripsRestaurants() throws IOException {
+    List<Restaurant> restaurants = listOfRestaurants();
+    Restaurant sparse = new Restaurant();
+    sparse.setRestaurantId("99");
+    sparse.setName("Caf\u00e9 \u0bb8");
+    sparse.setAttributes(null);
+    restaurants.add(sparse);
+
+    for (RestaurantListCodec codec : Arrays.asList(json, binary,
+        new Lz4RestaurantListCodec(json), new Lz4RestaurantListCodec(binary))) {
+      byte[] encoded = codec.encode(restaurants);
+      byte[] padded = new byte[encoded.length + 1];
+      System.arraycopy(encoded, 0, padded, 1, encoded.length);
+
+      assertEquals(restaurants, codec.decode(padded, 1, encoded.length), codec.name());
+    }
+  }
+
+  @Test
+  public void binaryIsSmallerThanJson() throws IOException {
+    List<Restaurant> restaurants = listOfRestaurants();
+
+    assertTrue(binary.encode(restaurants).length < json.encode(restaurants).length);
+  }
+
+  @Test
+  public void codecIdsAreDistinct() {
+    assertEquals(4, new HashSet<>(Arrays.asList(json.id(), binary.id(),
+        new Lz4RestaurantListCodec(json).id(), new Lz4RestaurantListCodec(binary).id())).size());
+  }
+
+  private List<Restaurant> listOfRestaurants() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
+
+    return new ArrayList<>(new ObjectMapper().readValue(fixture,
+        new TypeReference<List<Restaurant>>() {}));
+  }
+}
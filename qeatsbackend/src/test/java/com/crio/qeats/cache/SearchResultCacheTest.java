@@ -0,0 +1,141 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.dto.Restaurant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResultCacheTest {
+
+  private static final double RADIUS_IN_KMS = 3.0;
+
+  @Mock
+  private RedisCacheStore redisCacheStore;
+
+  @Mock
+  private CacheInvalidationBus cacheInvalidationBus;
+
+  @InjectMocks
+  private SearchResultCache searchResultCache;
+
+  private final Map<String, byte[]> redis = new HashMap<>();
+
+  @BeforeEach
+  public void setup() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RestaurantListSerializer restaurantListSerializer = new RestaurantListSerializer();
+    ReflectionTestUtils.setField(restaurantListSerializer, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(restaurantListSerializer, "codecName", "json");
+    ReflectionTestUtils.setField(restaurantListSerializer, "compression", "none");
+    restaurantListSerializer.init();
+    ReflectionTestUtils.setField(searchResultCache, "restaurantListSerializer",
+        restaurantListSerializer);
+    ReflectionTestUtils.setField(searchResultCache, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(searchResultCache, "cellPrecision", 6);
+    ReflectionTestUtils.setField(searchResultCache, "ttlInSeconds", 300);
+    ReflectionTestUtils.setField(searchResultCache, "negativeTtlInSeconds", 60);
+    searchResultCache.init();
+  }
+
+  @Test
+  public void queriesDifferingInCaseOrSpacingShareAKey() {
+    assertEquals("chicken biryani", SearchResultCache.normalizeQuery("  Chicken   BIRYANI "));
+    assertEquals("pizza", SearchResultCache.normalizeQuery("pizza"));
+  }
+
+  @Test
+  public void callersInTheSameCellGetResultsForTheirOwnLocationAndTime() {
+    stubRedis();
+    WGS84Point center = GeoHash.withCharacterPrecision(20.0, 30.0, 6)
+        .getBoundingBoxCenterPoint();
+    double latitude = center.getLatitude();
+    double longitude = center.getLongitude();
+    // About 3.1 km west and east of the center, and open at different times of the day.
+    Restaurant west = restaurant("west", latitude, longitude - 0.03, "18:00", "23:00");
+    Restaurant middle = restaurant("middle", latitude, longitude, "18:00", "23:00");
+    Restaurant east = restaurant("east", latitude, longitude + 0.03, "10:00", "23:00");
+    List<Double> searchedRadii = new ArrayList<>();
+    SearchResultCache.Searcher searcher = (query, cellLatitude, cellLongitude, radius) -> {
+      searchedRadii.add(radius);
+      return Arrays.asList(west, middle, east);
+    };
+
+    List<Restaurant> westernCaller = searchResultCache.getOrSearch("all", "Biryani", latitude,
+        longitude - 0.002, RADIUS_IN_KMS, LocalTime.of(19, 0), searcher);
+    List<Restaurant> easternCaller = searchResultCache.getOrSearch("all", "biryani", latitude,
+        longitude + 0.002, RADIUS_IN_KMS, LocalTime.of(12, 0), searcher);
+
+    assertEquals(Arrays.asList("west", "middle"), idsOf(westernCaller));
+    assertEquals(Collections.singletonList("east"), idsOf(easternCaller));
+    assertEquals(1, searchedRadii.size());
+    assertTrue(searchedRadii.get(0) > RADIUS_IN_KMS + 0.3, "radius " + searchedRadii.get(0));
+  }
+
+  @Test
+  public void halfDiagonalReachesEveryCornerOfTheCell() {
+    GeoHash cell = GeoHash.withCharacterPrecision(20.0, 30.0, 6);
+
+    double halfDiagonalInKms = SearchResultCache.halfDiagonalInKms(cell);
+
+    // A precision 6 cell is about 1.2 km wide and 0.6 km tall.
+    assertTrue(halfDiagonalInKms > 0.6 && halfDiagonalInKms < 0.7, "half " + halfDiagonalInKms);
+  }
+
+  private void stubRedis() {
+    when(redisCacheStore.getAllBytes(any())).thenAnswer(invocation -> {
+      String key = invocation.<List<String>>getArgument(0).get(0);
+      return redis.containsKey(key)
+          ? Collections.singletonMap(key, redis.get(key)) : Collections.emptyMap();
+    });
+    doAnswer(invocation -> {
+      redis.putAll(invocation.getArgument(0));
+      return null;
+    }).when(redisCacheStore).putAllBytes(any(), anyInt());
+  }
+
+  private static Restaurant restaurant(String restaurantId, double latitude, double longitude,
+      String opensAt, String closesAt) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setName(restaurantId);
+    restaurant.setCity("city");
+    restaurant.setLatitude(latitude);
+    restaurant.setLongitude(longitude);
+    restaurant.setOpensAt(opensAt);
+    restaurant.setClosesAt(closesAt);
+    return restaurant;
+  }
+
+  private static List<String> idsOf(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  @Test
+  public void concurrentCallersShareOneLoad() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loaderStarted = new CountDownLatch(1);
+    CountDownLatch releaseLoader = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      results.add(executor.submit(() -> singleFlight.execute("cell", () -> {
+        loads.incrementAndGet();
+        loaderStarted.countDown();
+        await(releaseLoader);
+        return "loaded";
+      })));
+      loaderStarted.await(5, TimeUnit.SECONDS);
+      for (int i = 0; i < 7; i++) {
+        results.add(executor.submit(() -> singleFlight.execute("cell", () -> {
+          loads.incrementAndGet();
+          return "duplicate";
+        })));
+      }
+      // Give the followers time to join the running load before releasing it.
+      Thread.sleep(200);
+      releaseLoader.countDown();
+
+      for (Future<String> result : results) {
+        assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+      assertEquals(0, singleFlight.inFlightCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void loaderOnlyReceivesKeysNobodyElseIsLoading() throws Exception {
+    SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+    List<Set<String>> loaderKeys = new CopyOnWriteArrayList<>();
+    CountDownLatch firstLoaderStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstLoader = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      Future<Map<String, Integer>> first = executor.submit(() -> singleFlight.executeAll(
+          Arrays.asList("a", "b"), keys -> {
+            firstLoaderStarted.countDown();
+            await(releaseFirstLoader);
+            return lengths(keys, loads, loaderKeys);
+          }));
+      firstLoaderStarted.await(5, TimeUnit.SECONDS);
+      Future<Map<String, Integer>> second = executor.submit(() -> singleFlight.executeAll(
+          Arrays.asList("b", "c"), keys -> lengths(keys, loads, loaderKeys)));
+      // The second caller loads "c" at once, then waits on the first caller for "b".
+      while (loaderKeys.isEmpty()) {
+        Thread.sleep(10);
+      }
+      assertEquals(Collections.singleton("c"), loaderKeys.get(0));
+      releaseFirstLoader.countDown();
+
+      assertEquals(2, first.get(5, TimeUnit.SECONDS).size());
+      Map<String, Integer> secondValues = second.get(5, TimeUnit.SECONDS);
+      assertEquals(2, secondValues.size());
+      assertEquals(Integer.valueOf(1), secondValues.get("b"));
+      assertEquals(new HashSet<>(Arrays.asList("a", "b")), loaderKeys.get(1));
+      for (String key : Arrays.asList("a", "b", "c")) {
+        assertEquals(1, loads.get(key).get(), key);
+      }
+      assertEquals(0, singleFlight.inFlightCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void failuresArePropagatedAndNotRemembered() {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    assertThrows(IllegalStateException.class, () -> singleFlight.execute("cell", () -> {
+      throw new IllegalStateException("mongo down");
+    }));
+    assertEquals("recovered", singleFlight.execute("cell", () -> "recovered"));
+  }
+
+  private static Map<String, Integer> lengths(Set<String> keys,
+      Map<String, AtomicInteger> loads, List<Set<String>> loaderKeys) {
+    loaderKeys.add(keys);
+    Map<String, Integer> loaded = new HashMap<>();
+    for (String key : keys) {
+      loads.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+      loaded.put(key, key.length());
+    }
+    return loaded;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ThreadModeConfigurationTest {
+
+  @Test
+  public void onlyPlatformAndVirtualAreKnownModes() {
+    assertFalse(ThreadModeConfiguration.isVirtual("platform"));
+    assertTrue(ThreadModeConfiguration.isVirtual("virtual"));
+    assertThrows(IllegalArgumentException.class,
+        () -> ThreadModeConfiguration.isVirtual("green"));
+  }
+
+  @Test
+  public void platformModeNeedsNoVirtualThreads() {
+    new ThreadModeConfiguration().requestThreadsCustomizer("platform").customize(null);
+  }
+
+  @Test
+  public void virtualModeFailsNamingTheRuntimeBeforeJava21() {
+    assumeFalse(hasVirtualThreads());
+
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> ThreadModeConfiguration.newVirtualThreadPerTaskExecutor("http-"));
+
+    assertTrue(e.getMessage().contains("Java 21"), e.getMessage());
+    assertTrue(e.getMessage().contains(System.getProperty("java.version")), e.getMessage());
+  }
+
+  @Test
+  public void virtualModeRunsTasksOnNamedVirtualThreadsFromJava21() throws Exception {
+    assumeTrue(hasVirtualThreads());
+    ExecutorService executor = ThreadModeConfiguration.newVirtualThreadPerTaskExecutor("http-");
+
+    try {
+      Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+      assertEquals("http-0", thread.getName());
+      assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static boolean hasVirtualThreads() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+}
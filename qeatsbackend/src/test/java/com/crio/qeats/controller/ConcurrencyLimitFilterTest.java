@@ -0,0 +1,130 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.utils.AdaptiveConcurrencyLimit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitFilterTest {
+
+  // With a window of one request and the limit nearly reached, a success grows the limit at once
+  // and a drop backs it off to 90, while an ignored request leaves it at 100.
+  private static final int LIMIT = 100;
+
+  private final AdaptiveConcurrencyLimit concurrencyLimit =
+      new AdaptiveConcurrencyLimit(LIMIT, 1, 200, 1, () -> 0L);
+
+  private final ConcurrencyLimitFilter filter =
+      new ConcurrencyLimitFilter(concurrencyLimit, new ObjectMapper(), 3);
+
+  @Test
+  public void servedRequestsCountTowardsTheLimit() throws Exception {
+    fillUpToTheLastSlot();
+
+    assertEquals(HttpStatus.OK.value(), filter(respondingWith(HttpStatus.OK)).getStatus());
+
+    assertTrue(concurrencyLimit.getLimit() > LIMIT, "limit " + concurrencyLimit.getLimit());
+    assertEquals(LIMIT - 1, concurrencyLimit.getInFlight());
+  }
+
+  @Test
+  public void serviceUnavailableResponsesBackOffTheLimit() throws Exception {
+    fillUpToTheLastSlot();
+
+    filter(respondingWith(HttpStatus.SERVICE_UNAVAILABLE));
+
+    assertEquals(90, concurrencyLimit.getLimit());
+    assertEquals(LIMIT - 1, concurrencyLimit.getInFlight());
+  }
+
+  @Test
+  public void otherErrorResponsesAreIgnored() throws Exception {
+    fillUpToTheLastSlot();
+
+    filter(respondingWith(HttpStatus.BAD_REQUEST));
+    filter(respondingWith(HttpStatus.NOT_FOUND));
+    filter(respondingWith(HttpStatus.INTERNAL_SERVER_ERROR));
+
+    assertEquals(LIMIT, concurrencyLimit.getLimit());
+    assertEquals(LIMIT - 1, concurrencyLimit.getInFlight());
+  }
+
+  @Test
+  public void exceptionsAreIgnoredAndPropagated() {
+    fillUpToTheLastSlot();
+
+    assertThrows(ServletException.class, () -> filter(new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest request, HttpServletResponse response)
+          throws ServletException {
+        throw new ServletException("handler failed");
+      }
+    }));
+
+    assertEquals(LIMIT, concurrencyLimit.getLimit());
+    assertEquals(LIMIT - 1, concurrencyLimit.getInFlight());
+  }
+
+  @Test
+  public void requestsOverTheLimitGetServiceUnavailableWithRetryAfter() throws Exception {
+    for (int i = 0; i < LIMIT; i++) {
+      concurrencyLimit.tryAcquire().get();
+    }
+    MockFilterChain filterChain = new MockFilterChain(respondingWith(HttpStatus.OK));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/qeats/v1/restaurants"), response,
+        filterChain);
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+    assertEquals("3", response.getHeader(HttpHeaders.RETRY_AFTER));
+    assertTrue(response.getContentAsString().contains("Service overloaded"),
+        response.getContentAsString());
+    assertNull(filterChain.getRequest());
+    assertEquals(1, concurrencyLimit.getRejected());
+    assertEquals(LIMIT, concurrencyLimit.getInFlight());
+  }
+
+  private void fillUpToTheLastSlot() {
+    for (int i = 0; i < LIMIT - 1; i++) {
+      concurrencyLimit.tryAcquire().get();
+    }
+  }
+
+  private MockHttpServletResponse filter(Servlet servlet) throws ServletException, IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/qeats/v1/restaurants"), response,
+        new MockFilterChain(servlet));
+    return response;
+  }
+
+  private static Servlet respondingWith(HttpStatus status) {
+    return new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest request, HttpServletResponse response) {
+        response.setStatus(status.value());
+      }
+    };
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import static com.crio.qeats.controller.ReactiveRestaurantController.RESTAURANTS_API;
+import static com.crio.qeats.controller.ReactiveRestaurantController.RESTAURANT_API_ENDPOINT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.indexes.SpellingCatalog;
+import com.crio.qeats.repositoryservices.ReactiveRestaurantRepositoryService;
+import com.crio.qeats.services.ReactiveRestaurantServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+
+// Spring MVC serves the controller's Mono asynchronously, so each response is read off an
+// async dispatch.
+@ExtendWith(MockitoExtension.class)
+class ReactiveRestaurantControllerTest {
+
+  private static final String RESTAURANTS_URI = RESTAURANT_API_ENDPOINT + RESTAURANTS_API
+      + "?latitude=20.21&longitude=30.31";
+
+  @Mock
+  private ReactiveRestaurantRepositoryService reactiveRestaurantRepositoryService;
+
+  @Mock
+  private SpellingCatalog spellingCatalog;
+
+  private MockMvc mvc;
+
+  @BeforeEach
+  public void setup() {
+    ReactiveRestaurantServiceImpl reactiveRestaurantService = new ReactiveRestaurantServiceImpl();
+    ReflectionTestUtils.setField(reactiveRestaurantService, "reactiveRestaurantRepositoryService",
+        reactiveRestaurantRepositoryService);
+    ReflectionTestUtils.setField(reactiveRestaurantService, "spellingCatalog", spellingCatalog);
+    ReflectionTestUtils.setField(reactiveRestaurantService, "deadlineInMillis", 500L);
+    ReactiveRestaurantController controller = new ReactiveRestaurantController();
+    ReflectionTestUtils.setField(controller, "reactiveRestaurantService",
+        reactiveRestaurantService);
+    mvc = MockMvcBuilders.standaloneSetup(controller).build();
+  }
+
+  @Test
+  public void fuzzySearchesAreAnsweredWithTheCorrectedSearch() throws Exception {
+    when(spellingCatalog.correct("biriyani")).thenReturn("biryani");
+    when(reactiveRestaurantRepositoryService.findRestaurantsByItemName(any(), any(),
+        anyString(), any(), any())).thenReturn(Flux.just(restaurant("11")));
+    when(reactiveRestaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(),
+        any(), any())).thenReturn(Flux.empty());
+    when(reactiveRestaurantRepositoryService.findRestaurantsByItemAttributes(any(), any(),
+        anyString(), any(), any())).thenReturn(Flux.empty());
+    when(reactiveRestaurantRepositoryService.findRestaurantsByAttributes(any(), any(),
+        anyString(), any(), any())).thenReturn(Flux.just(restaurant("11")));
+
+    MockHttpServletResponse response = perform(RESTAURANTS_URI
+        + "&searchFor=biriyani&fuzzy=true");
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    GetRestaurantsResponse body = new ObjectMapper().readValue(response.getContentAsString(),
+        GetRestaurantsResponse.class);
+    assertEquals(1, body.getRestaurants().size());
+    assertEquals("11", body.getRestaurants().get(0).getRestaurantId());
+    verify(reactiveRestaurantRepositoryService).findRestaurantsByName(any(), any(),
+        eq("biryani"), any(), any());
+  }
+
+  @Test
+  public void exactSearchesAreNotCorrected() throws Exception {
+    when(reactiveRestaurantRepositoryService.findRestaurantsByItemName(any(), any(),
+        eq("biriyani"), any(), any())).thenReturn(Flux.empty());
+    when(reactiveRestaurantRepositoryService.findRestaurantsByName(any(), any(), eq("biriyani"),
+        any(), any())).thenReturn(Flux.empty());
+    when(reactiveRestaurantRepositoryService.findRestaurantsByItemAttributes(any(), any(),
+        eq("biriyani"), any(), any())).thenReturn(Flux.empty());
+    when(reactiveRestaurantRepositoryService.findRestaurantsByAttributes(any(), any(),
+        eq("biriyani"), any(), any())).thenReturn(Flux.empty());
+
+    MockHttpServletResponse response = perform(RESTAURANTS_URI + "&searchFor=biriyani");
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals(Collections.emptyList(), new ObjectMapper().readValue(
+        response.getContentAsString(), GetRestaurantsResponse.class).getRestaurants());
+    verifyZeroInteractions(spellingCatalog);
+  }
+
+  @Test
+  public void outOfRangeCoordinatesAreBadRequests() throws Exception {
+    assertEquals(HttpStatus.BAD_REQUEST.value(), perform(RESTAURANT_API_ENDPOINT
+        + RESTAURANTS_API + "?latitude=91&longitude=30.31&searchFor=biryani").getStatus());
+    verifyZeroInteractions(reactiveRestaurantRepositoryService, spellingCatalog);
+  }
+
+  private MockHttpServletResponse perform(String uri) throws Exception {
+    MvcResult result = mvc.perform(get(uri).accept(APPLICATION_JSON_UTF8)).andReturn();
+    return mvc.perform(asyncDispatch(result)).andReturn().getResponse();
+  }
+
+  private static Restaurant restaurant(String restaurantId) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setName("Restaurant " + restaurantId);
+    return restaurant;
+  }
+}
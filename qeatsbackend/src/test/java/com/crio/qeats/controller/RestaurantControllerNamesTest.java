@@ -0,0 +1,79 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import static com.crio.qeats.controller.RestaurantController.RESTAURANTS_API;
+import static com.crio.qeats.controller.RestaurantController.RESTAURANT_API_ENDPOINT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.services.RestaurantService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantControllerNamesTest {
+
+  @Mock
+  private RestaurantService restaurantService;
+
+  @InjectMocks
+  private RestaurantController restaurantController;
+
+  @Test
+  public void namesAreCleanedWithoutChangingTheRestaurantsServed() throws Exception {
+    // As handed out by the caches, to this request and to any other.
+    Restaurant garbled = restaurant("11", "Café Coffee Day");
+    Restaurant plain = restaurant("12", "A2B");
+    List<Restaurant> cached = Arrays.asList(garbled, plain);
+    when(restaurantService.findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenReturn(new GetRestaurantsResponse(cached));
+    MockMvc mvc = MockMvcBuilders.standaloneSetup(restaurantController).build();
+
+    MockHttpServletResponse response = mvc.perform(get(RESTAURANT_API_ENDPOINT + RESTAURANTS_API
+        + "?latitude=20.21&longitude=30.31").accept(APPLICATION_JSON_UTF8)).andReturn()
+        .getResponse();
+
+    GetRestaurantsResponse body = new ObjectMapper().readValue(response.getContentAsString(),
+        GetRestaurantsResponse.class);
+    assertEquals("Cafe Coffee Day", body.getRestaurants().get(0).getName());
+    assertEquals("A2B", body.getRestaurants().get(1).getName());
+    assertEquals("Café Coffee Day", garbled.getName());
+  }
+
+  @Test
+  public void restaurantsWithCleanNamesAreNotCopied() {
+    Restaurant plain = restaurant("12", "A2B");
+
+    List<Restaurant> cleaned = RestaurantController.withCleanNames(Arrays.asList(plain));
+
+    assertSame(plain, cleaned.get(0));
+  }
+
+  private static Restaurant restaurant(String restaurantId, String name) {
+    return new Restaurant(restaurantId, name, "Hsr Layout", "www.google.com", 20.21, 30.31,
+        "10:00", "22:00", new ArrayList<>());
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import static com.crio.qeats.controller.RestaurantController.RESTAURANTS_API;
+import static com.crio.qeats.controller.RestaurantController.RESTAURANT_API_ENDPOINT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.crio.qeats.exceptions.InvalidPageRequestException;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.services.RestaurantService;
+import java.time.LocalTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.util.NestedServletException;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantControllerPagingTest {
+
+  private static final String SEARCH_URI = RESTAURANT_API_ENDPOINT + RESTAURANTS_API
+      + "?latitude=20.21&longitude=30.31&searchFor=biryani&limit=10&cursor=abc";
+
+  @Mock
+  private RestaurantService restaurantService;
+
+  @InjectMocks
+  private RestaurantController restaurantController;
+
+  private MockMvc mvc;
+
+  @BeforeEach
+  public void setup() {
+    mvc = MockMvcBuilders.standaloneSetup(restaurantController).build();
+  }
+
+  @Test
+  public void invalidPageRequestsAreBadRequests() throws Exception {
+    when(restaurantService.findRestaurantsBySearchQuery(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenThrow(new InvalidPageRequestException("Malformed cursor abc"));
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), mvc.perform(
+        get(SEARCH_URI).accept(APPLICATION_JSON_UTF8)).andReturn().getResponse().getStatus());
+  }
+
+  @Test
+  public void otherIllegalArgumentsAreNotBlamedOnTheClient() {
+    when(restaurantService.findRestaurantsBySearchQuery(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenThrow(new IllegalArgumentException("Unknown cache codec"));
+
+    assertThrows(NestedServletException.class,
+        () -> mvc.perform(get(SEARCH_URI).accept(APPLICATION_JSON_UTF8)));
+  }
+}
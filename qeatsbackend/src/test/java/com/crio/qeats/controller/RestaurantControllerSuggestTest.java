@@ -0,0 +1,98 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import static com.crio.qeats.controller.RestaurantController.RESTAURANT_API_ENDPOINT;
+import static com.crio.qeats.controller.RestaurantController.SUGGEST_API;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.services.RestaurantService;
+import com.crio.qeats.services.SuggestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantControllerSuggestTest {
+
+  private static final String SUGGEST_API_URI = RESTAURANT_API_ENDPOINT + SUGGEST_API;
+
+  @Mock
+  private RestaurantService restaurantService;
+
+  @Mock
+  private SuggestionService suggestionService;
+
+  @InjectMocks
+  private RestaurantController restaurantController;
+
+  private MockMvc mvc;
+
+  @BeforeEach
+  public void setup() {
+    mvc = MockMvcBuilders.standaloneSetup(restaurantController).build();
+  }
+
+  @Test
+  public void suggestionsAreReturnedForAValidRequest() throws Exception {
+    when(suggestionService.findSuggestions(any(GetSuggestionsRequest.class))).thenReturn(
+        new GetSuggestionsResponse(Collections.singletonList(
+            new Suggestion("Biryani", "item", 3))));
+
+    MockHttpServletResponse response = suggest(
+        "?latitude=20.21&longitude=30.31&prefix=bir&limit=5");
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    GetSuggestionsResponse body = new ObjectMapper().readValue(response.getContentAsString(),
+        GetSuggestionsResponse.class);
+    assertEquals(Collections.singletonList(new Suggestion("Biryani", "item", 3)),
+        body.getSuggestions());
+
+    ArgumentCaptor<GetSuggestionsRequest> argumentCaptor =
+        ArgumentCaptor.forClass(GetSuggestionsRequest.class);
+    verify(suggestionService).findSuggestions(argumentCaptor.capture());
+    assertEquals(new GetSuggestionsRequest(20.21, 30.31, "bir", 5), argumentCaptor.getValue());
+  }
+
+  @Test
+  public void invalidRequestsAreRejectedBeforeTheService() throws Exception {
+    assertEquals(HttpStatus.BAD_REQUEST.value(),
+        suggest("?latitude=20.21&longitude=30.31&prefix=").getStatus());
+    assertEquals(HttpStatus.BAD_REQUEST.value(),
+        suggest("?latitude=20.21&longitude=30.31").getStatus());
+    assertEquals(HttpStatus.BAD_REQUEST.value(),
+        suggest("?latitude=91&longitude=30.31&prefix=bir").getStatus());
+    assertEquals(HttpStatus.BAD_REQUEST.value(),
+        suggest("?latitude=20.21&longitude=30.31&prefix=bir&limit=51").getStatus());
+
+    verifyZeroInteractions(suggestionService);
+  }
+
+  private MockHttpServletResponse suggest(String query) throws Exception {
+    return mvc.perform(get(SUGGEST_API_URI + query).accept(APPLICATION_JSON_UTF8))
+        .andReturn().getResponse();
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.repositories.ItemRepository;
+import com.crio.qeats.repositories.MenuRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ItemCatalogTest {
+
+  @Mock
+  private ItemRepository itemRepository;
+
+  @Mock
+  private MenuRepository menuRepository;
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  @InjectMocks
+  private ItemCatalog itemCatalog;
+
+  private final List<Runnable> scheduled = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(itemCatalog, "refreshIntervalInSeconds", 300L);
+    when(itemRepository.findAll()).thenReturn(Arrays.asList(
+        item("i1", "1", "Chicken Biryani"), item("i2", "2", "Gulab Jamun")));
+    when(menuRepository.findAll()).thenReturn(Collections.singletonList(
+        menu("m1", "r1", "1", "2")));
+  }
+
+  @Test
+  public void savesAndDeletesThroughSpringDataUpdateTheIndexInPlace() {
+    ItemRestaurantIndex index = itemCatalog.getIndex();
+
+    itemCatalog.onAfterSave(new AfterSaveEvent<>(menu("m2", "r2", "2"), new Document(),
+        "menus"));
+    assertEquals(Arrays.asList("r1", "r2"), sorted(index.findRestaurantIdsByItemName("jamun")));
+
+    itemCatalog.onAfterDelete(deleted(new Document("_id", "m1"), MenuEntity.class, "menus"));
+    assertEquals(Collections.singletonList("r2"), index.findRestaurantIdsByItemName("jamun"));
+
+    assertSame(index, itemCatalog.getIndex());
+    verify(itemRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void deletesByQueryRebuildInTheBackgroundWhileThePreviousIndexIsServed() {
+    stubScheduler();
+    ItemRestaurantIndex previous = itemCatalog.getIndex();
+
+    itemCatalog.onAfterDelete(deleted(new Document("restaurantId", "r1"), MenuEntity.class,
+        "menus"));
+    when(menuRepository.findAll()).thenReturn(Collections.emptyList());
+
+    assertSame(previous, itemCatalog.getIndex());
+    assertSame(previous, itemCatalog.getIndex());
+    assertEquals(1, scheduled.size());
+
+    scheduled.get(0).run();
+    ItemRestaurantIndex rebuilt = itemCatalog.getIndex();
+    assertTrue(rebuilt != previous);
+    assertEquals(Collections.emptyList(), rebuilt.findRestaurantIdsByItemName("biryani"));
+    assertEquals(1, scheduled.size());
+  }
+
+  @Test
+  public void savesMadeDuringARebuildAreCarriedOverToItsResult() {
+    stubScheduler();
+    itemCatalog.getIndex();
+    itemCatalog.onAfterDelete(deleted(new Document(), ItemEntity.class, "items"));
+    itemCatalog.getIndex();
+    // A menu is saved while the rebuild reads Mongo, too late for the menus it reads.
+    when(itemRepository.findAll()).thenAnswer(invocation -> {
+      itemCatalog.onAfterSave(new AfterSaveEvent<>(menu("m2", "r2", "1"), new Document(),
+          "menus"));
+      return Collections.singletonList(item("i1", "1", "Chicken Biryani"));
+    });
+    when(menuRepository.findAll()).thenReturn(Collections.singletonList(menu("m1", "r1", "1")));
+
+    scheduled.get(0).run();
+
+    assertEquals(Arrays.asList("r1", "r2"),
+        sorted(itemCatalog.getIndex().findRestaurantIdsByItemName("biryani")));
+  }
+
+  private void stubScheduler() {
+    doAnswer(invocation -> {
+      scheduled.add(invocation.getArgument(0));
+      return null;
+    }).when(taskScheduler).schedule(any(Runnable.class), any(Date.class));
+  }
+
+  // Spring Data raises delete events typed by the entity class, whatever the listener's type.
+  @SuppressWarnings("unchecked")
+  private static AfterDeleteEvent<Object> deleted(Document query, Class<?> type,
+      String collectionName) {
+    return new AfterDeleteEvent<>(query, (Class<Object>) type, collectionName);
+  }
+
+  private static List<String> sorted(List<String> values) {
+    List<String> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private static ItemEntity item(String id, String itemId, String name) {
+    ItemEntity item = new ItemEntity();
+    item.setId(id);
+    item.setItemId(itemId);
+    item.setName(name);
+    item.setAttributes(new ArrayList<>());
+    return item;
+  }
+
+  private static MenuEntity menu(String id, String restaurantId, String... itemIds) {
+    List<Item> items = new ArrayList<>();
+    for (String itemId : itemIds) {
+      Item item = new Item();
+      item.setItemId(itemId);
+      items.add(item);
+    }
+    return new MenuEntity(id, restaurantId, items);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ItemRestaurantIndexTest {
+
+  private final ItemRestaurantIndex index = new ItemRestaurantIndex(
+      Arrays.asList(
+          item("i1", "1", "Chicken Biryani", "Non-Veg", "Spicy"),
+          item("i2", "2", "Veg Biryani", "Veg"),
+          item("i3", "3", "Gulab Jamun", "Veg", "Sweet")),
+      Arrays.asList(
+          menu("m1", "r1", "1", "3"),
+          menu("m2", "r2", "2"),
+          menu("m3", "r3", "3")));
+
+  @Test
+  public void itemNameWordsMatchAsSubstrings() {
+    assertEquals(Arrays.asList("r1", "r2"),
+        sorted(index.findRestaurantIdsByItemName("BIRYANI")));
+    assertEquals(Arrays.asList("r1"), index.findRestaurantIdsByItemName("chick"));
+    assertEquals(Arrays.asList("r1", "r3"),
+        sorted(index.findRestaurantIdsByItemName("jamun chick")));
+    assertEquals(Collections.emptyList(), index.findRestaurantIdsByItemName("pizza"));
+  }
+
+  @Test
+  public void wordsOfAnyLengthMatchAnywhereInsideTheIndexedWords() {
+    assertEquals(Arrays.asList("r1", "r2"), sorted(index.findRestaurantIdsByItemName("i")));
+    assertEquals(Arrays.asList("r1", "r3"), sorted(index.findRestaurantIdsByItemName("ja")));
+    assertEquals(Arrays.asList("r1", "r2"), sorted(index.findRestaurantIdsByItemName("rya")));
+    assertEquals(Arrays.asList("r1", "r2"), sorted(index.findRestaurantIdsByItemName("ryan")));
+    assertEquals(Collections.emptyList(), index.findRestaurantIdsByItemName("biryanis"));
+    assertEquals(Arrays.asList("r1", "r3"),
+        sorted(index.findRestaurantIdsByItemAttributes("wee")));
+  }
+
+  @Test
+  public void everyAttributeWordMustMatchTheSameItem() {
+    assertEquals(Arrays.asList("r1", "r3"),
+        sorted(index.findRestaurantIdsByItemAttributes("sweet veg")));
+    assertEquals(Arrays.asList("r1"), index.findRestaurantIdsByItemAttributes("spicy non"));
+    assertEquals(Collections.emptyList(), index.findRestaurantIdsByItemAttributes("spicy sweet"));
+  }
+
+  @Test
+  public void savesAndDeletesAreAppliedIncrementally() {
+    index.putItem(item("i2", "2", "Paneer Tikka", "Veg"));
+    assertEquals(Collections.emptyList(), index.findRestaurantIdsByItemName("veg"));
+    assertEquals(Arrays.asList("r2"), index.findRestaurantIdsByItemName("paneer"));
+
+    index.putMenu(menu("m2", "r2", "1"));
+    assertEquals(Arrays.asList("r1", "r2"), sorted(index.findRestaurantIdsByItemName("chicken")));
+    assertEquals(Collections.emptyList(), index.findRestaurantIdsByItemName("paneer"));
+
+    index.removeMenu("m1");
+    index.removeItem("i3");
+    assertEquals(Arrays.asList("r2"), index.findRestaurantIdsByItemName("chicken"));
+    assertEquals(Collections.emptyList(), index.findRestaurantIdsByItemName("jamun"));
+    assertEquals(Collections.emptyList(), index.findRestaurantIdsByItemName("amu"));
+  }
+
+  private static List<String> sorted(List<String> values) {
+    List<String> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private static ItemEntity item(String id, String itemId, String name, String... attributes) {
+    ItemEntity item = new ItemEntity();
+    item.setId(id);
+    item.setItemId(itemId);
+    item.setName(name);
+    item.setAttributes(Arrays.asList(attributes));
+    return item;
+  }
+
+  private static MenuEntity menu(String id, String restaurantId, String... itemIds) {
+    List<Item> items = new ArrayList<>();
+    for (String itemId : itemIds) {
+      Item item = new Item();
+      item.setItemId(itemId);
+      items.add(item);
+    }
+    return new MenuEntity(id, restaurantId, items);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.utils.OpeningHours;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class OpenNowIndexTest {
+
+  @Test
+  public void indexMatchesOpeningHoursAtEverySecondBoundary() {
+    Random random = new Random(42);
+    OpeningHours[] openingHours = new OpeningHours[500];
+    for (int i = 0; i < openingHours.length; i++) {
+      openingHours[i] = new OpeningHours(random.nextInt(OpeningHours.MINUTES_PER_DAY),
+          random.nextInt(OpeningHours.MINUTES_PER_DAY));
+    }
+    openingHours[0] = new OpeningHours(600, 600);
+    OpenNowIndex index = new OpenNowIndex(openingHours);
+
+    for (int minute = 0; minute < OpeningHours.MINUTES_PER_DAY; minute++) {
+      for (int second : new int[]{0, 30}) {
+        LocalTime time = LocalTime.of(minute / 60, minute % 60, second);
+        BitSet open = index.openAt(time);
+        for (int ordinal = 0; ordinal < openingHours.length; ordinal++) {
+          boolean expected = openingHours[ordinal].isOpenAt(time);
+          assertEquals(expected, open.get(ordinal), "ordinal " + ordinal + " at " + time);
+          assertEquals(expected, index.isOpen(ordinal, time), "ordinal " + ordinal + " at " + time);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void overnightWindowIsOpenOnBothSidesOfMidnight() {
+    OpenNowIndex index = new OpenNowIndex(new OpeningHours[]{OpeningHours.of("22:00", "02:00")});
+
+    assertEquals(true, index.isOpen(0, LocalTime.of(23, 30)));
+    assertEquals(true, index.isOpen(0, LocalTime.of(1, 59)));
+    assertEquals(false, index.isOpen(0, LocalTime.of(2, 0)));
+    assertEquals(false, index.isOpen(0, LocalTime.of(22, 0)));
+    assertEquals(false, index.isOpen(0, LocalTime.of(12, 0)));
+  }
+
+  @Test
+  public void nullTimeMatchesEveryRestaurantWhateverItsHours() {
+    OpenNowIndex index = new OpenNowIndex(new OpeningHours[]{OpeningHours.of("22:00", "02:00"),
+        OpeningHours.of("10:00", "10:00")});
+
+    assertEquals(2, index.openAt(null).cardinality());
+    assertEquals(true, index.isOpen(1, null));
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RestaurantAttributeIndexTest {
+
+  private final RestaurantAttributeIndex index = new RestaurantAttributeIndex(Arrays.asList(
+      Arrays.asList("North Indian", "Chinese"),
+      Arrays.asList("south indian"),
+      Collections.emptyList(),
+      null,
+      Arrays.asList("Italian", "Chinese", "Desserts")));
+
+  @Test
+  public void attributesAreDictionaryEncodedIgnoringCase() {
+    assertEquals(5, index.attributeCount());
+    assertEquals(5, index.size());
+  }
+
+  @Test
+  public void tokenMatchesEveryAttributeContainingIt() {
+    assertEquals(bits(0, 1), index.matching("INDIAN"));
+    assertEquals(bits(0, 1, 4), index.matching("ian"));
+    assertEquals(bits(), index.matching("thai"));
+  }
+
+  @Test
+  public void tokensAreIntersected() {
+    assertEquals(bits(0), index.matchingAll(Arrays.asList("indian", "chinese")));
+    assertEquals(bits(4), index.matchingAll(Arrays.asList("chinese", "desserts")));
+    assertEquals(bits(), index.matchingAll(Arrays.asList("south", "chinese")));
+    assertEquals(bits(), index.matchingAll(Collections.emptyList()));
+  }
+
+  private static BitSet bits(int... ordinals) {
+    BitSet bits = new BitSet();
+    for (int ordinal : ordinals) {
+      bits.set(ordinal);
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantCatalogTest {
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  @InjectMocks
+  private RestaurantCatalog restaurantCatalog;
+
+  private final List<Runnable> scheduled = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(restaurantCatalog, "cellSizeInDegrees", 0.05);
+    ReflectionTestUtils.setField(restaurantCatalog, "refreshIntervalInSeconds", 300L);
+    ReflectionTestUtils.setField(restaurantCatalog, "engine", "mongo");
+  }
+
+  @Test
+  public void staleSnapshotsAreServedWhileTheRefreshRunsInTheBackground() {
+    when(restaurantRepository.findAll()).thenReturn(
+        Collections.singletonList(restaurant("1", "A2B")));
+    doAnswer(invocation -> {
+      scheduled.add(invocation.getArgument(0));
+      return null;
+    }).when(taskScheduler).schedule(any(Runnable.class), any(Date.class));
+    RestaurantCatalog.Snapshot previous = restaurantCatalog.getSnapshot();
+    // Every snapshot is stale from now on.
+    ReflectionTestUtils.setField(restaurantCatalog, "refreshIntervalInSeconds", -1L);
+    when(restaurantRepository.findAll()).thenReturn(
+        Arrays.asList(restaurant("1", "A2B"), restaurant("2", "Olive Garden")));
+
+    assertSame(previous, restaurantCatalog.getSnapshot());
+    assertSame(previous, restaurantCatalog.getSnapshot());
+    assertEquals(1, scheduled.size());
+    verify(restaurantRepository, times(1)).findAll();
+
+    scheduled.get(0).run();
+    RestaurantCatalog.Snapshot refreshed = restaurantCatalog.peekSnapshot();
+    assertEquals(2, refreshed.getRestaurants().size());
+    assertSame(refreshed, restaurantCatalog.getSnapshot());
+    assertEquals(2, scheduled.size());
+  }
+
+  @Test
+  public void failedRefreshesKeepThePreviousSnapshot() {
+    when(restaurantRepository.findAll()).thenReturn(
+        Collections.singletonList(restaurant("1", "A2B")));
+    RestaurantCatalog.Snapshot previous = restaurantCatalog.getSnapshot();
+    when(restaurantRepository.findAll()).thenThrow(new IllegalStateException("timed out"));
+
+    restaurantCatalog.refresh();
+
+    assertSame(previous, restaurantCatalog.peekSnapshot());
+  }
+
+  @Test
+  public void onlyTheSpatialIndexEngineLoadsTheCatalogAtStartup() {
+    restaurantCatalog.warmUp();
+    assertNull(restaurantCatalog.peekSnapshot());
+    verifyZeroInteractions(restaurantRepository);
+
+    when(restaurantRepository.findAll()).thenReturn(
+        Collections.singletonList(restaurant("1", "A2B")));
+    ReflectionTestUtils.setField(restaurantCatalog, "engine", "spatial-index");
+    restaurantCatalog.warmUp();
+    assertNotNull(restaurantCatalog.peekSnapshot());
+  }
+
+  private static RestaurantEntity restaurant(String restaurantId, String name) {
+    RestaurantEntity restaurant = new RestaurantEntity();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setName(name);
+    restaurant.setLatitude(20.0);
+    restaurant.setLongitude(30.0);
+    restaurant.setOpensAt("10:00");
+    restaurant.setClosesAt("22:00");
+    restaurant.setAttributes(new ArrayList<>());
+    return restaurant;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class RestaurantNameIndexTest {
+
+  private static final String[] WORDS = {"biryani", "pizza", "house", "the", "spice", "curry",
+      "garden", "express", "bar", "cafe", "a2b", "rr", "dosa"};
+
+  @Test
+  public void substringQueryMatchesBruteForce() {
+    Random random = new Random(42);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      StringBuilder name = new StringBuilder();
+      for (int word = 0; word <= random.nextInt(3); word++) {
+        String next = WORDS[random.nextInt(WORDS.length)];
+        name.append(word == 0 ? "" : " ")
+            .append(random.nextBoolean() ? next.toUpperCase(Locale.ROOT) : next);
+      }
+      names.add(name.toString());
+    }
+    RestaurantNameIndex index = new RestaurantNameIndex(names);
+
+    List<String> queries = new ArrayList<>(Arrays.asList(WORDS));
+    queries.addAll(Arrays.asList("Pizza House", "zza", "a", "ri", "e b", "curry garden",
+        "yani pi", "xyz", "house house"));
+    for (String query : queries) {
+      String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+      int[] expected = IntStream.range(0, names.size())
+          .filter(i -> names.get(i).toLowerCase(Locale.ROOT).contains(lowerCaseQuery))
+          .toArray();
+      assertArrayEquals(expected, index.findContaining(query), query);
+    }
+  }
+
+  @Test
+  public void exactQueryIgnoresCaseOnly() {
+    RestaurantNameIndex index = new RestaurantNameIndex(
+        Arrays.asList("Pizza Hut", "pizza hut", "Pizza Hut Express", null, "Dominos"));
+
+    assertArrayEquals(new int[] {0, 1}, index.findExact("PIZZA HUT"));
+    assertArrayEquals(new int[] {}, index.findExact("Pizza"));
+    assertArrayEquals(new int[] {0, 1, 2}, index.findContaining("zza h"));
+  }
+
+  @Test
+  public void queryIsMatchedLiterallyRatherThanAsARegex() {
+    RestaurantNameIndex index = new RestaurantNameIndex(
+        Arrays.asList("A.B. Cafe", "AxB Cafe", "Cafe (Coffee Day)"));
+
+    assertArrayEquals(new int[] {0}, index.findContaining("a.b."));
+    assertArrayEquals(new int[] {2}, index.findContaining("(coffee"));
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.utils.GeoUtils;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class RestaurantSpatialIndexTest {
+
+  @Test
+  public void radiusQueryMatchesBruteForce() {
+    Random random = new Random(42);
+    int count = 5000;
+    double[] latitudes = new double[count];
+    double[] longitudes = new double[count];
+    for (int i = 0; i < count; i++) {
+      latitudes[i] = 12.9 + random.nextDouble() * 0.5;
+      longitudes[i] = 77.5 + random.nextDouble() * 0.5;
+    }
+    RestaurantSpatialIndex index = new RestaurantSpatialIndex(latitudes, longitudes, 0.05);
+
+    for (int query = 0; query < 50; query++) {
+      double latitude = 12.9 + random.nextDouble() * 0.5;
+      double longitude = 77.5 + random.nextDouble() * 0.5;
+      double radius = query % 2 == 0 ? 3.0 : 5.0;
+
+      int[] expected = IntStream.range(0, count)
+          .filter(i -> GeoUtils.findDistanceInKm(latitude, longitude,
+              latitudes[i], longitudes[i]) < radius)
+          .toArray();
+
+      assertArrayEquals(expected, index.findWithinRadius(latitude, longitude, radius));
+    }
+  }
+
+  @Test
+  public void queryAcrossTheAntimeridian() {
+    double[] latitudes = {10.0, 10.0, 10.0};
+    double[] longitudes = {179.99, -179.99, 0.0};
+    RestaurantSpatialIndex index = new RestaurantSpatialIndex(latitudes, longitudes, 0.05);
+
+    assertArrayEquals(new int[]{0, 1}, index.findWithinRadius(10.0, 179.999, 5.0));
+  }
+
+  @Test
+  public void emptyIndexReturnsNoRestaurants() {
+    RestaurantSpatialIndex index = new RestaurantSpatialIndex(new double[0], new double[0], 0.05);
+
+    assertEquals(0, index.findWithinRadius(20.0, 30.0, 5.0).length);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SpellingIndexTest {
+
+  private final SpellingIndex index = new SpellingIndex(vocabulary(
+      "biryani", 5, "paneer", 3, "tikka", 4, "chinese", 2, "pizza", 6, "pasta", 2,
+      "dosa", 3, "tikki", 1, "butterscotch", 1, "tea", 2, "margherita", 1, "margarita", 5));
+
+  @Test
+  public void knownWordsAreKept() {
+    assertEquals("biryani", index.correct("Biryani"));
+    assertEquals("tea", index.correct("tea"));
+  }
+
+  @Test
+  public void misspeltWordsAreCorrectedWithinTheirDistance() {
+    assertEquals("biryani", index.correct("biriyani"));
+    assertEquals("paneer", index.correct("panner"));
+    assertEquals("chinese", index.correct("chineese"));
+    assertEquals("butterscotch", index.correct("buterscoth"));
+    assertEquals("dosa", index.correct("dossa"));
+  }
+
+  @Test
+  public void wordsTooFarOrTooShortAreNotCorrected() {
+    assertNull(index.correct("pazzo"));
+    assertNull(index.correct("bryni"));
+    assertNull(index.correct("tee"));
+    assertNull(index.correct("burger"));
+  }
+
+  @Test
+  public void closerThenMoreFrequentWordsWin() {
+    assertEquals("margherita", index.correct("margheita"));
+    assertEquals("margarita", index.correct("margerita"));
+    assertEquals("tikka", index.correct("tikke"));
+  }
+
+  @Test
+  public void wordsInsideVocabularyWordsAreFound() {
+    assertTrue(index.occursInAnyWord("BIR"));
+    assertTrue(index.occursInAnyWord("scot"));
+    assertTrue(index.occursInAnyWord("rita"));
+    assertTrue(index.occursInAnyWord("tea"));
+    assertFalse(index.occursInAnyWord("teas"));
+    assertFalse(index.occursInAnyWord("pizzas"));
+    assertFalse(index.occursInAnyWord("burger"));
+  }
+
+  @Test
+  public void closestCandidatesAreCheckedWhateverTheirNumber() {
+    // Hundreds of words two edits away share deletes with the query; the one a single edit
+    // away must still be found.
+    Map<String, Integer> frequenciesByWord = new HashMap<>();
+    for (char third = 'a'; third <= 'z'; third++) {
+      for (char fourth = 'a'; fourth <= 'z'; fourth++) {
+        if (third != 'g' && fourth != 'z') {
+          frequenciesByWord.put("abcdef" + third + fourth, 1);
+        }
+      }
+    }
+    frequenciesByWord.put("abcdefgh", 2);
+    SpellingIndex crowded = new SpellingIndex(frequenciesByWord);
+
+    assertEquals("abcdefgh", crowded.correct("abcdefgz"));
+  }
+
+  @Test
+  public void distanceStopsAtTheBound() {
+    assertEquals(2, SpellingIndex.distance("biriyani", "biryan", 5));
+    assertEquals(2, SpellingIndex.distance("kitten", "sitting", 1));
+    assertEquals(3, SpellingIndex.distance("kitten", "sitting", 3));
+  }
+
+  private static Map<String, Integer> vocabulary(Object... wordsAndFrequencies) {
+    Map<String, Integer> frequenciesByWord = new HashMap<>();
+    for (int i = 0; i < wordsAndFrequencies.length; i += 2) {
+      frequenciesByWord.put((String) wordsAndFrequencies[i], (Integer) wordsAndFrequencies[i + 1]);
+    }
+    return frequenciesByWord;
+  }
+}
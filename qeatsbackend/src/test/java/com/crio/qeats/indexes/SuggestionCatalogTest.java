@@ -0,0 +1,103 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestionCatalogTest {
+
+  @Mock
+  private RestaurantCatalog restaurantCatalog;
+
+  @Mock
+  private MenuRepository menuRepository;
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  @InjectMocks
+  private SuggestionCatalog suggestionCatalog;
+
+  private final List<Runnable> scheduled = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(suggestionCatalog, "regionPrecision", 4);
+    ReflectionTestUtils.setField(suggestionCatalog, "engine", "mongo");
+  }
+
+  @Test
+  public void newSnapshotsAreIndexedInTheBackgroundWhileThePreviousIndexIsServed() {
+    doAnswer(invocation -> {
+      scheduled.add(invocation.getArgument(0));
+      return null;
+    }).when(taskScheduler).schedule(any(Runnable.class), any(Date.class));
+    when(menuRepository.findAll()).thenReturn(Collections.emptyList());
+    when(restaurantCatalog.getSnapshot()).thenReturn(snapshot("Biryani House"));
+    SuggestionIndex previous = suggestionCatalog.getIndex();
+
+    when(restaurantCatalog.getSnapshot()).thenReturn(snapshot("Biryani House", "Birdie"));
+    assertEquals(previous, suggestionCatalog.getIndex());
+    assertEquals(previous, suggestionCatalog.getIndex());
+    assertEquals(1, scheduled.size());
+    verify(menuRepository, times(1)).findAll();
+
+    scheduled.get(0).run();
+    assertEquals(2, suggestions(suggestionCatalog.getIndex(), "bir").size());
+    assertEquals(1, scheduled.size());
+  }
+
+  @Test
+  public void warmUpLeavesTheCatalogAloneUnlessTheEngineKeepsItResident() {
+    suggestionCatalog.warmUp();
+
+    verifyZeroInteractions(restaurantCatalog, menuRepository);
+  }
+
+  private List<Suggestion> suggestions(SuggestionIndex index, String prefix) {
+    return index.suggest(suggestionCatalog.regionsAround(20.0, 30.0), prefix, 10);
+  }
+
+  private static RestaurantCatalog.Snapshot snapshot(String... names) {
+    List<RestaurantEntity> restaurants = new ArrayList<>();
+    for (String name : names) {
+      RestaurantEntity restaurant = new RestaurantEntity();
+      restaurant.setRestaurantId(String.valueOf(restaurants.size()));
+      restaurant.setName(name);
+      restaurant.setLatitude(20.0);
+      restaurant.setLongitude(30.0);
+      restaurant.setOpensAt("10:00");
+      restaurant.setClosesAt("22:00");
+      restaurant.setAttributes(new ArrayList<>());
+      restaurants.add(restaurant);
+    }
+    return new RestaurantCatalog.Snapshot(restaurants, 0.05);
+  }
+}
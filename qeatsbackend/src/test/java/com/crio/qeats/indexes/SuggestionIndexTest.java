@@ -0,0 +1,62 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.indexes.SuggestionIndex.Kind;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SuggestionIndexTest {
+
+  private final SuggestionIndex index = new SuggestionIndex.Builder()
+      .add("tdr1", Kind.ITEM, "Chicken Biryani")
+      .add("tdr1", Kind.ITEM, "chicken biryani")
+      .add("tdr1", Kind.ITEM, "Chicken Biryani")
+      .add("tdr1", Kind.RESTAURANT, "Biryani Blues")
+      .add("tdr1", Kind.CUISINE, "Bengali")
+      .add("tdr2", Kind.RESTAURANT, "Biryani Blues")
+      .add("tdr2", Kind.RESTAURANT, "Biryani Blues")
+      .add("tdr2", Kind.ITEM, "Bisi Bele Bath")
+      .add("ttn1", Kind.ITEM, "Bread Omelette")
+      .build();
+
+  @Test
+  public void suggestionsAreRankedByPopularityAcrossRegions() {
+    assertEquals(Arrays.asList(
+        new Suggestion("Biryani Blues", "restaurant", 3),
+        new Suggestion("Bengali", "cuisine", 1),
+        new Suggestion("Bisi Bele Bath", "item", 1)),
+        index.suggest(Arrays.asList("tdr1", "tdr2"), "B", 10));
+
+    assertEquals(Collections.singletonList(new Suggestion("Chicken Biryani", "item", 3)),
+        index.suggest(Arrays.asList("tdr1", "tdr2"), "chi", 10));
+  }
+
+  @Test
+  public void suggestionsAreScopedToTheGivenRegions() {
+    List<Suggestion> suggestions = index.suggest(Collections.singletonList("tdr2"), "b", 10);
+    assertEquals(Arrays.asList(
+        new Suggestion("Biryani Blues", "restaurant", 2),
+        new Suggestion("Bisi Bele Bath", "item", 1)), suggestions);
+
+    assertEquals(Collections.emptyList(),
+        index.suggest(Collections.singletonList("unknown"), "b", 10));
+  }
+
+  @Test
+  public void limitKeepsTheMostPopular() {
+    assertEquals(Collections.singletonList(new Suggestion("Biryani Blues", "restaurant", 3)),
+        index.suggest(Arrays.asList("tdr1", "tdr2", "ttn1"), "b", 1));
+    assertEquals(Collections.emptyList(),
+        index.suggest(Arrays.asList("tdr1", "tdr2", "ttn1"), "pizza", 10));
+  }
+}
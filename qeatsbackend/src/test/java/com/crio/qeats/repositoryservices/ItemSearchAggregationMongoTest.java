@@ -0,0 +1,117 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class ItemSearchAggregationMongoTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private ItemSearchAggregation itemSearchAggregation;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    for (RestaurantEntity restaurantEntity : fixture("initial_data_set_restaurants.json",
+        new TypeReference<List<RestaurantEntity>>() {})) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+    // Every menu serves item 1, under a different name; item 2 is on no menu.
+    for (MenuEntity menuEntity : fixture("initial_data_set_menus.json",
+        new TypeReference<List<MenuEntity>>() {})) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+    ItemEntity biryani = new ItemEntity();
+    biryani.setItemId("1");
+    biryani.setName("Chicken Briyani");
+    biryani.setImageUrl("www.google.com");
+    biryani.setPrice(225.0);
+    biryani.setAttributes(Collections.singletonList("Mughal"));
+    mongoTemplate.save(biryani, "items");
+    mongoTemplate.save(fixture("item_dosai.json", new TypeReference<ItemEntity>() {}), "items");
+  }
+
+  @AfterEach
+  public void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
+    mongoTemplate.dropCollection("items");
+  }
+
+  @Test
+  public void restaurantsServingMatchingItemsAreJoinedAndNarrowedToTheBox() {
+    List<RestaurantEntity> restaurants = itemSearchAggregation.findRestaurantsServingItems(
+        ItemSearchAggregation.itemNameCriteria("briyani"), 20.0, 30.0, 3.0);
+
+    assertEquals(Arrays.asList("11", "12"), sortedIds(restaurants));
+    RestaurantEntity restaurant = restaurants.stream()
+        .filter(entity -> "11".equals(entity.getRestaurantId())).findFirst().get();
+    assertEquals("A2B", restaurant.getName());
+    assertEquals("18:00", restaurant.getOpensAt());
+    assertEquals("23:00", restaurant.getClosesAt());
+  }
+
+  @Test
+  public void restaurantIdsServingItemsWithTheAttributesAreFoundAnywhere() {
+    List<String> restaurantIds = itemSearchAggregation.findRestaurantIdsServingItems(
+        ItemSearchAggregation.itemAttributesCriteria("mughal"));
+
+    Collections.sort(restaurantIds);
+    assertEquals(Arrays.asList("11", "12", "13"), restaurantIds);
+  }
+
+  @Test
+  public void itemsOnNoMenuMatchNoRestaurant() {
+    assertEquals(Collections.emptyList(), itemSearchAggregation.findRestaurantsServingItems(
+        ItemSearchAggregation.itemNameCriteria("dosai"), 20.0, 30.0, 3.0));
+    assertEquals(Collections.emptyList(), itemSearchAggregation.findRestaurantIdsServingItems(
+        ItemSearchAggregation.itemNameCriteria("pizza")));
+  }
+
+  private static List<String> sortedIds(List<RestaurantEntity> restaurants) {
+    List<String> restaurantIds = restaurants.stream().map(RestaurantEntity::getRestaurantId)
+        .collect(Collectors.toCollection(ArrayList::new));
+    Collections.sort(restaurantIds);
+    return restaurantIds;
+  }
+
+  private <T> T fixture(String name, TypeReference<T> type) throws IOException {
+    return objectMapper.readValue(FixtureHelpers.fixture(FIXTURES + "/" + name), type);
+  }
+}
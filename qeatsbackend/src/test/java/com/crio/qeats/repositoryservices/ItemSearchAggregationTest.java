@@ -0,0 +1,46 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class ItemSearchAggregationTest {
+
+  @Test
+  public void boundingBoxContainsTheServingCircle() {
+    Document box = ItemSearchAggregation.boundingBox(12.9, 77.6, 5.0).getCriteriaObject();
+
+    Document latitude = (Document) box.get("latitude");
+    Document longitude = (Document) box.get("longitude");
+    assertEquals(12.9 - 5.0 / 111.32, (double) latitude.get("$gte"), 1e-9);
+    assertEquals(12.9 + 5.0 / 111.32, (double) latitude.get("$lte"), 1e-9);
+    assertTrue((double) longitude.get("$gte") < 77.6 - 5.0 / 111.32);
+    assertTrue((double) longitude.get("$lte") > 77.6 + 5.0 / 111.32);
+  }
+
+  @Test
+  public void boundingBoxDropsLongitudeAcrossTheAntimeridian() {
+    Document box = ItemSearchAggregation.boundingBox(10.0, 179.99, 5.0).getCriteriaObject();
+
+    assertTrue(box.containsKey("latitude"));
+    assertFalse(box.containsKey("longitude"));
+  }
+
+  @Test
+  public void everyAttributeWordIsAnAndedCriterion() {
+    Document criteria = ItemSearchAggregation.itemAttributesCriteria("spicy veg")
+        .getCriteriaObject();
+
+    assertEquals(2, ((List<?>) criteria.get("$and")).size());
+  }
+}
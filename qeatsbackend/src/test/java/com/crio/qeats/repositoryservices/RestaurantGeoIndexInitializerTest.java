@@ -0,0 +1,112 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class},
+    properties = {"qeats.repository.engine=mongo-geo"})
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantGeoIndexInitializerTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantGeoIndexInitializer restaurantGeoIndexInitializer;
+
+  @Autowired
+  private RestaurantRepositoryServiceMongoGeoImpl restaurantRepositoryServiceMongoGeoImpl;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @AfterEach
+  public void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+  }
+
+  @Test
+  public void restaurantsSavedAfterStartupGetALocation() throws IOException {
+    RestaurantEntity restaurantEntity = listOfRestaurants().get(0);
+    mongoTemplate.save(restaurantEntity, "restaurants");
+
+    assertEquals(Arrays.asList(30.0, 20.027), coordinatesOf(restaurantEntity.getRestaurantId()));
+
+    restaurantEntity.setLatitude(21.0);
+    mongoTemplate.save(restaurantEntity, "restaurants");
+
+    assertEquals(Arrays.asList(30.0, 21.0), coordinatesOf(restaurantEntity.getRestaurantId()));
+  }
+
+  @Test
+  public void restaurantsSavedAfterStartupAreFoundCloseBy() throws IOException {
+    for (RestaurantEntity restaurantEntity : listOfRestaurants()) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+
+    List<String> restaurantIds = restaurantRepositoryServiceMongoGeoImpl
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0).stream()
+        .map(Restaurant::getRestaurantId).sorted().collect(Collectors.toList());
+
+    assertEquals(Arrays.asList("11", "12"), restaurantIds);
+  }
+
+  @Test
+  public void backfillSetsLocationsWrittenOutsideSpringData() {
+    mongoTemplate.insert(new Document("restaurantId", "99").append("latitude", 20.0)
+        .append("longitude", 30.0), "restaurants");
+    assertNull(coordinatesOf("99"));
+
+    assertEquals(1, restaurantGeoIndexInitializer.backfillLocations());
+    assertEquals(Arrays.asList(30.0, 20.0), coordinatesOf("99"));
+    assertEquals(0, restaurantGeoIndexInitializer.backfillLocations());
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Double> coordinatesOf(String restaurantId) {
+    Document restaurant = mongoTemplate.findOne(
+        new Query(Criteria.where("restaurantId").is(restaurantId)), Document.class,
+        "restaurants");
+    Document location = (Document) restaurant.get("location");
+    return location == null ? null : (List<Double>) location.get("coordinates");
+  }
+
+  private List<RestaurantEntity> listOfRestaurants() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
+
+    return objectMapper.readValue(fixture, new TypeReference<List<RestaurantEntity>>() {
+    });
+  }
+}
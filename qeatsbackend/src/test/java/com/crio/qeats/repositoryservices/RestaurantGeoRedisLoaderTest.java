@@ -0,0 +1,160 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantGeoRedisLoaderTest {
+
+  private static final String STAGING_GEO_KEY = RestaurantGeoRedisLoader.GEO_KEY + ":staging";
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private RedisConfiguration redisConfiguration;
+
+  @Mock
+  private JedisPool jedisPool;
+
+  @Mock
+  private Jedis jedis;
+
+  @Mock
+  private Pipeline pipeline;
+
+  @InjectMocks
+  private RestaurantGeoRedisLoader restaurantGeoRedisLoader;
+
+  @BeforeEach
+  public void selectEngine() {
+    ReflectionTestUtils.setField(restaurantGeoRedisLoader, "engine",
+        RestaurantGeoRedisLoader.REDIS_GEO_ENGINE);
+  }
+
+  @Test
+  public void loadSwapsTheSetIntoPlaceAndDropsRemovedRestaurants() {
+    stubRedis();
+    when(restaurantRepository.findAll())
+        .thenReturn(Arrays.asList(restaurant("1"), restaurant("2")));
+    when(jedis.zrange(RestaurantGeoRedisLoader.GEO_KEY, 0, -1))
+        .thenReturn(new HashSet<>(Arrays.asList("1", "3")));
+
+    assertEquals(2, restaurantGeoRedisLoader.load());
+
+    InOrder inOrder = inOrder(jedis, pipeline);
+    inOrder.verify(jedis).del(STAGING_GEO_KEY);
+    inOrder.verify(pipeline).geoadd(eq(STAGING_GEO_KEY),
+        argThat(coordinates -> coordinates.keySet().equals(
+            new HashSet<>(Arrays.asList("1", "2")))));
+    inOrder.verify(pipeline).sync();
+    inOrder.verify(jedis).rename(STAGING_GEO_KEY, RestaurantGeoRedisLoader.GEO_KEY);
+    inOrder.verify(jedis).del(new String[] {RestaurantGeoRedisLoader.RESTAURANT_KEY_PREFIX + "3"});
+    verify(pipeline).hmset(eq(RestaurantGeoRedisLoader.RESTAURANT_KEY_PREFIX + "1"), anyMap());
+    verify(pipeline).hmset(eq(RestaurantGeoRedisLoader.RESTAURANT_KEY_PREFIX + "2"), anyMap());
+    assertTrue(restaurantGeoRedisLoader.isLoaded());
+  }
+
+  @Test
+  public void emptyCollectionClearsTheSetAndCountsAsLoaded() {
+    stubRedis();
+    when(restaurantRepository.findAll()).thenReturn(Collections.emptyList());
+    when(jedis.zrange(RestaurantGeoRedisLoader.GEO_KEY, 0, -1)).thenReturn(new HashSet<>());
+
+    assertEquals(0, restaurantGeoRedisLoader.load());
+
+    verify(jedis).del(RestaurantGeoRedisLoader.GEO_KEY);
+    verify(jedis, never()).rename(anyString(), anyString());
+    assertTrue(restaurantGeoRedisLoader.isLoaded());
+  }
+
+  @Test
+  public void failedReloadKeepsThePreviousCopy() {
+    stubRedis();
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(restaurant("1")))
+        .thenThrow(new IllegalStateException("mongo is down"));
+    when(jedis.zrange(RestaurantGeoRedisLoader.GEO_KEY, 0, -1)).thenReturn(new HashSet<>());
+
+    restaurantGeoRedisLoader.reload();
+    restaurantGeoRedisLoader.reload();
+
+    assertTrue(restaurantGeoRedisLoader.isLoaded());
+  }
+
+  @Test
+  public void reloadIsSkippedForOtherEngines() {
+    ReflectionTestUtils.setField(restaurantGeoRedisLoader, "engine", "mongo");
+
+    restaurantGeoRedisLoader.reload();
+
+    verifyZeroInteractions(restaurantRepository, redisConfiguration);
+    assertFalse(restaurantGeoRedisLoader.isLoaded());
+  }
+
+  @Test
+  public void flushingRedisMarksTheCopyAsMissing() {
+    stubRedis();
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(restaurant("1")));
+    when(jedis.zrange(RestaurantGeoRedisLoader.GEO_KEY, 0, -1)).thenReturn(new HashSet<>());
+    restaurantGeoRedisLoader.registerFlushListener();
+    ArgumentCaptor<Runnable> flushListener = ArgumentCaptor.forClass(Runnable.class);
+    verify(redisConfiguration).addFlushListener(flushListener.capture());
+
+    restaurantGeoRedisLoader.load();
+    flushListener.getValue().run();
+
+    assertFalse(restaurantGeoRedisLoader.isLoaded());
+  }
+
+  private void stubRedis() {
+    when(redisConfiguration.getJedisPool()).thenReturn(jedisPool);
+    when(jedisPool.getResource()).thenReturn(jedis);
+    when(jedis.pipelined()).thenReturn(pipeline);
+  }
+
+  private static RestaurantEntity restaurant(String restaurantId) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName("Restaurant " + restaurantId);
+    restaurantEntity.setLatitude(20.0);
+    restaurantEntity.setLongitude(30.0);
+    restaurantEntity.setOpensAt("18:00");
+    restaurantEntity.setClosesAt("23:00");
+    return restaurantEntity;
+  }
+}
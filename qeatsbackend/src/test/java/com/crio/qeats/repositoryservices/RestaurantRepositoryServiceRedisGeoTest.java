@@ -0,0 +1,143 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.Bulkhead;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.GeoCoordinate;
+import redis.clients.jedis.GeoRadiusResponse;
+import redis.clients.jedis.GeoUnit;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.geo.GeoRadiusParam;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantRepositoryServiceRedisGeoTest {
+
+  private static final LocalTime TIME = LocalTime.of(18, 1);
+
+  @Mock
+  private RedisConfiguration redisConfiguration;
+
+  @Mock
+  private JedisPool jedisPool;
+
+  @Mock
+  private Jedis jedis;
+
+  @Mock
+  private Pipeline pipeline;
+
+  @Mock
+  private RestaurantGeoRedisLoader restaurantGeoRedisLoader;
+
+  @Mock
+  private RestaurantRepositoryServiceImpl restaurantRepositoryServiceImpl;
+
+  @Mock
+  private Response<Map<String, String>> openHash;
+
+  @Mock
+  private Response<Map<String, String>> closedHash;
+
+  @InjectMocks
+  private RestaurantRepositoryServiceRedisGeoImpl restaurantRepositoryService;
+
+  @BeforeEach
+  public void setBulkhead() {
+    ReflectionTestUtils.setField(restaurantRepositoryService, "redisBulkhead",
+        new Bulkhead("redis", 4, 0, 0, 1));
+  }
+
+  @Test
+  public void restaurantsCloseByAreServedFromRedisOnceLoaded() {
+    when(restaurantGeoRedisLoader.isLoaded()).thenReturn(true);
+    when(redisConfiguration.getJedisPool()).thenReturn(jedisPool);
+    when(jedisPool.getResource()).thenReturn(jedis);
+    when(jedis.pipelined()).thenReturn(pipeline);
+    // Redis measures with a slightly larger earth radius, so restaurant 10 at 3.002km comes
+    // back from GEORADIUS and has to be cut in Java.
+    when(jedis.georadius(eq(RestaurantGeoRedisLoader.GEO_KEY), eq(30.0), eq(20.0), anyDouble(),
+        eq(GeoUnit.KM), any(GeoRadiusParam.class))).thenReturn(Arrays.asList(
+            nearby("11", 20.0269, 30.0), nearby("10", 20.027, 30.0), nearby("12", 20.015, 30.015)));
+    when(pipeline.hgetAll(RestaurantGeoRedisLoader.RESTAURANT_KEY_PREFIX + "11"))
+        .thenReturn(openHash);
+    doReturn(closedHash).when(pipeline)
+        .hgetAll(RestaurantGeoRedisLoader.RESTAURANT_KEY_PREFIX + "12");
+    when(openHash.get()).thenReturn(
+        RestaurantGeoRedisLoader.toHash(restaurant("11", 20.0269, 30.0, "18:00")));
+    when(closedHash.get()).thenReturn(
+        RestaurantGeoRedisLoader.toHash(restaurant("12", 20.015, 30.015, "19:00")));
+
+    List<String> restaurantIds = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, TIME, 3.0).stream()
+        .map(Restaurant::getRestaurantId)
+        .collect(Collectors.toList());
+
+    assertEquals(Collections.singletonList("11"), restaurantIds);
+    verifyZeroInteractions(restaurantRepositoryServiceImpl);
+  }
+
+  @Test
+  public void restaurantsCloseByAreReadFromMongoUntilLoaded() {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId("11");
+    when(restaurantGeoRedisLoader.isLoaded()).thenReturn(false);
+    when(restaurantRepositoryServiceImpl.findAllRestaurantsCloseBy(20.0, 30.0, TIME, 3.0))
+        .thenReturn(Collections.singletonList(restaurant));
+
+    List<Restaurant> restaurants = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, TIME, 3.0);
+
+    assertEquals(Collections.singletonList(restaurant), restaurants);
+    verifyZeroInteractions(redisConfiguration);
+  }
+
+  private static GeoRadiusResponse nearby(String restaurantId, double latitude,
+      double longitude) {
+    GeoRadiusResponse response = new GeoRadiusResponse(restaurantId.getBytes());
+    response.setCoordinate(new GeoCoordinate(longitude, latitude));
+    return response;
+  }
+
+  private static RestaurantEntity restaurant(String restaurantId, double latitude,
+      double longitude, String opensAt) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName("Restaurant " + restaurantId);
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(longitude);
+    restaurantEntity.setOpensAt(opensAt);
+    restaurantEntity.setClosesAt("23:00");
+    return restaurantEntity;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.indexes.OpenNowIndex;
+import com.crio.qeats.indexes.RestaurantAttributeIndex;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantRepositoryServiceSpatialIndexImplTest {
+
+  @Mock
+  private RestaurantCatalog restaurantCatalog;
+
+  @Mock
+  private RestaurantCatalog.Snapshot snapshot;
+
+  @Mock
+  private RestaurantAttributeIndex attributeIndex;
+
+  @Mock
+  private OpenNowIndex openNowIndex;
+
+  @InjectMocks
+  private RestaurantRepositoryServiceSpatialIndexImpl restaurantRepositoryService;
+
+  @Test
+  public void attributeSearchesMatchTheDistinctWordsOfTheSearchString() {
+    when(restaurantCatalog.getSnapshot()).thenReturn(snapshot);
+    when(snapshot.getAttributeIndex()).thenReturn(attributeIndex);
+    when(snapshot.getOpenNowIndex()).thenReturn(openNowIndex);
+    when(attributeIndex.matchingAll(any())).thenReturn(new BitSet());
+    when(openNowIndex.openAt(any())).thenReturn(new BitSet());
+
+    assertEquals(Collections.emptyList(), restaurantRepositoryService.findRestaurantsByAttributes(
+        20.0, 30.0, "  North   Indian north ", LocalTime.of(20, 0), 5.0));
+
+    verify(attributeIndex).matchingAll(Arrays.asList("North", "Indian"));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.indexes.SpellingCatalog;
+import com.crio.qeats.repositoryservices.ReactiveRestaurantRepositoryService;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveRestaurantServiceImplTest {
+
+  private static final LocalTime TIME = LocalTime.of(20, 0);
+
+  @Mock
+  private ReactiveRestaurantRepositoryService reactiveRestaurantRepositoryService;
+
+  @Mock
+  private SpellingCatalog spellingCatalog;
+
+  @InjectMocks
+  private ReactiveRestaurantServiceImpl reactiveRestaurantService;
+
+  @BeforeEach
+  public void setDeadline() {
+    ReflectionTestUtils.setField(reactiveRestaurantService, "deadlineInMillis", 300L);
+  }
+
+  @Test
+  public void sourcesAreMergedAndDeduplicated() {
+    stubSources(Flux.just(restaurant("1"), restaurant("2")), Flux.just(restaurant("2")),
+        Flux.just(restaurant("3")), Flux.just(restaurant("1"), restaurant("4")));
+
+    GetRestaurantsResponse response = reactiveRestaurantService
+        .findRestaurantsBySearchQuery(request(), TIME).block();
+
+    assertEquals(Arrays.asList("1", "2", "3", "4"), sortedIds(response.getRestaurants()));
+    assertNull(response.getPartial());
+  }
+
+  @Test
+  public void slowSourcesAreCancelledAtTheDeadline() {
+    AtomicBoolean cancelled = new AtomicBoolean();
+    stubSources(Flux.just(restaurant("1")), Flux.just(restaurant("2")),
+        Flux.just(restaurant("3")),
+        Flux.just(restaurant("4")).delayElements(Duration.ofSeconds(10))
+            .doOnCancel(() -> cancelled.set(true)));
+
+    long start = System.nanoTime();
+    GetRestaurantsResponse response = reactiveRestaurantService
+        .findRestaurantsBySearchQuery(request(), TIME).block();
+    long elapsedInMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+    assertEquals(Arrays.asList("1", "2", "3"), sortedIds(response.getRestaurants()));
+    assertTrue(response.getPartial());
+    assertTrue(cancelled.get());
+    assertTrue(elapsedInMillis < 1000, "took " + elapsedInMillis + "ms");
+  }
+
+  @Test
+  public void failedSourcesLeaveAPartialResponse() {
+    stubSources(Flux.just(restaurant("1")), Flux.error(new IllegalStateException("reset")),
+        Flux.just(restaurant("3")), Flux.just(restaurant("4")));
+
+    GetRestaurantsResponse response = reactiveRestaurantService
+        .findRestaurantsBySearchQuery(request(), TIME).block();
+
+    assertEquals(Arrays.asList("1", "3", "4"), sortedIds(response.getRestaurants()));
+    assertTrue(response.getPartial());
+  }
+
+  @Test
+  public void fuzzySearchesAreCorrectedOnlyOnceSubscribed() {
+    stubSources(Flux.just(restaurant("1")), Flux.empty(), Flux.empty(), Flux.empty());
+    when(spellingCatalog.correct("biriyani")).thenReturn("biryani");
+    GetRestaurantsRequest request = request();
+    request.setSearchFor("biriyani");
+    request.setFuzzy(true);
+
+    Mono<GetRestaurantsResponse> response = reactiveRestaurantService
+        .findRestaurantsBySearchQuery(request, TIME);
+    verifyZeroInteractions(spellingCatalog);
+
+    assertEquals(Arrays.asList("1"), sortedIds(response.block().getRestaurants()));
+    verify(reactiveRestaurantRepositoryService).findRestaurantsByItemName(any(), any(),
+        eq("biryani"), any(), any());
+  }
+
+  private void stubSources(Flux<Restaurant> byItemName, Flux<Restaurant> byName,
+      Flux<Restaurant> byItemAttributes, Flux<Restaurant> byAttributes) {
+    when(reactiveRestaurantRepositoryService.findRestaurantsByItemName(any(), any(), anyString(),
+        any(), any())).thenReturn(byItemName);
+    when(reactiveRestaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(),
+        any(), any())).thenReturn(byName);
+    when(reactiveRestaurantRepositoryService.findRestaurantsByItemAttributes(any(), any(),
+        anyString(), any(), any())).thenReturn(byItemAttributes);
+    when(reactiveRestaurantRepositoryService.findRestaurantsByAttributes(any(), any(),
+        anyString(), any(), any())).thenReturn(byAttributes);
+  }
+
+  private static GetRestaurantsRequest request() {
+    GetRestaurantsRequest request = new GetRestaurantsRequest(12.9, 77.6);
+    request.setSearchFor("biryani");
+    return request;
+  }
+
+  private static List<String> sortedIds(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).sorted()
+        .collect(Collectors.toList());
+  }
+
+  private static Restaurant restaurant(String restaurantId) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setName("Restaurant " + restaurantId);
+    return restaurant;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.indexes.ItemCatalog;
+import com.crio.qeats.indexes.ItemRestaurantIndex;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.indexes.SpellingCatalog;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantServiceFuzzySearchTest {
+
+  private static final LocalTime TIME = LocalTime.of(16, 0);
+
+  @Mock
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @Mock
+  private RestaurantCatalog restaurantCatalog;
+
+  @Mock
+  private ItemCatalog itemCatalog;
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  private ExecutorService searchExecutor;
+  private RestaurantServiceImpl restaurantService;
+
+  @BeforeEach
+  public void setup() {
+    SpellingCatalog spellingCatalog = new SpellingCatalog();
+    ReflectionTestUtils.setField(spellingCatalog, "restaurantCatalog", restaurantCatalog);
+    ReflectionTestUtils.setField(spellingCatalog, "itemCatalog", itemCatalog);
+    ReflectionTestUtils.setField(spellingCatalog, "taskScheduler", taskScheduler);
+
+    searchExecutor = Executors.newFixedThreadPool(4);
+    SearchFanOut searchFanOut = new SearchFanOut();
+    ReflectionTestUtils.setField(searchFanOut, "restaurantRepositoryService",
+        restaurantRepositoryService);
+    ReflectionTestUtils.setField(searchFanOut, "searchExecutor", searchExecutor);
+    ReflectionTestUtils.setField(searchFanOut, "meterRegistry", new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(searchFanOut, "deadlineInMillis", 5000L);
+
+    restaurantService = new RestaurantServiceImpl();
+    ReflectionTestUtils.setField(restaurantService, "spellingCatalog", spellingCatalog);
+    ReflectionTestUtils.setField(restaurantService, "searchFanOut", searchFanOut);
+  }
+
+  @AfterEach
+  public void teardown() {
+    searchExecutor.shutdownNow();
+  }
+
+  @Test
+  public void fuzzySearchesCorrectWordsThatMatchNothing() {
+    stubCatalogs();
+    search("chicken biriyani", true);
+
+    verifySearchedFor("chicken biryani");
+  }
+
+  @Test
+  public void fuzzySearchesKeepWordsFoundInsideKnownWords() {
+    stubCatalogs();
+    // "bake" is part of "bakery", and must not turn into "cake".
+    search("Bake", true);
+
+    verifySearchedFor("bake");
+  }
+
+  @Test
+  public void exactSearchesAreLeftAlone() {
+    search("biriyani", false);
+
+    verifySearchedFor("biriyani");
+  }
+
+  private void stubCatalogs() {
+    RestaurantEntity bakery = new RestaurantEntity();
+    bakery.setName("Bakery Brothers");
+    bakery.setAttributes(Collections.singletonList("Desserts"));
+    RestaurantCatalog.Snapshot snapshot = mock(RestaurantCatalog.Snapshot.class);
+    when(snapshot.getRestaurants()).thenReturn(Collections.singletonList(bakery));
+    when(restaurantCatalog.getSnapshot()).thenReturn(snapshot);
+
+    Map<String, Integer> itemWords = new HashMap<>();
+    itemWords.put("cake", 4);
+    itemWords.put("biryani", 9);
+    ItemRestaurantIndex itemIndex = mock(ItemRestaurantIndex.class);
+    when(itemIndex.vocabulary()).thenReturn(itemWords);
+    when(itemCatalog.getIndex()).thenReturn(itemIndex);
+
+    // Builds the spelling index on the calling thread, as the first request would schedule it.
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    }).when(taskScheduler).schedule(any(Runnable.class), any(Date.class));
+  }
+
+  private void search(String searchFor, boolean fuzzy) {
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor(searchFor);
+    getRestaurantsRequest.setFuzzy(fuzzy);
+    when(restaurantRepositoryService.findRestaurantsByName(anyDouble(), anyDouble(),
+        any(String.class), any(LocalTime.class), anyDouble())).thenReturn(new ArrayList<>());
+    when(restaurantRepositoryService.findRestaurantsByAttributes(anyDouble(), anyDouble(),
+        any(String.class), any(LocalTime.class), anyDouble())).thenReturn(new ArrayList<>());
+    when(restaurantRepositoryService.findRestaurantsByItemName(anyDouble(), anyDouble(),
+        any(String.class), any(LocalTime.class), anyDouble())).thenReturn(new ArrayList<>());
+    when(restaurantRepositoryService.findRestaurantsByItemAttributes(anyDouble(), anyDouble(),
+        any(String.class), any(LocalTime.class), anyDouble())).thenReturn(new ArrayList<>());
+
+    restaurantService.findRestaurantsBySearchQuery(getRestaurantsRequest, TIME);
+  }
+
+  private void verifySearchedFor(String searchString) {
+    verify(restaurantRepositoryService).findRestaurantsByName(anyDouble(), anyDouble(),
+        eq(searchString), any(LocalTime.class), anyDouble());
+    verify(restaurantRepositoryService).findRestaurantsByItemName(anyDouble(), anyDouble(),
+        eq(searchString), any(LocalTime.class), anyDouble());
+  }
+}
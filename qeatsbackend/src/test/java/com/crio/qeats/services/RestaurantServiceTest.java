@@ -21,9 +21,13 @@ import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -35,6 +39,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 @SpringBootTest(classes = {QEatsApplication.class})
@@ -49,14 +54,30 @@ class RestaurantServiceTest {
   @MockBean
   private RestaurantRepositoryService restaurantRepositoryServiceMock;
   private ObjectMapper objectMapper;
+  private ExecutorService searchExecutor;
 
   @BeforeEach
   void setup() {
     MockitoAnnotations.initMocks(this);
 
+    // Searches run their sources in parallel through the fan-out, on the mocked repository.
+    searchExecutor = Executors.newFixedThreadPool(4);
+    SearchFanOut searchFanOut = new SearchFanOut();
+    ReflectionTestUtils.setField(searchFanOut, "restaurantRepositoryService",
+        restaurantRepositoryServiceMock);
+    ReflectionTestUtils.setField(searchFanOut, "searchExecutor", searchExecutor);
+    ReflectionTestUtils.setField(searchFanOut, "meterRegistry", new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(searchFanOut, "deadlineInMillis", 5000L);
+    ReflectionTestUtils.setField(restaurantService, "searchFanOut", searchFanOut);
+
     objectMapper = new ObjectMapper();
   }
 
+  @AfterEach
+  void teardown() {
+    searchExecutor.shutdownNow();
+  }
+
   private String getServingRadius(List<Restaurant> restaurants, LocalTime timeOfService) {
     when(restaurantRepositoryServiceMock
         .findAllRestaurantsCloseBy(any(Double.class), any(Double.class), any(LocalTime.class),
@@ -0,0 +1,171 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SearchFanOutTest {
+
+  private static final double LATITUDE = 12.9;
+  private static final double LONGITUDE = 77.6;
+  private static final LocalTime TIME = LocalTime.of(20, 0);
+
+  private RestaurantRepositoryService restaurantRepositoryService;
+  private ExecutorService searchExecutor;
+  private SimpleMeterRegistry meterRegistry;
+  private SearchFanOut searchFanOut;
+
+  @BeforeEach
+  public void setUp() {
+    restaurantRepositoryService = mock(RestaurantRepositoryService.class);
+    searchExecutor = Executors.newFixedThreadPool(4);
+    meterRegistry = new SimpleMeterRegistry();
+    searchFanOut = new SearchFanOut();
+    ReflectionTestUtils.setField(searchFanOut, "restaurantRepositoryService",
+        restaurantRepositoryService);
+    ReflectionTestUtils.setField(searchFanOut, "searchExecutor", searchExecutor);
+    ReflectionTestUtils.setField(searchFanOut, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(searchFanOut, "deadlineInMillis", 300L);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    searchExecutor.shutdownNow();
+  }
+
+  @Test
+  public void sourcesRunInParallelAndRestaurantsAreDeduplicated() {
+    when(restaurantRepositoryService.findRestaurantsByItemName(any(), any(), anyString(), any(),
+        any())).thenAnswer(invocation -> slowly(100, restaurant("1"), restaurant("2")));
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(), any(),
+        any())).thenAnswer(invocation -> slowly(100, restaurant("2")));
+    when(restaurantRepositoryService.findRestaurantsByItemAttributes(any(), any(), anyString(),
+        any(), any())).thenAnswer(invocation -> slowly(100, restaurant("3")));
+    when(restaurantRepositoryService.findRestaurantsByAttributes(any(), any(), anyString(), any(),
+        any())).thenAnswer(invocation -> slowly(100, restaurant("1"), restaurant("4")));
+
+    long start = System.nanoTime();
+    SearchFanOut.Result result = search();
+    long elapsedInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertEquals(Arrays.asList("1", "2", "3", "4"), sortedIds(result.getRestaurants()));
+    assertFalse(result.isPartial());
+    assertTrue(elapsedInMillis < 250, "took " + elapsedInMillis + "ms");
+  }
+
+  @Test
+  public void restaurantsComeBackInSourceOrderWhateverOrderSourcesFinishIn() {
+    when(restaurantRepositoryService.findRestaurantsByItemName(any(), any(), anyString(), any(),
+        any())).thenAnswer(invocation -> slowly(150, restaurant("3"), restaurant("1")));
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(), any(),
+        any())).thenAnswer(invocation -> slowly(100, restaurant("4"), restaurant("3")));
+    when(restaurantRepositoryService.findRestaurantsByItemAttributes(any(), any(), anyString(),
+        any(), any())).thenAnswer(invocation -> slowly(50, restaurant("2")));
+    when(restaurantRepositoryService.findRestaurantsByAttributes(any(), any(), anyString(), any(),
+        any())).thenReturn(Arrays.asList(restaurant("5"), restaurant("1")));
+
+    SearchFanOut.Result result = search();
+
+    assertEquals(Arrays.asList("3", "1", "4", "2", "5"), result.getRestaurants().stream()
+        .map(Restaurant::getRestaurantId).collect(Collectors.toList()));
+    assertFalse(result.isPartial());
+  }
+
+  @Test
+  public void slowSourcesAreCancelledAtTheDeadline() throws InterruptedException {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    stubFastSources();
+    when(restaurantRepositoryService.findRestaurantsByAttributes(any(), any(), anyString(), any(),
+        any())).thenAnswer(invocation -> {
+          try {
+            Thread.sleep(10_000);
+          } catch (InterruptedException e) {
+            interrupted.countDown();
+          }
+          return Collections.singletonList(restaurant("4"));
+        });
+
+    long start = System.nanoTime();
+    SearchFanOut.Result result = search();
+    long elapsedInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertEquals(Arrays.asList("1", "2", "3"), sortedIds(result.getRestaurants()));
+    assertTrue(result.isPartial());
+    assertEquals(Collections.singletonList("cuisine"), result.getMissedSources());
+    assertTrue(elapsedInMillis < 1000, "took " + elapsedInMillis + "ms");
+    assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    assertEquals(1.0, meterRegistry.counter("qeats.search.fanout.missed",
+        "source", "cuisine", "reason", "deadline").count());
+  }
+
+  @Test
+  public void failedSourcesAreReportedAsMissed() {
+    stubFastSources();
+    when(restaurantRepositoryService.findRestaurantsByAttributes(any(), any(), anyString(), any(),
+        any())).thenThrow(new IllegalStateException("connection reset"));
+
+    SearchFanOut.Result result = search();
+
+    assertEquals(Arrays.asList("1", "2", "3"), sortedIds(result.getRestaurants()));
+    assertEquals(Collections.singletonList("cuisine"), result.getMissedSources());
+    assertEquals(1.0, meterRegistry.counter("qeats.search.fanout.missed",
+        "source", "cuisine", "reason", "failed").count());
+  }
+
+  private void stubFastSources() {
+    when(restaurantRepositoryService.findRestaurantsByItemName(any(), any(), anyString(), any(),
+        any())).thenReturn(Arrays.asList(restaurant("1"), restaurant("2")));
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(), any(),
+        any())).thenReturn(Collections.singletonList(restaurant("2")));
+    when(restaurantRepositoryService.findRestaurantsByItemAttributes(any(), any(), anyString(),
+        any(), any())).thenReturn(Collections.singletonList(restaurant("3")));
+  }
+
+  private SearchFanOut.Result search() {
+    return searchFanOut.search(LATITUDE, LONGITUDE, "biryani", TIME, 5.0);
+  }
+
+  private static List<Restaurant> slowly(long millis, Restaurant... restaurants)
+      throws InterruptedException {
+    Thread.sleep(millis);
+    return Arrays.asList(restaurants);
+  }
+
+  private static List<String> sortedIds(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).sorted()
+        .collect(Collectors.toList());
+  }
+
+  private static Restaurant restaurant(String restaurantId) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    return restaurant;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.SearchPlan;
+import com.crio.qeats.indexes.ItemCatalog;
+import com.crio.qeats.indexes.ItemRestaurantIndex;
+import com.crio.qeats.indexes.RestaurantAttributeIndex;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.indexes.RestaurantNameIndex;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SearchPlannerTest {
+
+  private static final double LATITUDE = 12.9;
+  private static final double LONGITUDE = 77.6;
+  private static final LocalTime TIME = LocalTime.of(20, 0);
+
+  @Mock
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @Mock
+  private RestaurantCatalog restaurantCatalog;
+
+  @Mock
+  private RestaurantCatalog.Snapshot snapshot;
+
+  @Mock
+  private ItemCatalog itemCatalog;
+
+  @Mock
+  private ItemRestaurantIndex itemIndex;
+
+  @InjectMocks
+  private SearchPlanner searchPlanner;
+
+  @BeforeEach
+  public void setUpCatalogs() {
+    lenient().when(restaurantCatalog.peekSnapshot()).thenReturn(snapshot);
+    lenient().when(snapshot.getNameIndex()).thenReturn(new RestaurantNameIndex(Arrays.asList(
+        "Biryani House", "Biryani Blues", "Spicy Biryani", "Dosa Corner")));
+    lenient().when(snapshot.getAttributeIndex()).thenReturn(new RestaurantAttributeIndex(
+        Arrays.asList(Arrays.asList("Mughlai"), Arrays.asList("Hyderabadi"),
+            Arrays.asList("Andhra"), Arrays.asList("South Indian"))));
+    lenient().when(itemCatalog.peekIndex()).thenReturn(itemIndex);
+  }
+
+  @Test
+  public void sourcesTheCatalogsCountNoMatchForStillRun() {
+    when(itemIndex.findRestaurantIdsByItemName("dosa")).thenReturn(Arrays.asList("4", "9"));
+    when(itemIndex.findRestaurantIdsByItemAttributes("dosa")).thenReturn(Collections.emptyList());
+    when(restaurantRepositoryService.findRestaurantsByItemName(any(), any(), anyString(), any(),
+        any())).thenReturn(Arrays.asList(restaurant("9", "Udupi Grand"),
+            restaurant("4", "Dosa Corner")));
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(), any(),
+        any())).thenReturn(Arrays.asList(restaurant("4", "Dosa Corner")));
+
+    SearchPlan plan = new SearchPlan();
+    List<Restaurant> restaurants = searchPlanner.search(LATITUDE, LONGITUDE, "dosa", TIME, 5.0,
+        null, null, plan);
+
+    assertEquals(Arrays.asList("9", "4"), ids(restaurants));
+    assertEquals(Arrays.asList("item-name:ran", "restaurant-name:ran", "item-attribute:ran",
+        "cuisine:ran"), steps(plan));
+    assertEquals(Arrays.asList(2, 1, 0, 0), estimates(plan));
+    assertFalse(plan.isStoppedEarly());
+    verify(restaurantRepositoryService).findRestaurantsByItemAttributes(any(), any(),
+        anyString(), any(), any());
+    verify(restaurantRepositoryService).findRestaurantsByAttributes(any(), any(), anyString(),
+        any(), any());
+  }
+
+  @Test
+  public void pageRequestsRunTheMostSelectiveSourcesFirstAndStopWhenThePageIsSettled() {
+    when(itemIndex.findRestaurantIdsByItemName("biryani"))
+        .thenReturn(Arrays.asList("1", "2", "3", "5", "6", "7", "8"));
+    when(itemIndex.findRestaurantIdsByItemAttributes("biryani"))
+        .thenReturn(Collections.emptyList());
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(), any(),
+        any())).thenReturn(Arrays.asList(restaurant("1", "Biryani House"),
+            restaurant("2", "Biryani Blues"), restaurant("3", "Spicy Biryani")));
+
+    SearchPlan plan = new SearchPlan();
+    List<Restaurant> restaurants = searchPlanner.search(LATITUDE, LONGITUDE, "biryani", TIME,
+        5.0, 2, null, plan);
+
+    assertEquals(Arrays.asList("1", "2", "3"), ids(restaurants));
+    assertEquals(Arrays.asList("item-attribute:ran", "cuisine:ran", "restaurant-name:ran",
+        "item-name:skipped: page full"), steps(plan));
+    assertTrue(plan.isStoppedEarly());
+    verify(restaurantRepositoryService, never()).findRestaurantsByItemName(any(), any(),
+        anyString(), any(), any());
+  }
+
+  @Test
+  public void catalogsThatAreNotLoadedAreLeftAloneAndTheirSourcesRunFirst() {
+    when(restaurantCatalog.peekSnapshot()).thenReturn(null);
+    when(itemIndex.findRestaurantIdsByItemName("biryani"))
+        .thenReturn(Arrays.asList("1", "2", "3", "5", "6", "7", "8"));
+    when(itemIndex.findRestaurantIdsByItemAttributes("biryani"))
+        .thenReturn(Collections.emptyList());
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), anyString(), any(),
+        any())).thenReturn(Arrays.asList(restaurant("1", "Biryani House"),
+            restaurant("2", "Biryani Blues"), restaurant("3", "Spicy Biryani")));
+
+    SearchPlan plan = new SearchPlan();
+    searchPlanner.search(LATITUDE, LONGITUDE, "biryani", TIME, 5.0, 2, null, plan);
+
+    assertEquals(Arrays.asList("restaurant-name:ran", "cuisine:skipped: page full",
+        "item-attribute:skipped: page full", "item-name:skipped: page full"), steps(plan));
+    assertEquals(Arrays.asList(null, null, 0, 7), estimates(plan));
+    verify(restaurantCatalog, never()).getSnapshot();
+    verify(itemCatalog, never()).getIndex();
+  }
+
+  private static Restaurant restaurant(String restaurantId, String name) {
+    return new Restaurant(restaurantId, name, "Bengaluru", "www.google.com", LATITUDE,
+        LONGITUDE, "09:00", "23:00", Collections.emptyList());
+  }
+
+  private static List<String> ids(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+
+  private static List<Integer> estimates(SearchPlan plan) {
+    return plan.getSteps().stream().map(SearchPlan.Step::getEstimatedMatches)
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> steps(SearchPlan plan) {
+    return plan.getSteps().stream().map(step -> step.getSource() + ":" + step.getAction())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exceptions.InvalidPageRequestException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class SearchResultRankingTest {
+
+  private static final double LATITUDE = 12.9;
+  private static final double LONGITUDE = 77.6;
+
+  @Test
+  public void nameMatchesRankAboveCuisinesAndItems() {
+    List<Restaurant> restaurants = Arrays.asList(
+        restaurant("1", "Dosa Corner", 0.0, "South Indian"),
+        restaurant("2", "Biryani House", 0.02, "Mughlai"),
+        restaurant("3", "Meghana Foods", 0.0, "Biryani"),
+        restaurant("4", "biryani", 0.03, "Andhra"),
+        restaurant("5", "Spicy Biryani Point", 0.01));
+
+    SearchResultRanking.Page page = SearchResultRanking.page(restaurants, " Biryani ",
+        LATITUDE, LONGITUDE, 5.0, 10, null);
+
+    assertEquals(Arrays.asList("4", "5", "2", "3", "1"), ids(page.getRestaurants()));
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  public void closerRestaurantsWinWithinTheSameRelevance() {
+    List<Restaurant> restaurants = Arrays.asList(
+        restaurant("far", "Pizza Hut", 0.03),
+        restaurant("near", "Pizza Hut", 0.001),
+        restaurant("outside", "Pizza Hut", 0.2));
+
+    assertEquals(Arrays.asList("near", "far", "outside"), ids(SearchResultRanking.page(
+        restaurants, "pizza", LATITUDE, LONGITUDE, 5.0, null, null).getRestaurants()));
+  }
+
+  @Test
+  public void cursorsWalkThroughEveryResultOnce() {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int i = 0; i < 45; i++) {
+      // Repeated offsets give equal scores, which are ordered by restaurantId.
+      restaurants.add(restaurant(String.format("%02d", i), "Cafe " + i, (i % 7) * 0.005));
+    }
+
+    List<String> walked = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      SearchResultRanking.Page page = SearchResultRanking.page(restaurants, "cafe", LATITUDE,
+          LONGITUDE, 5.0, 10, cursor);
+      walked.addAll(ids(page.getRestaurants()));
+      cursor = page.getNextCursor();
+      pages++;
+    } while (cursor != null);
+
+    List<String> all = ids(SearchResultRanking.page(restaurants, "cafe", LATITUDE, LONGITUDE,
+        5.0, SearchResultRanking.MAX_LIMIT, null).getRestaurants());
+    assertEquals(5, pages);
+    assertEquals(45, all.size());
+    assertEquals(all, walked);
+  }
+
+  @Test
+  public void pageIsSettledOnceEnoughResultsBeatAnyMissingRestaurant() {
+    List<Restaurant> restaurants = Arrays.asList(
+        restaurant("1", "Biryani House", 0.0),
+        restaurant("2", "Biryani Blues", 0.001),
+        restaurant("3", "Meghana Foods", 0.0, "Biryani"),
+        restaurant("4", "Spicy Biryani", 0.04));
+
+    // Only the first two score above what a restaurant not named after the query could reach.
+    assertTrue(SearchResultRanking.isPageSettled(restaurants, "biryani", LATITUDE, LONGITUDE,
+        5.0, 1, null, true));
+    assertFalse(SearchResultRanking.isPageSettled(restaurants, "biryani", LATITUDE, LONGITUDE,
+        5.0, 2, null, true));
+    assertFalse(SearchResultRanking.isPageSettled(restaurants, "biryani", LATITUDE, LONGITUDE,
+        5.0, 1, null, false));
+
+    String cursor = SearchResultRanking.page(restaurants, "biryani", LATITUDE, LONGITUDE, 5.0,
+        1, null).getNextCursor();
+    assertFalse(SearchResultRanking.isPageSettled(restaurants, "biryani", LATITUDE, LONGITUDE,
+        5.0, 1, cursor, true));
+  }
+
+  @Test
+  public void invalidLimitsAndCursorsAreRejected() {
+    List<Restaurant> restaurants = Collections.singletonList(restaurant("1", "Cafe", 0.0));
+    assertThrows(InvalidPageRequestException.class, () -> SearchResultRanking.page(restaurants,
+        "cafe", LATITUDE, LONGITUDE, 5.0, 0, null));
+    assertThrows(InvalidPageRequestException.class, () -> SearchResultRanking.page(restaurants,
+        "cafe", LATITUDE, LONGITUDE, 5.0, SearchResultRanking.MAX_LIMIT + 1, null));
+    assertThrows(InvalidPageRequestException.class, () -> SearchResultRanking.page(restaurants,
+        "cafe", LATITUDE, LONGITUDE, 5.0, 10, "not a cursor"));
+  }
+
+  private static Restaurant restaurant(String restaurantId, String name, double offset,
+      String... attributes) {
+    return new Restaurant(restaurantId, name, "Bengaluru", "www.google.com", LATITUDE + offset,
+        LONGITUDE, "09:00", "23:00", Arrays.asList(attributes));
+  }
+
+  private static List<String> ids(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+}
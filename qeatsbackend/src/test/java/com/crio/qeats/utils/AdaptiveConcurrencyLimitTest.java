@@ -0,0 +1,112 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  public void requestsOverTheLimitAreRejected() {
+    AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(2, 1, 10, 5,
+        clock::get);
+
+    Optional<AdaptiveConcurrencyLimit.Listener> first = concurrencyLimit.tryAcquire();
+    Optional<AdaptiveConcurrencyLimit.Listener> second = concurrencyLimit.tryAcquire();
+    assertTrue(first.isPresent());
+    assertTrue(second.isPresent());
+    assertFalse(concurrencyLimit.tryAcquire().isPresent());
+    assertEquals(1, concurrencyLimit.getRejected());
+
+    first.get().onIgnore();
+    first.get().onIgnore();
+    assertEquals(1, concurrencyLimit.getInFlight());
+    assertTrue(concurrencyLimit.tryAcquire().isPresent());
+  }
+
+  @Test
+  public void limitGrowsWhileLatencyHolds() {
+    AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(10, 5, 100, 10,
+        clock::get);
+
+    for (int window = 0; window < 20; window++) {
+      runWindow(concurrencyLimit, 10);
+    }
+
+    assertTrue(concurrencyLimit.getLimit() > 30, "limit " + concurrencyLimit.getLimit());
+  }
+
+  @Test
+  public void limitShrinksAsLatencyInflates() {
+    AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(40, 5, 100, 10,
+        clock::get);
+    for (int window = 0; window < 5; window++) {
+      runWindow(concurrencyLimit, 10);
+    }
+    int settledLimit = concurrencyLimit.getLimit();
+
+    for (int window = 0; window < 10; window++) {
+      runWindow(concurrencyLimit, 50);
+    }
+
+    assertTrue(concurrencyLimit.getLimit() < settledLimit / 2,
+        "limit " + concurrencyLimit.getLimit() + ", was " + settledLimit);
+    assertTrue(concurrencyLimit.getLimit() >= 5);
+  }
+
+  @Test
+  public void limitStaysWhenTheNodeIsNotBusy() {
+    AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(40, 5, 100, 10,
+        clock::get);
+
+    for (int i = 0; i < 100; i++) {
+      AdaptiveConcurrencyLimit.Listener listener = concurrencyLimit.tryAcquire().get();
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(i % 2 == 0 ? 10 : 200));
+      listener.onSuccess();
+    }
+
+    assertEquals(40, concurrencyLimit.getLimit());
+  }
+
+  @Test
+  public void droppedRequestsBackOffTheLimit() {
+    AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(20, 10, 100, 10,
+        clock::get);
+
+    concurrencyLimit.tryAcquire().get().onDropped();
+    assertEquals(18, concurrencyLimit.getLimit());
+
+    for (int i = 0; i < 20; i++) {
+      concurrencyLimit.tryAcquire().get().onDropped();
+    }
+    assertEquals(10, concurrencyLimit.getLimit());
+    assertEquals(0, concurrencyLimit.getInFlight());
+  }
+
+  // Fills the limit with requests taking the given latency and completes them all.
+  private void runWindow(AdaptiveConcurrencyLimit concurrencyLimit, long latencyInMillis) {
+    List<AdaptiveConcurrencyLimit.Listener> listeners = new ArrayList<>();
+    Optional<AdaptiveConcurrencyLimit.Listener> listener = concurrencyLimit.tryAcquire();
+    while (listener.isPresent()) {
+      listeners.add(listener.get());
+      listener = concurrencyLimit.tryAcquire();
+    }
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyInMillis));
+    listeners.forEach(AdaptiveConcurrencyLimit.Listener::onSuccess);
+  }
+}
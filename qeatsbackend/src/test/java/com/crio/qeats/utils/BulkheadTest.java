@@ -0,0 +1,97 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.exceptions.ServiceOverloadedException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BulkheadTest {
+
+  @Test
+  public void callersBeyondTheLimitAreTurnedAwayWhenNoneMayWait() {
+    Bulkhead bulkhead = new Bulkhead("test", 2, 0, 1000, 3);
+
+    try (Bulkhead.Permit first = bulkhead.acquire();
+        Bulkhead.Permit second = bulkhead.acquire()) {
+      assertEquals(2, bulkhead.getActive());
+      ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class,
+          bulkhead::acquire);
+      assertEquals(3, e.getRetryAfterSeconds());
+      assertEquals(1, bulkhead.getRejected());
+    }
+    assertEquals(0, bulkhead.getActive());
+    assertEquals("done", bulkhead.call(() -> "done"));
+  }
+
+  @Test
+  public void waitingCallersAreTurnedAwayAfterTheMaxWait() {
+    Bulkhead bulkhead = new Bulkhead("test", 1, 1, 50, 1);
+
+    try (Bulkhead.Permit permit = bulkhead.acquire()) {
+      long start = System.nanoTime();
+      assertThrows(ServiceOverloadedException.class, bulkhead::acquire);
+      assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+      assertEquals(0, bulkhead.getWaiting());
+      assertEquals(1, bulkhead.getRejected());
+    }
+  }
+
+  @Test
+  public void waitingCallersGetTheTurnOnceReleased() throws Exception {
+    Bulkhead bulkhead = new Bulkhead("test", 1, 1, 5000, 1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      Future<String> waiter;
+      try (Bulkhead.Permit permit = bulkhead.acquire()) {
+        waiter = executor.submit(() -> bulkhead.call(() -> "waited"));
+        awaitWaiting(bulkhead, 1);
+        // The queue of one is full, so a third caller is turned away at once.
+        assertThrows(ServiceOverloadedException.class, bulkhead::acquire);
+      }
+      assertEquals("waited", waiter.get(5, TimeUnit.SECONDS));
+      assertEquals(0, bulkhead.getActive());
+      assertEquals(0, bulkhead.getWaiting());
+      assertEquals(1, bulkhead.getRejected());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void permitsAreReleasedOnceAndOnFailure() {
+    Bulkhead bulkhead = new Bulkhead("test", 1, 0, 0, 1);
+
+    Bulkhead.Permit permit = bulkhead.acquire();
+    permit.close();
+    permit.close();
+    assertEquals(0, bulkhead.getActive());
+
+    assertThrows(IllegalStateException.class, () -> bulkhead.call(() -> {
+      throw new IllegalStateException("reset");
+    }));
+    try (Bulkhead.Permit first = bulkhead.acquire()) {
+      // Released twice, a permit would have let a second caller in.
+      assertThrows(ServiceOverloadedException.class, bulkhead::acquire);
+    }
+  }
+
+  private static void awaitWaiting(Bulkhead bulkhead, int waiting) throws InterruptedException {
+    for (int i = 0; i < 500 && bulkhead.getWaiting() < waiting; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(waiting, bulkhead.getWaiting());
+  }
+}
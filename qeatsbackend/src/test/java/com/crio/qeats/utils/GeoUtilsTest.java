@@ -11,6 +11,7 @@ package com.crio.qeats.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 class GeoUtilsTest {
@@ -29,4 +30,71 @@ class GeoUtilsTest {
     assertEquals(3.04, distanceBetweenA2bHsrAndA2bBtm, 0.1);
   }
 
+  @Test
+  public void batchKernelsMatchScalarDistance() {
+    Random random = new Random(7);
+    int count = 20000;
+    double[] latitudes = new double[count];
+    double[] longitudes = new double[count];
+    for (int i = 0; i < count; i++) {
+      latitudes[i] = 12.8 + random.nextDouble() * 0.4;
+      longitudes[i] = 77.4 + random.nextDouble() * 0.4;
+    }
+    double[] cosLatitudes = GeoUtils.cosOfLatitudes(latitudes);
+    double[] distances = new double[count];
+    boolean[] matches = new boolean[count];
+
+    GeoUtils.findDistancesInKm(13.0, 77.6, latitudes, longitudes, cosLatitudes, distances);
+    int matchCount = GeoUtils.findWithinRadius(13.0, 77.6, 5.0,
+        latitudes, longitudes, cosLatitudes, matches);
+
+    int expectedCount = 0;
+    for (int i = 0; i < count; i++) {
+      double expected = GeoUtils.findDistanceInKm(13.0, 77.6, latitudes[i], longitudes[i]);
+      assertEquals(expected, distances[i], 1e-9);
+      assertEquals(expected < 5.0, matches[i]);
+      expectedCount += expected < 5.0 ? 1 : 0;
+    }
+    assertEquals(expectedCount, matchCount);
+  }
+
+  @Test
+  public void boundingBoxAgreesWithScalarDistanceAtHighLatitudesAndAcrossTheAntimeridian() {
+    double[][] sources = {{0.0, 0.0}, {60.0, 10.0}, {80.0, 179.9}, {-89.99, 0.0}, {45.0, -180.0}};
+    Random random = new Random(11);
+    int count = 5000;
+    for (double[] source : sources) {
+      double[] latitudes = new double[count];
+      double[] longitudes = new double[count];
+      for (int i = 0; i < count; i++) {
+        latitudes[i] = Math.max(-90, Math.min(90, source[0] + (random.nextDouble() - 0.5) * 2));
+        double longitude = source[1] + (random.nextDouble() - 0.5) * 40;
+        longitudes[i] = longitude > 180 ? longitude - 360 : longitude < -180 ? longitude + 360
+            : longitude;
+      }
+      boolean[] matches = new boolean[count];
+
+      GeoUtils.findWithinRadius(source[0], source[1], 50.0, latitudes, longitudes,
+          GeoUtils.cosOfLatitudes(latitudes), matches);
+
+      for (int i = 0; i < count; i++) {
+        assertEquals(GeoUtils.findDistanceInKm(source[0], source[1], latitudes[i],
+            longitudes[i]) < 50.0, matches[i]);
+      }
+    }
+  }
+
+  @Test
+  public void radiusBoundaryIsExclusive() {
+    double[] latitudes = {10.0};
+    double[] longitudes = {20.0};
+    double[] cosLatitudes = GeoUtils.cosOfLatitudes(latitudes);
+    double exactDistance = GeoUtils.findDistanceInKm(10.05, 20.0, 10.0, 20.0);
+    int[] matches = new int[1];
+
+    assertEquals(0, GeoUtils.filterWithinRadius(10.05, 20.0, exactDistance,
+        latitudes, longitudes, cosLatitudes, new int[]{0}, matches, 0));
+    assertEquals(1, GeoUtils.filterWithinRadius(10.05, 20.0, Math.nextUp(exactDistance),
+        latitudes, longitudes, cosLatitudes, new int[]{0}, matches, 0));
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class OpeningHoursTest {
+
+  @Test
+  public void boundariesAreExclusive() {
+    OpeningHours openingHours = OpeningHours.of("18:00", "23:00");
+
+    assertFalse(openingHours.isOpenAt(LocalTime.of(18, 0)));
+    assertTrue(openingHours.isOpenAt(LocalTime.of(18, 0, 1)));
+    assertTrue(openingHours.isOpenAt(LocalTime.of(22, 59, 59)));
+    assertFalse(openingHours.isOpenAt(LocalTime.of(23, 0)));
+  }
+
+  @Test
+  public void overnightWindowWrapsAroundMidnight() {
+    assertTrue(OpeningHours.isOpenAt(LocalTime.of(23, 0), "22:00", "02:00"));
+    assertTrue(OpeningHours.isOpenAt(LocalTime.of(0, 0), "22:00", "02:00"));
+    assertTrue(OpeningHours.isOpenAt(LocalTime.of(1, 30), "22:00", "02:00"));
+    assertFalse(OpeningHours.isOpenAt(LocalTime.of(2, 0), "22:00", "02:00"));
+    assertFalse(OpeningHours.isOpenAt(LocalTime.of(21, 0), "22:00", "02:00"));
+  }
+
+  @Test
+  public void timesAreParsedToMinuteOfDay() {
+    assertEquals(0, OpeningHours.minuteOfDay("00:00"));
+    assertEquals(18 * 60 + 30, OpeningHours.minuteOfDay("18:30"));
+    assertEquals(23 * 60 + 59, OpeningHours.minuteOfDay("23:59"));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the cost of running the compiled patterns of pathological and of normal queries.
+ * Not part of the unit tests, whose outcome must not depend on the machine's load; run its main
+ * method by hand. Unescaped, "((a*)*)*b" alone does not finish within a minute on a single
+ * subject of thirty a's.
+ */
+public class SearchPatternsBenchmark {
+
+  // Inputs that backtrack catastrophically when used as a pattern against the subjects below.
+  private static final List<String> PATHOLOGICAL_QUERIES = Arrays.asList(
+      "(a+)+$", "(a|aa)*c", "(.*a){12}", "^(\\w+\\s?)*$", "((a*)*)*b");
+
+  private static final List<String> NORMAL_QUERIES = Arrays.asList(
+      "biryani", "paneer tikka", "A2B", "north indian", "dosa");
+
+  // Keeps the matching from being optimized away.
+  private static int matchCount;
+
+  public static void main(String[] args) {
+    List<String> subjects = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      subjects.add(String.join("", Collections.nCopies(20 + i % 20, "a")) + "!");
+      subjects.add("Restaurant number " + i + " serving biryani and dosa");
+    }
+
+    // Warm up, then keep the best of a few runs to dampen scheduling noise.
+    long normalNanos = Long.MAX_VALUE;
+    long pathologicalNanos = Long.MAX_VALUE;
+    for (int run = 0; run < 5; run++) {
+      normalNanos = Math.min(normalNanos, timeMatching(NORMAL_QUERIES, subjects));
+      pathologicalNanos = Math.min(pathologicalNanos,
+          timeMatching(PATHOLOGICAL_QUERIES, subjects));
+    }
+    System.out.printf("normal queries: %d us, pathological queries: %d us%n",
+        normalNanos / 1000, pathologicalNanos / 1000);
+  }
+
+  private static long timeMatching(List<String> queries, List<String> subjects) {
+    long startTime = System.nanoTime();
+    int matches = 0;
+    for (String query : queries) {
+      List<Pattern> patterns = Arrays.asList(SearchPatterns.equalTo(query),
+          SearchPatterns.containing(query),
+          SearchPatterns.containingAny(SearchPatterns.tokens(query)));
+      for (Pattern pattern : patterns) {
+        for (String subject : subjects) {
+          if (pattern.matcher(subject).find()) {
+            matches++;
+          }
+        }
+      }
+    }
+    matchCount += matches;
+    return System.nanoTime() - startTime;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SearchPatternsTest {
+
+  // Inputs that backtrack catastrophically when used as a pattern.
+  private static final List<String> PATHOLOGICAL_QUERIES = Arrays.asList(
+      "(a+)+$", "(a|aa)*c", "(.*a){12}", "^(\\w+\\s?)*$", "((a*)*)*b");
+
+  private static final List<String> NORMAL_QUERIES = Arrays.asList(
+      "biryani", "paneer tikka", "A2B", "north indian", "dosa");
+
+  private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+  @Test
+  public void searchStringsAreNormalizedAndBounded() {
+    assertEquals("paneer tikka", SearchPatterns.normalize("  paneer \t  tikka "));
+    assertEquals(SearchPatterns.MAX_QUERY_LENGTH,
+        SearchPatterns.normalize(String.join("", Collections.nCopies(500, "a"))).length());
+    assertEquals(Arrays.asList("Paneer", "tikka"),
+        SearchPatterns.tokens("Paneer tikka PANEER"));
+    assertEquals(SearchPatterns.MAX_TOKENS,
+        SearchPatterns.tokens("a b c d e f g h i j k l m n").size());
+    assertTrue(SearchPatterns.tokens("   ").isEmpty());
+  }
+
+  @Test
+  public void metacharactersAreMatchedLiterally() {
+    assertEquals("a\\+\\+ \\(b\\)\\.\\*", SearchPatterns.literal("a++ (b).*"));
+    assertTrue(SearchPatterns.containing("c++").matcher("Learn C++ Cafe").find());
+    assertFalse(SearchPatterns.containing("c.e").matcher("cafe").find());
+    assertTrue(SearchPatterns.equalTo(" A2B ").matcher("a2b").find());
+    assertFalse(SearchPatterns.equalTo("A2B").matcher("A2B Adyar").find());
+    assertTrue(SearchPatterns.containingAny(Arrays.asList("dosa", "(a+)+$"))
+        .matcher("x(a+)+$y").find());
+    assertFalse(SearchPatterns.containingAny(Arrays.asList("dosa", "a|b")).matcher("a").find());
+  }
+
+  @Test
+  public void compiledPatternsAreLiteralsWithoutQuantifiers() {
+    List<String> queries = new ArrayList<>(PATHOLOGICAL_QUERIES);
+    queries.addAll(NORMAL_QUERIES);
+    queries.addAll(Arrays.asList("a{1,3}b", "[a-z]+", "x?y", "\\d+\\", "$^|.", "(?i)a"));
+    for (String query : queries) {
+      assertLiteral(SearchPatterns.equalTo(query).pattern(), true, false);
+      assertLiteral(SearchPatterns.containing(query).pattern(), false, false);
+      assertLiteral(SearchPatterns.containingAny(SearchPatterns.tokens(query)).pattern(), false,
+          true);
+    }
+  }
+
+  /**
+   * Fails unless every metacharacter of the regex is escaped, apart from the anchors around an
+   * anchored regex and the bars between the branches of an alternation. Such a regex has no
+   * quantifier, group or class at all, let alone a nested quantifier to backtrack through.
+   */
+  private static void assertLiteral(String regex, boolean anchored, boolean alternation) {
+    int from = anchored ? 1 : 0;
+    int to = anchored ? regex.length() - 1 : regex.length();
+    if (anchored) {
+      assertEquals('^', regex.charAt(0), regex);
+      assertEquals('$', regex.charAt(to), regex);
+    }
+    for (int i = from; i < to; i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+        assertTrue(i < to && !Character.isLetterOrDigit(regex.charAt(i)),
+            "escape of a letter or digit, or dangling, at " + i + " in " + regex);
+      } else if (c == '|') {
+        assertTrue(alternation, "unescaped | at " + i + " in " + regex);
+      } else {
+        assertTrue(METACHARACTERS.indexOf(c) < 0,
+            "unescaped " + c + " at " + i + " in " + regex);
+      }
+    }
+  }
+}